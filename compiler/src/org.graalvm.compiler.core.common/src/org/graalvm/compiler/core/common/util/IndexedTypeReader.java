@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.common.util;
+
+/**
+ * Seeks in a sequence of keyed records written by an {@link IndexedTypeWriter}. A lookup reads one
+ * entry of the side index and then decodes only the records of a single block:
+ *
+ * <pre>
+ * if (reader.seek(key)) {
+ *     while (reader.hasNextRecord()) {
+ *         long recordKey = reader.nextRecord();
+ *         // decode (or skip) the body of the record from the data reader
+ *     }
+ * }
+ * </pre>
+ *
+ * The data and the index can be read through the same {@link TypeReader} only if the caller does
+ * not rely on the position of the reader across calls to {@link #seek}.
+ */
+public final class IndexedTypeReader {
+
+    private final TypeReader data;
+    private final long dataStart;
+    private final TypeReader index;
+    private final long indexStart;
+    private final int syncPointCount;
+    private final long granularity;
+
+    /**
+     * The first key of the current block.
+     */
+    private long blockBase;
+
+    /**
+     * The byte index in {@link #data} at which the current block ends.
+     */
+    private long blockEnd;
+
+    /**
+     * Creates a reader.
+     *
+     * @param data the reader of the records
+     * @param dataStart the byte index at which the first record starts
+     * @param index the reader of the side index
+     * @param indexStart the byte index at which the side index starts
+     * @param syncPointCount the {@linkplain IndexedTypeWriter#getSyncPointCount() number of sync
+     *            points}
+     * @param granularity the {@linkplain IndexedTypeWriter#getGranularity() granularity} of the
+     *            index
+     */
+    public IndexedTypeReader(TypeReader data, long dataStart, TypeReader index, long indexStart, int syncPointCount, long granularity) {
+        this.data = data;
+        this.dataStart = dataStart;
+        this.index = index;
+        this.indexStart = indexStart;
+        this.syncPointCount = syncPointCount;
+        this.granularity = granularity;
+    }
+
+    /**
+     * Positions the reader at the first record of the block which contains {@code key}.
+     *
+     * @return {@code false} if the block contains no records
+     */
+    public boolean seek(long key) {
+        long block = key / granularity;
+        if (key < 0 || block >= syncPointCount) {
+            blockEnd = data.getByteIndex();
+            return false;
+        }
+        index.setByteIndex(indexStart + block * 4);
+        long start = dataStart + index.getU4();
+        long end = dataStart + index.getU4();
+        blockBase = block * granularity;
+        blockEnd = end;
+        data.setByteIndex(start);
+        return start != end;
+    }
+
+    /**
+     * Returns {@code true} if the current block has a record at the current position of the data
+     * reader. The body of the previous record must have been read completely.
+     */
+    public boolean hasNextRecord() {
+        return data.getByteIndex() < blockEnd;
+    }
+
+    /**
+     * Reads the header of the next record in the current block. The data reader is then positioned
+     * at the body of the record.
+     *
+     * @return the key of the record
+     */
+    public long nextRecord() {
+        assert hasNextRecord();
+        return blockBase + data.getUV();
+    }
+}
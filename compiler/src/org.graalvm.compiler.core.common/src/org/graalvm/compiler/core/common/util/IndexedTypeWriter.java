@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Writes a sequence of keyed records to a {@link TypeWriter} together with a small side index of
+ * sync points, so that an {@link IndexedTypeReader} can seek to the records of a key in constant
+ * time instead of decoding the stream from its start.
+ *
+ * The key space is divided into blocks of {@link #granularity} consecutive keys. Records must be
+ * written in the order of non-decreasing keys. Each record starts with the offset of its key from
+ * the start of its block, written as an {@link TypeWriter#putUV unsigned value}, followed by the
+ * record body written by the caller. Because offsets are relative to the block, decoding can start
+ * at any block boundary. The side index holds the byte position of the first record of each block
+ * plus the end of the data as unsigned 4 byte values, i.e., 4 bytes per block.
+ *
+ * Larger granularities make the index smaller, but readers decode more records of a block before
+ * they reach the requested key. Object references in record bodies are best written as indices
+ * from a {@link FrequencyEncoder}, so that frequent objects take a single byte.
+ */
+public final class IndexedTypeWriter {
+
+    private final TypeWriter data;
+
+    /**
+     * The number of consecutive keys in a block.
+     */
+    private final long granularity;
+
+    /**
+     * The byte index in {@link #data} at which the first record starts.
+     */
+    private final long dataStart;
+
+    /**
+     * The byte position of the first record of each block, relative to {@link #dataStart}.
+     */
+    private long[] syncPoints = new long[16];
+
+    private int syncPointCount;
+
+    private long lastKey;
+
+    /**
+     * Creates a writer for records which are appended to {@code data}.
+     *
+     * @param data the destination of the records
+     * @param granularity the number of consecutive keys in a block
+     */
+    public IndexedTypeWriter(TypeWriter data, long granularity) {
+        if (granularity <= 0) {
+            throw new IllegalArgumentException("granularity must be positive");
+        }
+        this.data = data;
+        this.granularity = granularity;
+        this.dataStart = data.getBytesWritten();
+    }
+
+    public long getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Starts a record for a key. The body of the record must be written to the underlying
+     * {@link TypeWriter} before the next record is started.
+     *
+     * @param key a non-negative key which is not smaller than the key of the previous record
+     */
+    public void beginRecord(long key) {
+        if (key < lastKey) {
+            throw new IllegalArgumentException("Keys must be non-decreasing: " + key + " after " + lastKey);
+        }
+        long block = key / granularity;
+        long position = data.getBytesWritten() - dataStart;
+        while (syncPointCount <= block) {
+            addSyncPoint(position);
+        }
+        data.putUV(key - block * granularity);
+        lastKey = key;
+    }
+
+    private void addSyncPoint(long position) {
+        if (syncPointCount == syncPoints.length) {
+            syncPoints = Arrays.copyOf(syncPoints, syncPointCount * 2);
+        }
+        syncPoints[syncPointCount++] = position;
+    }
+
+    /**
+     * Returns the number of sync points, i.e., the number of blocks up to the block of the last
+     * written record.
+     */
+    public int getSyncPointCount() {
+        return syncPointCount;
+    }
+
+    /**
+     * Returns the size of the side index in bytes.
+     */
+    public long getIndexSize() {
+        return (syncPointCount + 1) * 4L;
+    }
+
+    /**
+     * Writes the side index. All records must have been written.
+     *
+     * @param index the destination of the index, which can be the same writer as the one for the
+     *            records
+     */
+    public void encodeIndex(TypeWriter index) {
+        long end = data.getBytesWritten() - dataStart;
+        for (int i = 0; i < syncPointCount; i++) {
+            index.putU4(syncPoints[i]);
+        }
+        index.putU4(end);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.core.CompilationWatchDog;
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.core.phases.BudgetedInliningPolicy;
+import org.graalvm.compiler.java.BytecodeParserOptions;
+import org.graalvm.compiler.nodes.InvokeNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.inlining.InliningPhase;
+import org.graalvm.compiler.phases.common.inlining.policy.GreedyInliningPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that {@link BudgetedInliningPolicy} polls the {@link CompilationWatchDog} budget and stops
+ * inlining once it is exceeded.
+ */
+public class CompilationBudgetTest extends GraalCompilerTest {
+
+    public static int callee(int a, int b) {
+        return a * b + a;
+    }
+
+    public static int callerSnippet(int a, int b) {
+        return callee(a, b) - b;
+    }
+
+    static class BudgetEvents implements CompilationWatchDog.EventHandler {
+        int exceeded;
+        int lastNodeCount;
+
+        @Override
+        public void onBudgetExceeded(CompilationWatchDog watchDog, CompilationIdentifier compilation, long elapsed, int nodeCount) {
+            exceeded++;
+            lastNodeCount = nodeCount;
+        }
+    }
+
+    private int invokesAfterInlining(CompilationWatchDog.Budget budget, BudgetEvents events) {
+        OptionValues options = new OptionValues(getInitialOptions(), BytecodeParserOptions.InlineDuringParsing, false, CompilationWatchDog.Options.CompilationWatchDogStartDelay, 0);
+        StructuredGraph graph = parseEager("callerSnippet", AllowAssumptions.YES, options);
+        Assert.assertEquals(1, graph.getNodes().filter(InvokeNode.class).count());
+        try (CompilationWatchDog watchDog = CompilationWatchDog.watch(graph.compilationId(), options, false, events, budget)) {
+            Assert.assertEquals(budget.isUnlimited(), watchDog == null);
+            new InliningPhase(new BudgetedInliningPolicy(new GreedyInliningPolicy(null)), createCanonicalizerPhase()).apply(graph, getDefaultHighTierContext());
+        }
+        return graph.getNodes().filter(InvokeNode.class).count();
+    }
+
+    @Test
+    public void testUnlimited() {
+        BudgetEvents events = new BudgetEvents();
+        Assert.assertEquals(0, invokesAfterInlining(CompilationWatchDog.Budget.UNLIMITED, events));
+        Assert.assertEquals(0, events.exceeded);
+    }
+
+    @Test
+    public void testNodeBudgetExceeded() {
+        BudgetEvents events = new BudgetEvents();
+        Assert.assertEquals(1, invokesAfterInlining(new CompilationWatchDog.Budget(0, 1), events));
+        Assert.assertEquals(1, events.exceeded);
+        Assert.assertTrue(String.valueOf(events.lastNodeCount), events.lastNodeCount > 1);
+    }
+
+    @Test
+    public void testBudgetConfigured() {
+        Assert.assertFalse(BudgetedInliningPolicy.isBudgetConfigured(getInitialOptions()));
+        Assert.assertTrue(BudgetedInliningPolicy.isBudgetConfigured(new OptionValues(getInitialOptions(), CompilationWatchDog.Options.CompilationNodeBudget, 1)));
+        Assert.assertTrue(BudgetedInliningPolicy.isBudgetConfigured(new OptionValues(getInitialOptions(), CompilationWatchDog.Options.CompilationTimeBudget, 1)));
+    }
+}
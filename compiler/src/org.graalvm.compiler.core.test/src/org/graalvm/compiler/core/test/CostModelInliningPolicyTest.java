@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.java.BytecodeParserOptions;
+import org.graalvm.compiler.nodes.InvokeNode;
+import org.graalvm.compiler.nodes.ReturnNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.inlining.InliningPhase;
+import org.graalvm.compiler.phases.common.inlining.policy.CostModelInliningPolicy;
+import org.graalvm.compiler.phases.common.inlining.policy.InliningCostModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CostModelInliningPolicyTest extends GraalCompilerTest {
+
+    /**
+     * Exposes the graph size used for the {@code MaximumDesiredSize} cut-off.
+     */
+    static class TestPolicy extends CostModelInliningPolicy {
+
+        TestPolicy(InliningCostModel model) {
+            super(null, model);
+        }
+
+        int size(StructuredGraph graph) {
+            return graphSize(graph);
+        }
+    }
+
+    private static InliningCostModel model(String text) throws IOException {
+        return InliningCostModel.read(new BufferedReader(new StringReader(text)));
+    }
+
+    public static int callee(int a, int b) {
+        return a * b + a;
+    }
+
+    public static int callerSnippet(int a, int b) {
+        return callee(a, b) - b;
+    }
+
+    private StructuredGraph parse(OptionValues options) {
+        return parseEager("callerSnippet", AllowAssumptions.YES, new OptionValues(options, BytecodeParserOptions.InlineDuringParsing, false));
+    }
+
+    private int invokesAfterInlining(InliningCostModel model) {
+        StructuredGraph graph = parse(getInitialOptions());
+        Assert.assertEquals(1, graph.getNodes().filter(InvokeNode.class).count());
+        new InliningPhase(new CostModelInliningPolicy(null, model), createCanonicalizerPhase()).apply(graph, getDefaultHighTierContext());
+        return graph.getNodes().filter(InvokeNode.class).count();
+    }
+
+    @Test
+    public void testInliningDecisions() throws IOException {
+        // with unit weights the callee is a trivial method
+        Assert.assertEquals(0, invokesAfterInlining(model("* 1 1\n")));
+        // with heavy weights the same callee exceeds every inlining limit
+        Assert.assertEquals(1, invokesAfterInlining(model("* 100 100\n")));
+    }
+
+    @Test
+    public void testGraphSizeUpperBound() throws IOException {
+        InliningCostModel model = model("* 1 1\n" + ReturnNode.class.getName() + " 3 3\n");
+        StructuredGraph graph = parse(getInitialOptions());
+        int nodes = graph.getNodeCount();
+        int estimate = model.estimate(graph).getCost();
+        Assert.assertTrue(estimate < nodes * 3);
+
+        // far below MaximumDesiredSize the upper bound is returned without estimating the graph
+        Assert.assertEquals(nodes * 3, new TestPolicy(model).size(graph));
+
+        // once the upper bound reaches MaximumDesiredSize the graph is estimated
+        StructuredGraph limited = parse(new OptionValues(getInitialOptions(), GraalOptions.MaximumDesiredSize, nodes));
+        Assert.assertEquals(estimate, new TestPolicy(model).size(limited));
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.graalvm.compiler.core.common.util.IndexedTypeReader;
+import org.graalvm.compiler.core.common.util.IndexedTypeWriter;
+import org.graalvm.compiler.core.common.util.TypeReader;
+import org.graalvm.compiler.core.common.util.TypeWriter;
+import org.junit.Test;
+
+public class IndexedTypeEncodingTest {
+
+    /**
+     * A growable little-endian byte array with LEB128 variable-length values.
+     */
+    private static final class ByteArrayTypeStream implements TypeWriter, TypeReader {
+        private byte[] bytes = new byte[64];
+        private int size;
+        private long byteIndex;
+
+        private void put(long value, int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+            for (int i = 0; i < length; i++) {
+                bytes[size++] = (byte) (value >> (8 * i));
+            }
+        }
+
+        private long get(int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value |= (bytes[(int) byteIndex++] & 0xFFL) << (8 * i);
+            }
+            return value;
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return size;
+        }
+
+        @Override
+        public void putS1(long value) {
+            put(value, 1);
+        }
+
+        @Override
+        public void putU1(long value) {
+            put(value, 1);
+        }
+
+        @Override
+        public void putS2(long value) {
+            put(value, 2);
+        }
+
+        @Override
+        public void putU2(long value) {
+            put(value, 2);
+        }
+
+        @Override
+        public void putS4(long value) {
+            put(value, 4);
+        }
+
+        @Override
+        public void patchS4(long value, long offset) {
+            for (int i = 0; i < 4; i++) {
+                bytes[(int) offset + i] = (byte) (value >> (8 * i));
+            }
+        }
+
+        @Override
+        public void putU4(long value) {
+            put(value, 4);
+        }
+
+        @Override
+        public void putS8(long value) {
+            put(value, 8);
+        }
+
+        @Override
+        public void putSV(long value) {
+            putUV((value << 1) ^ (value >> 63));
+        }
+
+        @Override
+        public void putUV(long value) {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                put((v & 0x7F) | 0x80, 1);
+                v >>>= 7;
+            }
+            put(v, 1);
+        }
+
+        @Override
+        public long getByteIndex() {
+            return byteIndex;
+        }
+
+        @Override
+        public void setByteIndex(long byteIndex) {
+            this.byteIndex = byteIndex;
+        }
+
+        @Override
+        public int getS1() {
+            return (byte) get(1);
+        }
+
+        @Override
+        public int getU1() {
+            return (int) get(1);
+        }
+
+        @Override
+        public int getS2() {
+            return (short) get(2);
+        }
+
+        @Override
+        public int getU2() {
+            return (int) get(2);
+        }
+
+        @Override
+        public int getS4() {
+            return (int) get(4);
+        }
+
+        @Override
+        public long getU4() {
+            return get(4);
+        }
+
+        @Override
+        public long getS8() {
+            return get(8);
+        }
+
+        @Override
+        public long getSV() {
+            long value = getUV();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        @Override
+        public long getUV() {
+            long value = 0;
+            for (int shift = 0;; shift += 7) {
+                long b = get(1);
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void seekFindsAllRecords() {
+        for (long granularity : new long[]{1, 16, 256}) {
+            Random random = new Random(granularity);
+            ByteArrayTypeStream stream = new ByteArrayTypeStream();
+            // unrelated data before the records
+            stream.putS8(-1);
+            long dataStart = stream.getBytesWritten();
+            IndexedTypeWriter writer = new IndexedTypeWriter(stream, granularity);
+            List<long[]> records = new ArrayList<>();
+            long key = 0;
+            for (int i = 0; i < 2000; i++) {
+                // leave some blocks empty and repeat some keys
+                key += random.nextInt(4) == 0 ? 0 : random.nextInt(i % 100 == 0 ? 2000 : 20);
+                long value = random.nextLong();
+                writer.beginRecord(key);
+                stream.putSV(value);
+                records.add(new long[]{key, value});
+            }
+            long indexStart = stream.getBytesWritten();
+            writer.encodeIndex(stream);
+            assertEquals(writer.getIndexSize(), stream.getBytesWritten() - indexStart);
+            assertEquals(key / granularity + 1, writer.getSyncPointCount());
+
+            IndexedTypeReader reader = new IndexedTypeReader(stream, dataStart, stream, indexStart, writer.getSyncPointCount(), granularity);
+            int found = 0;
+            for (long[] record : records) {
+                assertTrue(reader.seek(record[0]));
+                boolean match = false;
+                while (reader.hasNextRecord()) {
+                    long recordKey = reader.nextRecord();
+                    assertEquals(record[0] / granularity, recordKey / granularity);
+                    long value = stream.getSV();
+                    if (recordKey == record[0] && value == record[1]) {
+                        match = true;
+                    }
+                }
+                assertTrue(match);
+                found++;
+            }
+            assertEquals(records.size(), found);
+            assertFalse(reader.seek(key + granularity));
+            assertFalse(reader.seek(-1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decreasingKeys() {
+        IndexedTypeWriter writer = new IndexedTypeWriter(new ByteArrayTypeStream(), 8);
+        writer.beginRecord(10);
+        writer.beginRecord(9);
+    }
+}
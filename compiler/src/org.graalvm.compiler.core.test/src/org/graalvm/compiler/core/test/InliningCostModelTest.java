@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.phases.common.inlining.policy.InliningCostModel;
+import org.junit.Test;
+
+public class InliningCostModelTest {
+
+    private static final String[] CLASSES = {"Add", "Load", "Invoke", "Constant"};
+    private static final double[] SIZE_WEIGHTS = {1.0, 2.0, 6.0, 0.0};
+    private static final double[] TIME_WEIGHTS = {0.5, 1.0, 4.0, 0.5};
+
+    private static InliningCostModel read(String text) throws IOException {
+        return InliningCostModel.read(new BufferedReader(new StringReader(text)));
+    }
+
+    @Test
+    public void testReadAndEstimate() throws IOException {
+        InliningCostModel model = read("# comment\n\n* 1.5 2.0\nAdd 0.5 0.25\nLoad 3 1\n");
+        assertEquals(0.5, model.getSizeWeight("Add"), 0);
+        assertEquals(1.0, model.getCompileTimeWeight("Load"), 0);
+        assertEquals(1.5, model.getSizeWeight("Unknown"), 0);
+        assertEquals(3.0, model.getMaxWeight(), 0);
+
+        EconomicMap<String, Integer> histogram = EconomicMap.create();
+        histogram.put("Add", 4);
+        histogram.put("Load", 2);
+        histogram.put("Unknown", 1);
+        InliningCostModel.Estimate estimate = model.estimate(histogram);
+        assertEquals(4 * 0.5 + 2 * 3 + 1.5, estimate.getSize(), 1e-9);
+        assertEquals(4 * 0.25 + 2 * 1 + 2.0, estimate.getCompileTime(), 1e-9);
+        assertEquals(10, estimate.getCost());
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        for (String text : new String[]{"Add 1\n", "Add one 1\n", "Add -1 1\n", "Add NaN 1\n"}) {
+            try {
+                read(text);
+                fail("expected IllegalArgumentException for " + text);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testFitAndRoundTrip() throws IOException {
+        Random random = new Random(42);
+        InliningCostModel.Trainer trainer = new InliningCostModel.Trainer();
+        for (int s = 0; s < 200; s++) {
+            EconomicMap<String, Integer> histogram = EconomicMap.create();
+            double size = 0;
+            double time = 0;
+            for (int c = 0; c < CLASSES.length; c++) {
+                int count = random.nextInt(20);
+                if (count > 0) {
+                    histogram.put(CLASSES[c], count);
+                }
+                size += count * SIZE_WEIGHTS[c];
+                time += count * TIME_WEIGHTS[c];
+            }
+            trainer.addSample(histogram, size, time);
+        }
+        assertEquals(200, trainer.getSampleCount());
+        InliningCostModel model = trainer.fit(200);
+
+        /* The weights are normalized to node equivalents, so only their ratios are recovered. */
+        double sizeScale = model.getSizeWeight("Add") / SIZE_WEIGHTS[0];
+        double timeScale = model.getCompileTimeWeight("Add") / TIME_WEIGHTS[0];
+        for (int c = 0; c < CLASSES.length; c++) {
+            assertEquals(CLASSES[c], SIZE_WEIGHTS[c] * sizeScale, model.getSizeWeight(CLASSES[c]), 1e-6);
+            assertEquals(CLASSES[c], TIME_WEIGHTS[c] * timeScale, model.getCompileTimeWeight(CLASSES[c]), 1e-6);
+        }
+
+        StringWriter out = new StringWriter();
+        model.write(out);
+        InliningCostModel copy = read(out.toString());
+        for (String name : CLASSES) {
+            assertEquals(model.getSizeWeight(name), copy.getSizeWeight(name), 0);
+            assertEquals(model.getCompileTimeWeight(name), copy.getCompileTimeWeight(name), 0);
+        }
+        assertEquals(1.0, copy.getSizeWeight("Unknown"), 0);
+    }
+
+    @Test
+    public void testSamplesRoundTrip() throws IOException {
+        StringWriter out = new StringWriter();
+        EconomicMap<String, Integer> histogram = EconomicMap.create();
+        histogram.put("Add", 3);
+        histogram.put("Load", 2);
+        InliningCostModel.writeSample(out, histogram, 12, 3.5);
+        histogram.put("Invoke", 1);
+        InliningCostModel.writeSample(out, histogram, 18, 7.5);
+
+        InliningCostModel.Trainer trainer = new InliningCostModel.Trainer();
+        trainer.readSamples(new BufferedReader(new StringReader(out.toString())));
+        assertEquals(2, trainer.getSampleCount());
+
+        try {
+            trainer.readSamples(new BufferedReader(new StringReader("12 3.5 Add\n")));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
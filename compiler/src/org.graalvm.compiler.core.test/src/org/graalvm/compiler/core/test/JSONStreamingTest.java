@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.util.json.JSONFormatter;
+import org.graalvm.util.json.JSONParserException;
+import org.graalvm.util.json.JSONPullParser;
+import org.graalvm.util.json.JSONStreamWriter;
+import org.junit.Test;
+
+public class JSONStreamingTest {
+
+    private static EconomicMap<String, Object> createDocument() {
+        EconomicMap<String, Object> properties = EconomicMap.create();
+        properties.put("bci", 17);
+        properties.put("ratio", 0.25);
+        properties.put("inlined", true);
+        properties.put("reason", null);
+        EconomicMap<String, Object> document = EconomicMap.create();
+        document.put("compilationId", 1234567890123L);
+        document.put("name", "quote \" backslash \\ tab \t control \u0001 caf\u00e9 \ud83d\ude00");
+        document.put("phases", new ArrayList<>(Arrays.asList("A", "B", new ArrayList<>())));
+        document.put("properties", properties);
+        document.put("empty", EconomicMap.create());
+        return document;
+    }
+
+    @Test
+    public void writerMatchesFormatter() throws IOException {
+        EconomicMap<String, Object> document = createDocument();
+        StringWriter stringWriter = new StringWriter();
+        try (JSONStreamWriter json = JSONStreamWriter.of(stringWriter)) {
+            json.value(document);
+        }
+        String expected = JSONFormatter.formatJSON(document);
+        assertEquals(expected, stringWriter.toString());
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        JSONStreamWriter json = JSONStreamWriter.of(buffer);
+        json.value(document);
+        json.close();
+        assertEquals(expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writerChecksStructure() throws IOException {
+        JSONStreamWriter json = JSONStreamWriter.of(new StringWriter());
+        json.beginObject();
+        try {
+            json.value(1);
+            fail("value without a name");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        json.name("a").value(Long.MIN_VALUE);
+        try {
+            json.endArray();
+            fail("mismatched end");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        json.endObject().close();
+    }
+
+    @Test
+    public void parseFormattedDocument() throws IOException {
+        EconomicMap<String, Object> document = createDocument();
+        for (boolean indent : new boolean[]{false, true}) {
+            JSONPullParser parser = new JSONPullParser(JSONFormatter.formatJSON(document, indent));
+            List<String> events = new ArrayList<>();
+            JSONPullParser.Event event;
+            while ((event = parser.next()) != JSONPullParser.Event.END_DOCUMENT) {
+                switch (event) {
+                    case NAME:
+                    case STRING:
+                        events.add(parser.getString());
+                        break;
+                    case NUMBER:
+                        events.add(parser.getNumber().toString());
+                        break;
+                    default:
+                        events.add(event.toString());
+                        break;
+                }
+            }
+            assertEquals(Arrays.asList("BEGIN_OBJECT", "compilationId", "1234567890123", "name", document.get("name"), "phases", "BEGIN_ARRAY", "A", "B", "BEGIN_ARRAY",
+                            "END_ARRAY", "END_ARRAY", "properties", "BEGIN_OBJECT", "bci", "17", "ratio", "0.25", "inlined", "TRUE", "reason", "NULL", "END_OBJECT",
+                            "empty", "BEGIN_OBJECT", "END_OBJECT", "END_OBJECT"), events);
+        }
+    }
+
+    @Test
+    public void skipValues() throws IOException {
+        JSONPullParser parser = new JSONPullParser(JSONFormatter.formatJSON(createDocument()));
+        assertEquals(JSONPullParser.Event.BEGIN_OBJECT, parser.next());
+        List<String> names = new ArrayList<>();
+        while (parser.next() == JSONPullParser.Event.NAME) {
+            names.add(parser.getString());
+            parser.skipValue();
+        }
+        assertEquals(Arrays.asList("compilationId", "name", "phases", "properties", "empty"), names);
+        assertEquals(JSONPullParser.Event.END_DOCUMENT, parser.next());
+    }
+
+    @Test
+    public void malformedInput() throws IOException {
+        for (String input : new String[]{"", "{", "[1 2]", "{\"a\" 1}", "{\"a\": tru}", "\"unterminated", "[1,]", "01", "{} {}", "-", "1."}) {
+            JSONPullParser parser = new JSONPullParser(input);
+            try {
+                while (parser.next() != JSONPullParser.Event.END_DOCUMENT) {
+                    // consume the input
+                }
+                fail("accepted " + input);
+            } catch (JSONParserException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("line 1"));
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import java.util.Arrays;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.lir.alloc.lsra.LinearScanParallelism;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Checks that running the linear scan phases in parallel produces the same code as running them
+ * serially.
+ */
+public class LinearScanParallelismTest extends GraalCompilerTest {
+
+    public static int manyBlocksSnippet(int[] values, int a, int b, int c) {
+        int s = 0;
+        int d = c;
+        for (int i = 0; i < values.length; i++) {
+            switch (values[i]) {
+                case 0:
+                    s += a * 3 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 1:
+                    s += a * 4 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 2:
+                    s += a * 5 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 3:
+                    s += a * 6 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 4:
+                    s += a * 7 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 5:
+                    s += a * 8 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                case 6:
+                    s += a * 9 + (b ^ c) - d;
+                    d = s >>> 7;
+                    break;
+                case 7:
+                    s += a * 10 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 8:
+                    s += a * 11 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 9:
+                    s += a * 12 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 10:
+                    s += a * 13 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 11:
+                    s += a * 14 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 12:
+                    s += a * 15 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                case 13:
+                    s += a * 16 + (b ^ c) - d;
+                    d = s >>> 7;
+                    break;
+                case 14:
+                    s += a * 17 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 15:
+                    s += a * 18 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 16:
+                    s += a * 19 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 17:
+                    s += a * 20 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 18:
+                    s += a * 21 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 19:
+                    s += a * 22 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                case 20:
+                    s += a * 23 + (b ^ c) - d;
+                    d = s >>> 7;
+                    break;
+                case 21:
+                    s += a * 24 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 22:
+                    s += a * 25 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 23:
+                    s += a * 26 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 24:
+                    s += a * 27 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 25:
+                    s += a * 28 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 26:
+                    s += a * 29 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                case 27:
+                    s += a * 30 + (b ^ c) - d;
+                    d = s >>> 7;
+                    break;
+                case 28:
+                    s += a * 31 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 29:
+                    s += a * 32 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 30:
+                    s += a * 33 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 31:
+                    s += a * 34 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 32:
+                    s += a * 35 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 33:
+                    s += a * 36 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                case 34:
+                    s += a * 37 + (b ^ c) - d;
+                    d = s >>> 7;
+                    break;
+                case 35:
+                    s += a * 38 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 36:
+                    s += a * 39 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 37:
+                    s += a * 40 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 38:
+                    s += a * 41 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 39:
+                    s += a * 42 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 40:
+                    s += a * 43 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                case 41:
+                    s += a * 44 + (b ^ c) - d;
+                    d = s >>> 7;
+                    break;
+                case 42:
+                    s += a * 45 + (b ^ c) - d;
+                    d = s >>> 1;
+                    break;
+                case 43:
+                    s += a * 46 + (b ^ c) - d;
+                    d = s >>> 2;
+                    break;
+                case 44:
+                    s += a * 47 + (b ^ c) - d;
+                    d = s >>> 3;
+                    break;
+                case 45:
+                    s += a * 48 + (b ^ c) - d;
+                    d = s >>> 4;
+                    break;
+                case 46:
+                    s += a * 49 + (b ^ c) - d;
+                    d = s >>> 5;
+                    break;
+                case 47:
+                    s += a * 50 + (b ^ c) - d;
+                    d = s >>> 6;
+                    break;
+                default:
+                    s -= d;
+            }
+        }
+        return s + a + b + c + d;
+    }
+
+    private byte[] compileWith(boolean parallel) {
+        OptionValues options = new OptionValues(getInitialOptions(), LinearScanParallelism.Options.LSRAParallel, parallel, LinearScanParallelism.Options.LSRAParallelMinBlocks, 1);
+        ResolvedJavaMethod method = getResolvedJavaMethod("manyBlocksSnippet");
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES, options);
+        CompilationResult result = compile(method, graph);
+        return Arrays.copyOf(result.getTargetCode(), result.getTargetCodeSize());
+    }
+
+    @Test
+    public void testSameCode() {
+        Assume.assumeTrue("linear scan parallelism is not available on this machine", LinearScanParallelism.isAvailable());
+        byte[] serial = compileWith(false);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertArrayEquals(serial, compileWith(true));
+        }
+        int[] values = new int[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 50;
+        }
+        OptionValues options = new OptionValues(getInitialOptions(), LinearScanParallelism.Options.LSRAParallel, true, LinearScanParallelism.Options.LSRAParallelMinBlocks, 1);
+        test(options, "manyBlocksSnippet", values, 3, 5, 7);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import java.util.ListIterator;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.loop.phases.ContiguousArrayLoop;
+import org.graalvm.compiler.loop.phases.LoopLaneUnrollPhase;
+import org.graalvm.compiler.loop.phases.LoopPartialUnrollPhase;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.loop.DefaultLoopPolicies;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoopLaneUnrollPhaseTest extends GraalCompilerTest {
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts);
+        LoopLaneUnrollPhase.register(suites, createCanonicalizerPhase(), opts);
+        return suites;
+    }
+
+    private OptionValues laneUnrollOptions() {
+        // keep the regular partial unrolling from claiming the loops first
+        return new OptionValues(getInitialOptions(), LoopLaneUnrollPhase.Options.LoopLaneUnroll, true, GraalOptions.PartialUnroll, false);
+    }
+
+    public static void scaleSnippet(int[] a) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = a[i] * 3;
+        }
+    }
+
+    public static void fillSnippet(byte[] a) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = 42;
+        }
+    }
+
+    public static void overlappingSnippet(int[] a) {
+        for (int i = 1; i < a.length; i++) {
+            a[i] = a[i - 1] + 1;
+        }
+    }
+
+    private StructuredGraph midTierGraph(String snippet) {
+        OptionValues options = laneUnrollOptions();
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES, options);
+        Suites suites = super.createSuites(options);
+        suites.getHighTier().apply(graph, getDefaultHighTierContext());
+        suites.getMidTier().apply(graph, getDefaultMidTierContext());
+        return graph;
+    }
+
+    private ContiguousArrayLoop analyze(StructuredGraph graph) {
+        LoopsData loops = getDefaultMidTierContext().getLoopsDataProvider().getLoopsData(graph);
+        loops.detectCountedLoops();
+        Assert.assertEquals(1, loops.countedLoops().size());
+        LoopEx loop = loops.countedLoops().iterator().next();
+        return ContiguousArrayLoop.analyze(loop);
+    }
+
+    private void unroll(StructuredGraph graph) {
+        new LoopLaneUnrollPhase(new DefaultLoopPolicies(), createCanonicalizerPhase()).apply(graph, getDefaultMidTierContext());
+    }
+
+    private static LoopBeginNode mainLoop(StructuredGraph graph) {
+        LoopBeginNode main = null;
+        for (LoopBeginNode loopBegin : graph.getNodes(LoopBeginNode.TYPE)) {
+            if (loopBegin.isMainLoop()) {
+                Assert.assertNull("expected a single main loop", main);
+                main = loopBegin;
+            }
+        }
+        return main;
+    }
+
+    private void checkUnrolledToLanes(String snippet, ContiguousArrayLoop.Shape shape, int elementBytes) {
+        StructuredGraph graph = midTierGraph(snippet);
+        ContiguousArrayLoop contiguous = analyze(graph);
+        Assert.assertNotNull(contiguous);
+        Assert.assertEquals(shape, contiguous.getShape());
+        Assert.assertEquals(elementBytes, contiguous.getElementBytes());
+
+        unroll(graph);
+        LoopBeginNode main = mainLoop(graph);
+        Assert.assertNotNull("loop was not split into pre/main/post loops", main);
+        int lanes = LoopLaneUnrollPhase.Options.LoopLaneUnrollWidth.getValue(graph.getOptions()) / elementBytes;
+        Assert.assertEquals(lanes, main.getUnrollFactor());
+    }
+
+    @Test
+    public void testScale() {
+        checkUnrolledToLanes("scaleSnippet", ContiguousArrayLoop.Shape.ElementWise, Integer.BYTES);
+        test(laneUnrollOptions(), "scaleSnippet", new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19});
+    }
+
+    @Test
+    public void testFill() {
+        checkUnrolledToLanes("fillSnippet", ContiguousArrayLoop.Shape.Fill, Byte.BYTES);
+        test(laneUnrollOptions(), "fillSnippet", new byte[77]);
+    }
+
+    @Test
+    public void testRegisteredBeforePartialUnroll() {
+        OptionValues options = new OptionValues(getInitialOptions(), LoopLaneUnrollPhase.Options.LoopLaneUnroll, true, GraalOptions.PartialUnroll, true);
+        Suites suites = createSuites(options);
+        ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopLaneUnrollPhase.class);
+        Assert.assertNotNull("phase was not registered in the mid tier", position);
+        Assert.assertTrue(position.hasNext());
+        Assert.assertTrue(position.next() instanceof LoopPartialUnrollPhase);
+    }
+
+    @Test
+    public void testOverlappingRejected() {
+        StructuredGraph graph = midTierGraph("overlappingSnippet");
+        Assert.assertNull(analyze(graph));
+
+        unroll(graph);
+        Assert.assertNull("loop with a loop-carried dependency must not be transformed", mainLoop(graph));
+        test(laneUnrollOptions(), "overlappingSnippet", new int[]{5, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.api.directives.GraalDirectives;
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.core.phases.HighTier;
+import org.graalvm.compiler.java.BytecodeParserOptions;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.code.site.Call;
+import jdk.vm.ci.code.site.Infopoint;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests that {@link CompilationResultBuilder.Options#SplitColdCode} emits cold blocks after all hot
+ * blocks.
+ */
+public class SplitColdCodeTest extends GraalCompilerTest {
+
+    public static int coldCallee(int a) {
+        return a * 31;
+    }
+
+    public static int hotCallee(int a) {
+        return a + 7;
+    }
+
+    public static int coldBranchSnippet(int a) {
+        int r;
+        if (GraalDirectives.injectBranchProbability(0.0001, a == 42)) {
+            r = coldCallee(a);
+        } else {
+            r = a + 1;
+        }
+        return hotCallee(r);
+    }
+
+    private OptionValues options(boolean splitColdCode) {
+        return new OptionValues(getInitialOptions(), CompilationResultBuilder.Options.SplitColdCode, splitColdCode,
+                        BytecodeParserOptions.InlineDuringParsing, false, HighTier.Options.Inline, false);
+    }
+
+    private int callOffset(CompilationResult result, String callee) {
+        ResolvedJavaMethod target = getResolvedJavaMethod(callee);
+        int offset = -1;
+        for (Infopoint infopoint : result.getInfopoints()) {
+            if (infopoint instanceof Call && target.equals(((Call) infopoint).target)) {
+                Assert.assertEquals("more than one call to " + callee, -1, offset);
+                offset = infopoint.pcOffset;
+            }
+        }
+        Assert.assertNotEquals("no call to " + callee, -1, offset);
+        return offset;
+    }
+
+    @Test
+    public void testColdBlockAfterHotCode() {
+        OptionValues options = options(true);
+        ResolvedJavaMethod method = getResolvedJavaMethod("coldBranchSnippet");
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES, options);
+        CompilationResult result = compile(method, graph);
+        int cold = callOffset(result, "coldCallee");
+        int hot = callOffset(result, "hotCallee");
+        Assert.assertTrue("cold call at " + cold + " is not emitted after the hot call at " + hot, cold > hot);
+    }
+
+    @Test
+    public void testSplitColdCodeResults() {
+        for (boolean splitColdCode : new boolean[]{false, true}) {
+            OptionValues options = options(splitColdCode);
+            test(options, "coldBranchSnippet", 1);
+            test(options, "coldBranchSnippet", 42);
+        }
+    }
+}
@@ -67,6 +67,15 @@ import jdk.vm.ci.services.Services;
  * The above means only 1 task is run at a time. Most watch dog tasks are expected to be cancelled
  * while waiting to be run. A problematic compilation will eventually be watched as the executor
  * effectively sorts its tasks in the order they are received.
+ *
+ * A watch dog can additionally enforce a {@linkplain Budget compilation budget}, consisting of a
+ * time limit and a graph size limit. The budget is not checked by the watch dog thread. Instead,
+ * the compiler polls {@link #isOverBudget()} or {@link #checkBudget(int)} at points where it can
+ * switch to a cheaper configuration for the rest of the compilation (e.g., an economy partial
+ * evaluator configuration in Truffle) instead of running the expensive configuration to completion.
+ * The first time a compilation is found to be over budget, it is
+ * {@linkplain EventHandler#onBudgetExceeded reported}. A watch dog with a budget but without a
+ * {@linkplain Options#CompilationWatchDogStartDelay start delay} does not schedule any task.
  */
 public final class CompilationWatchDog implements Runnable, AutoCloseable {
 
@@ -130,6 +139,20 @@ public final class CompilationWatchDog implements Runnable, AutoCloseable {
                             stuckTime, compilation, Util.toString(stackTrace));
         }
 
+        /**
+         * Notifies this object that a compilation exceeded its {@linkplain Budget budget}. This is
+         * called at most once per compilation, on the compiler thread.
+         *
+         * @param watchDog the watch dog watching the compilation
+         * @param compilation the compilation
+         * @param elapsed milliseconds since the watch dog was created
+         * @param nodeCount the graph size that exceeded the node budget, or {@code -1} if the time
+         *            budget was exceeded
+         */
+        default void onBudgetExceeded(CompilationWatchDog watchDog, CompilationIdentifier compilation, long elapsed, int nodeCount) {
+            watchDog.trace("compilation %s exceeded its budget %s [%.3f seconds, %d nodes]", compilation, watchDog.budget, secs(elapsed), nodeCount);
+        }
+
         /**
          * Notifies this object that {@code exception} occurred while watching a compilation.
          *
@@ -158,9 +181,63 @@ public final class CompilationWatchDog implements Runnable, AutoCloseable {
         @Option(help = "Number of seconds after which a compilation appearing to make no progress causes the VM to exit " +
                        "(0 disables VM exiting).", type = OptionType.Debug)
         public static final OptionKey<Integer> CompilationWatchDogVMExitDelay = new OptionKey<>(0);
+        @Option(help = "Milliseconds after which a compilation is over budget and should continue " +
+                       "with a cheaper configuration (0 disables the time budget).", type = OptionType.Expert)
+        public static final OptionKey<Integer> CompilationTimeBudget = new OptionKey<>(0);
+        @Option(help = "Number of graph nodes above which a compilation is over budget and should continue " +
+                       "with a cheaper configuration (0 disables the node budget).", type = OptionType.Expert)
+        public static final OptionKey<Integer> CompilationNodeBudget = new OptionKey<>(0);
         // @formatter:on
     }
 
+    /**
+     * The time and graph size a compilation may use before it should continue with a cheaper
+     * configuration.
+     */
+    public static final class Budget {
+
+        /**
+         * A budget that is never exceeded.
+         */
+        public static final Budget UNLIMITED = new Budget(0, 0);
+
+        /**
+         * @see Options#CompilationTimeBudget
+         */
+        final long timeMillis;
+
+        /**
+         * @see Options#CompilationNodeBudget
+         */
+        final int nodes;
+
+        public Budget(long timeMillis, int nodes) {
+            this.timeMillis = timeMillis;
+            this.nodes = nodes;
+        }
+
+        /**
+         * Gets the budget configured in {@code options}.
+         */
+        public static Budget fromOptions(OptionValues options) {
+            int time = Options.CompilationTimeBudget.getValue(options);
+            int nodes = Options.CompilationNodeBudget.getValue(options);
+            if (time == 0 && nodes == 0) {
+                return UNLIMITED;
+            }
+            return new Budget(time, nodes);
+        }
+
+        public boolean isUnlimited() {
+            return timeMillis == 0 && nodes == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Budget[" + (timeMillis == 0 ? "-" : timeMillis + "ms") + ", " + (nodes == 0 ? "-" : nodes + " nodes") + "]";
+        }
+    }
+
     private final Thread watchedThread;
 
     /**
@@ -183,14 +260,38 @@ public final class CompilationWatchDog implements Runnable, AutoCloseable {
 
     private final ScheduledExecutorService singleShotExecutor;
 
+    private final Budget budget;
+
+    private final long startNanos;
+
+    /**
+     * Only accessed by the compiler thread.
+     */
+    private boolean overBudget;
+
+    /**
+     * The watch dog of the enclosing compilation on the same thread, restored when this watch dog
+     * is closed.
+     */
+    private final CompilationWatchDog outer;
+
+    private static final ThreadLocal<CompilationWatchDog> CURRENT = new ThreadLocal<>();
+
     CompilationWatchDog(CompilationIdentifier compilation, Thread watchedThread, int delay, int vmExitDelay,
-                    boolean singleShotExecutor, EventHandler eventHandler) {
+                    boolean singleShotExecutor, EventHandler eventHandler, Budget budget) {
         this.compilation = compilation;
         this.watchedThread = watchedThread;
         this.vmExitDelay = vmExitDelay;
         this.eventHandler = eventHandler == null ? EventHandler.DEFAULT : eventHandler;
+        this.budget = budget;
+        this.startNanos = System.nanoTime();
+        this.outer = CURRENT.get();
+        CURRENT.set(this);
         trace("started compiling %s", compilation);
-        if (singleShotExecutor) {
+        if (delay <= 0) {
+            this.singleShotExecutor = null;
+            this.task = null;
+        } else if (singleShotExecutor) {
             this.singleShotExecutor = createExecutor();
             this.task = this.singleShotExecutor.schedule(this, delay, TimeUnit.SECONDS);
         } else {
@@ -199,9 +300,64 @@ public final class CompilationWatchDog implements Runnable, AutoCloseable {
         }
     }
 
+    /**
+     * Gets the watch dog of the compilation running on the current thread, or {@code null} if the
+     * compilation is not watched.
+     */
+    public static CompilationWatchDog current() {
+        return CURRENT.get();
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Determines if the watched compilation has exceeded its time budget, or has previously
+     * exceeded its node budget. Once this method returns {@code true}, it keeps returning
+     * {@code true} for the rest of the compilation. Must only be called by the compiler thread.
+     */
+    public boolean isOverBudget() {
+        if (!overBudget && budget.timeMillis != 0) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            if (elapsed >= budget.timeMillis) {
+                exceedBudget(elapsed, -1);
+            }
+        }
+        return overBudget;
+    }
+
+    /**
+     * Same as {@link #isOverBudget()}, but additionally checks {@code nodeCount} against the node
+     * budget.
+     *
+     * @param nodeCount the current size of the graph being compiled
+     */
+    public boolean checkBudget(int nodeCount) {
+        if (!overBudget && budget.nodes != 0 && nodeCount > budget.nodes) {
+            exceedBudget(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), nodeCount);
+        }
+        return isOverBudget();
+    }
+
+    private void exceedBudget(long elapsed, int nodeCount) {
+        overBudget = true;
+        eventHandler.onBudgetExceeded(this, compilation, elapsed, nodeCount);
+    }
+
     private void stopCompilation() {
         trace("stopped compiling %s", compilation);
         this.compilation = null;
+        if (CURRENT.get() == this) {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+        if (task == null) {
+            return;
+        }
         this.task.cancel(true);
         if (singleShotExecutor != null) {
             singleShotExecutor.shutdownNow();
@@ -335,16 +491,30 @@ public final class CompilationWatchDog implements Runnable, AutoCloseable {
      *         leaving the scope will cause {@link #close()} to be called.
      */
     public static CompilationWatchDog watch(CompilationIdentifier compilation, OptionValues options, boolean singleShotExecutor, EventHandler eventHandler) {
+        return watch(compilation, options, singleShotExecutor, eventHandler, Budget.fromOptions(options));
+    }
+
+    /**
+     * Opens a scope for watching a compilation that is subject to {@code budget}.
+     *
+     * @param budget the budget of the compilation, typically obtained from
+     *            {@link Budget#fromOptions(OptionValues)}
+     * @return {@code null} if the compilation watch dog is disabled and {@code budget} is
+     *         {@linkplain Budget#isUnlimited() unlimited}, otherwise a new
+     *         {@link CompilationWatchDog} object
+     * @see #watch(CompilationIdentifier, OptionValues, boolean, EventHandler)
+     */
+    public static CompilationWatchDog watch(CompilationIdentifier compilation, OptionValues options, boolean singleShotExecutor, EventHandler eventHandler, Budget budget) {
         int delay = Options.CompilationWatchDogStartDelay.getValue(options);
         if (Services.IS_BUILDING_NATIVE_IMAGE && !Options.CompilationWatchDogStartDelay.hasBeenSet(options)) {
             // Disable watch dog by default when building a native image
             delay = 0;
         }
-        if (delay > 0) {
+        if (delay > 0 || !budget.isUnlimited()) {
             Thread watchedThread = Thread.currentThread();
             int vmExitDelay = Options.CompilationWatchDogVMExitDelay.getValue(options);
             CompilationWatchDog watchDog = new CompilationWatchDog(compilation, watchedThread, delay,
-                            vmExitDelay, singleShotExecutor, eventHandler);
+                            vmExitDelay, singleShotExecutor, eventHandler, budget);
             return watchDog;
         }
         return null;
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.phases;
+
+import org.graalvm.compiler.core.CompilationWatchDog;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.spi.Replacements;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.inlining.InliningUtil;
+import org.graalvm.compiler.phases.common.inlining.info.InlineInfo;
+import org.graalvm.compiler.phases.common.inlining.policy.InliningPolicy;
+import org.graalvm.compiler.phases.common.inlining.walker.MethodInvocation;
+
+/**
+ * An {@link InliningPolicy} that stops inlining once the compilation has exceeded its
+ * {@linkplain CompilationWatchDog.Budget budget}. Inlining is where a compilation grows the most,
+ * so giving it up is the cheaper configuration the rest of the compilation continues with. The
+ * budget is polled through the {@linkplain CompilationWatchDog#current() watch dog} of the current
+ * compilation, the graph size is checked after every inlining step.
+ */
+public final class BudgetedInliningPolicy implements InliningPolicy {
+
+    private final InliningPolicy delegate;
+
+    public BudgetedInliningPolicy(InliningPolicy delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Determines if a compilation budget is configured in {@code options}.
+     */
+    public static boolean isBudgetConfigured(OptionValues options) {
+        return !CompilationWatchDog.Budget.fromOptions(options).isUnlimited();
+    }
+
+    @Override
+    public boolean continueInlining(StructuredGraph graph) {
+        CompilationWatchDog watchDog = CompilationWatchDog.current();
+        if (watchDog != null && watchDog.checkBudget(graph.getNodeCount())) {
+            InliningUtil.logInliningDecision(graph.getDebug(), "inlining is cut off by the compilation budget %s", watchDog.getBudget());
+            return false;
+        }
+        return delegate.continueInlining(graph);
+    }
+
+    @Override
+    public Decision isWorthInlining(Replacements replacements, MethodInvocation invocation, InlineInfo calleeInfo, int inliningDepth, boolean fullyProcessed) {
+        CompilationWatchDog watchDog = CompilationWatchDog.current();
+        if (watchDog != null && watchDog.isOverBudget()) {
+            return Decision.NO.withReason(calleeInfo.graph().getDebug().hasCompilationListener(), "compilation over budget");
+        }
+        return delegate.isWorthInlining(replacements, invocation, calleeInfo, inliningDepth, fullyProcessed);
+    }
+}
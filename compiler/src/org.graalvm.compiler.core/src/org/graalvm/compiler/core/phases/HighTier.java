@@ -53,7 +53,10 @@ import org.graalvm.compiler.phases.common.HighTierLoweringPhase;
 import org.graalvm.compiler.phases.common.IterativeConditionalEliminationPhase;
 import org.graalvm.compiler.phases.common.NodeCounterPhase;
 import org.graalvm.compiler.phases.common.inlining.InliningPhase;
+import org.graalvm.compiler.phases.common.inlining.policy.CostModelInliningPolicy;
 import org.graalvm.compiler.phases.common.inlining.policy.GreedyInliningPolicy;
+import org.graalvm.compiler.phases.common.inlining.policy.InliningCostModel;
+import org.graalvm.compiler.phases.common.inlining.policy.InliningPolicy;
 import org.graalvm.compiler.phases.tiers.HighTierContext;
 import org.graalvm.compiler.virtual.phases.ea.FinalPartialEscapePhase;
 import org.graalvm.compiler.virtual.phases.ea.ReadEliminationPhase;
@@ -77,7 +80,12 @@ public class HighTier extends BaseTier<HighTierContext> {
         }
 
         if (Options.Inline.getValue(options)) {
-            appendPhase(new InliningPhase(new GreedyInliningPolicy(null), canonicalizer));
+            String costModelFile = CostModelInliningPolicy.Options.InliningCostModelFile.getValue(options);
+            InliningPolicy policy = costModelFile == null ? new GreedyInliningPolicy(null) : new CostModelInliningPolicy(null, InliningCostModel.getOrLoad(costModelFile));
+            if (BudgetedInliningPolicy.isBudgetConfigured(options)) {
+                policy = new BudgetedInliningPolicy(policy);
+            }
+            appendPhase(new InliningPhase(policy, canonicalizer));
             appendPhase(new DeadCodeEliminationPhase(Optional));
         }
 
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.debug.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.graalvm.compiler.debug.AsyncIgvDumpWriter;
+import org.graalvm.compiler.debug.AsyncIgvDumpWriter.DropPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncIgvDumpWriterTest {
+
+    private static final long DRAIN_TIMEOUT = 60_000;
+
+    static class TestTarget implements AsyncIgvDumpWriter.Target {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final WritableByteChannel channel = Channels.newChannel(bytes);
+        volatile boolean closed;
+        volatile int opened;
+
+        @Override
+        public WritableByteChannel openTarget() throws IOException {
+            Assert.assertFalse("write after close", closed);
+            opened++;
+            return channel;
+        }
+
+        @Override
+        public void closeTarget() throws IOException {
+            closed = true;
+        }
+
+        @Override
+        public void failed(IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] expected(int stream, int chunks) {
+        byte[] data = new byte[chunks * 3];
+        for (int i = 0; i < chunks; i++) {
+            for (int j = 0; j < 3; j++) {
+                data[i * 3 + j] = (byte) (stream * 31 + i + j);
+            }
+        }
+        return data;
+    }
+
+    private static void writeInterleaved(long capacity, DropPolicy policy) throws Exception {
+        AsyncIgvDumpWriter writer = AsyncIgvDumpWriter.start(capacity, null);
+        TestTarget[] targets = {new TestTarget(), new TestTarget(), new TestTarget()};
+        int chunks = 1000;
+        for (int i = 0; i < chunks; i++) {
+            for (int stream = 0; stream < targets.length; stream++) {
+                byte[] chunk = Arrays.copyOfRange(expected(stream, chunks), i * 3, i * 3 + 3);
+                Assert.assertTrue(writer.write(targets[stream], ByteBuffer.wrap(chunk), policy));
+            }
+        }
+        for (TestTarget target : targets) {
+            writer.close(target);
+        }
+        Assert.assertTrue(writer.drain(DRAIN_TIMEOUT));
+        for (int stream = 0; stream < targets.length; stream++) {
+            TestTarget target = targets[stream];
+            Assert.assertTrue(target.closed);
+            Assert.assertArrayEquals(expected(stream, chunks), target.bytes.toByteArray());
+        }
+    }
+
+    @Test
+    public void testInOrder() throws Exception {
+        writeInterleaved(1024 * 1024, DropPolicy.Drop);
+    }
+
+    @Test
+    public void testBlockingInOrder() throws Exception {
+        // the buffer holds a few chunks only so that writes wait for the writer thread
+        writeInterleaved(8, DropPolicy.Block);
+    }
+
+    @Test
+    public void testDrainIdle() throws Exception {
+        AsyncIgvDumpWriter writer = AsyncIgvDumpWriter.start(16, null);
+        Assert.assertTrue(writer.drain(DRAIN_TIMEOUT));
+        TestTarget target = new TestTarget();
+        writer.close(target);
+        Assert.assertTrue(writer.drain(DRAIN_TIMEOUT));
+        Assert.assertTrue(target.closed);
+        Assert.assertEquals(0, target.opened);
+    }
+
+    @Test
+    public void testWriterSurvivesUnexpectedException() throws Exception {
+        AsyncIgvDumpWriter writer = AsyncIgvDumpWriter.start(8, null);
+        TestTarget broken = new TestTarget() {
+            @Override
+            public WritableByteChannel openTarget() throws IOException {
+                throw new IllegalStateException("unexpected");
+            }
+
+            @Override
+            public void failed(IOException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        };
+        TestTarget target = new TestTarget();
+        byte[] data = expected(1, 100);
+        for (int i = 0; i < data.length; i += 3) {
+            // the buffer only holds two chunks, so these writes need a live writer thread
+            Assert.assertTrue(writer.write(broken, ByteBuffer.wrap(data, i, 3), DropPolicy.Block));
+            Assert.assertTrue(writer.write(target, ByteBuffer.wrap(data, i, 3), DropPolicy.Block));
+        }
+        writer.close(target);
+        Assert.assertTrue(writer.drain(DRAIN_TIMEOUT));
+        Assert.assertTrue(target.closed);
+        Assert.assertArrayEquals(data, target.bytes.toByteArray());
+    }
+}
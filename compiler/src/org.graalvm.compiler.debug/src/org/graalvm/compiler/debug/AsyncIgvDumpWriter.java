@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.debug;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.graalvm.compiler.options.EnumOptionKey;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+import jdk.vm.ci.common.NativeImageReinitialize;
+
+/**
+ * Writes IGV dump streams from a background thread. Compiler threads only copy the serialized
+ * bytes of their {@link IgvDumpChannel} into a bounded ring buffer, the writer thread drains it to
+ * the files or network connections. When the buffer is full, the {@link DropPolicy} decides whether
+ * the compiler thread waits or the dump stream is truncated. Streams are only ever truncated, never
+ * thinned out, since later parts of a stream refer to pool entries written earlier.
+ *
+ * The compiler runtime {@linkplain #setThreadFactory installs} the factory for the writer thread
+ * and {@linkplain #drainShared() drains} the shared writer when it shuts down so that no buffered
+ * dump is lost.
+ */
+public final class AsyncIgvDumpWriter implements Runnable {
+
+    public enum DropPolicy {
+        /**
+         * Wait until the writer thread has made room in the buffer.
+         */
+        Block,
+        /**
+         * Discard the rest of a dump stream once a write to it does not fit into the buffer.
+         */
+        Drop
+    }
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Write dumped graphs from a background thread. Compiler threads only copy the serialized " +
+                       "graphs into a bounded buffer.", type = OptionType.Debug)
+        public static final OptionKey<Boolean> PrintGraphAsync = new OptionKey<>(false);
+        @Option(help = "Size in bytes of the buffer between compiler threads and the background graph writer.", type = OptionType.Debug)
+        public static final OptionKey<Integer> PrintGraphAsyncBufferSize = new OptionKey<>(64 * 1024 * 1024);
+        @Option(help = "What to do if the buffer of the background graph writer is full: Block waits for space, " +
+                       "Drop truncates the affected dump stream so that compilation never stalls.", type = OptionType.Debug)
+        public static final EnumOptionKey<DropPolicy> PrintGraphAsyncDropPolicy = new EnumOptionKey<>(DropPolicy.Drop);
+        // @formatter:on
+    }
+
+    /**
+     * The destination of a dump stream. All methods are called on the writer thread.
+     */
+    public interface Target {
+        /**
+         * Opens the file or network connection on first use.
+         *
+         * @return {@code null} if the stream is to be discarded
+         */
+        WritableByteChannel openTarget() throws IOException;
+
+        /**
+         * Closes the file or network connection once all bytes of the stream have been written.
+         */
+        void closeTarget() throws IOException;
+
+        /**
+         * Reports a failure to write the stream, after which the rest of the stream is discarded.
+         */
+        void failed(IOException e);
+    }
+
+    private static final class Chunk {
+        final Target stream;
+        /**
+         * The bytes to write or {@code null} to close {@link #stream}.
+         */
+        final byte[] data;
+
+        Chunk(Target stream, byte[] data) {
+            this.stream = stream;
+            this.data = data;
+        }
+    }
+
+    @NativeImageReinitialize private static AsyncIgvDumpWriter instance;
+
+    @NativeImageReinitialize private static ThreadFactory threadFactory;
+
+    /**
+     * Sets the factory creating the thread of the shared writer. Must be called before the first
+     * graph is dumped, later calls have no effect on an already started writer.
+     */
+    public static synchronized void setThreadFactory(ThreadFactory factory) {
+        threadFactory = factory;
+    }
+
+    /**
+     * Gets the writer shared by all dump streams, starting it on first use.
+     */
+    static synchronized AsyncIgvDumpWriter getInstance(OptionValues options) {
+        if (instance == null) {
+            instance = start(Options.PrintGraphAsyncBufferSize.getValue(options), threadFactory);
+        }
+        return instance;
+    }
+
+    /**
+     * Waits at most {@code timeoutMillis} until the shared writer, if it was started, has written
+     * and closed every stream buffered so far.
+     *
+     * @return {@code false} if the timeout elapsed before the shared writer was drained
+     */
+    public static boolean drainShared(long timeoutMillis) throws InterruptedException {
+        AsyncIgvDumpWriter writer;
+        synchronized (AsyncIgvDumpWriter.class) {
+            writer = instance;
+        }
+        return writer == null || writer.drain(timeoutMillis);
+    }
+
+    /**
+     * Creates a writer with a buffer of {@code capacity} bytes and starts its thread.
+     *
+     * @param factory creates the writer thread, or {@code null} for a plain thread
+     */
+    public static AsyncIgvDumpWriter start(long capacity, ThreadFactory factory) {
+        AsyncIgvDumpWriter writer = new AsyncIgvDumpWriter(capacity);
+        Thread thread = factory == null ? new Thread(writer) : factory.newThread(writer);
+        thread.setName("IGV dump writer");
+        thread.setDaemon(true);
+        thread.start();
+        return writer;
+    }
+
+    private final long capacity;
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private long queuedBytes;
+    /**
+     * Set while the writer thread writes a chunk it has already taken out of {@link #chunks}.
+     */
+    private boolean busy;
+
+    private AsyncIgvDumpWriter(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Copies the remaining bytes of {@code src} into the buffer for {@code stream}.
+     *
+     * @return {@code false} if the bytes did not fit and {@code policy} is {@link DropPolicy#Drop}
+     */
+    public boolean write(Target stream, ByteBuffer src, DropPolicy policy) throws IOException {
+        byte[] data = new byte[src.remaining()];
+        src.get(data);
+        lock.lock();
+        try {
+            // a single chunk larger than the buffer is accepted once the buffer is empty
+            while (queuedBytes != 0 && queuedBytes + data.length > capacity) {
+                if (policy == DropPolicy.Drop) {
+                    return false;
+                }
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            queuedBytes += data.length;
+            chunks.addLast(new Chunk(stream, data));
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes {@code stream} after all its buffered bytes have been written. Never blocks.
+     */
+    public void close(Target stream) {
+        lock.lock();
+        try {
+            chunks.addLast(new Chunk(stream, null));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits at most {@code timeoutMillis} until every chunk buffered before this call has been
+     * written.
+     *
+     * @return {@code false} if the timeout elapsed before the writer was drained
+     */
+    public boolean drain(long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (busy || !chunks.isEmpty()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Chunk take() throws InterruptedException {
+        lock.lock();
+        try {
+            busy = false;
+            if (chunks.isEmpty()) {
+                drained.signalAll();
+            }
+            while (chunks.isEmpty()) {
+                notEmpty.await();
+            }
+            Chunk chunk = chunks.removeFirst();
+            if (chunk.data != null) {
+                queuedBytes -= chunk.data.length;
+                notFull.signalAll();
+            }
+            busy = true;
+            return chunk;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Chunk chunk;
+            try {
+                chunk = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (chunk.data == null) {
+                    chunk.stream.closeTarget();
+                } else {
+                    WritableByteChannel channel = chunk.stream.openTarget();
+                    if (channel != null) {
+                        ByteBuffer buffer = ByteBuffer.wrap(chunk.data);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                chunk.stream.failed(e);
+            } catch (Throwable e) {
+                // keep draining so that producers waiting for space are not stuck forever
+                chunk.stream.failed(new IOException(e));
+            }
+        }
+    }
+}
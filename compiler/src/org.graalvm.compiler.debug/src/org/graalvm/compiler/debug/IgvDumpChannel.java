@@ -40,24 +40,59 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
 import java.util.function.Supplier;
 
+import org.graalvm.compiler.debug.AsyncIgvDumpWriter.DropPolicy;
 import org.graalvm.compiler.debug.DebugOptions.PrintGraphTarget;
 import org.graalvm.compiler.options.OptionValues;
 
 import jdk.vm.ci.common.NativeImageReinitialize;
 
-final class IgvDumpChannel implements WritableByteChannel {
+final class IgvDumpChannel implements WritableByteChannel, AsyncIgvDumpWriter.Target {
     private final Supplier<String> pathProvider;
     private final OptionValues options;
     private WritableByteChannel sharedChannel;
     private boolean closed;
 
+    /**
+     * The background writer if {@link AsyncIgvDumpWriter.Options#PrintGraphAsync} is enabled.
+     */
+    private final AsyncIgvDumpWriter asyncWriter;
+    private final DropPolicy dropPolicy;
+    /**
+     * Set once a write was dropped, after which the rest of this stream is discarded.
+     */
+    private boolean truncated;
+    /**
+     * Set by the background writer once writing to the target failed.
+     */
+    private volatile boolean failed;
+
     IgvDumpChannel(Supplier<String> pathProvider, OptionValues options) {
         this.pathProvider = pathProvider;
         this.options = options;
+        if (AsyncIgvDumpWriter.Options.PrintGraphAsync.getValue(options)) {
+            this.asyncWriter = AsyncIgvDumpWriter.getInstance(options);
+            this.dropPolicy = AsyncIgvDumpWriter.Options.PrintGraphAsyncDropPolicy.getValue(options);
+        } else {
+            this.asyncWriter = null;
+            this.dropPolicy = null;
+        }
     }
 
     @Override
     public int write(ByteBuffer src) throws IOException {
+        if (asyncWriter != null) {
+            if (closed) {
+                throw new IOException("already closed");
+            }
+            int length = src.remaining();
+            if (truncated || failed) {
+                src.position(src.limit());
+            } else if (!asyncWriter.write(this, src, dropPolicy)) {
+                truncated = true;
+                TTY.println("WARNING: IGV dump buffer is full, truncating dump stream. Increase %s to avoid this.", AsyncIgvDumpWriter.Options.PrintGraphAsyncBufferSize.getName());
+            }
+            return length;
+        }
         WritableByteChannel channel = channel();
         return channel == null ? 0 : channel.write(src);
     }
@@ -72,16 +107,59 @@ final class IgvDumpChannel implements WritableByteChannel {
     }
 
     void realClose() throws IOException {
+        if (asyncWriter != null) {
+            if (!closed) {
+                closed = true;
+                asyncWriter.close(this);
+            }
+            return;
+        }
         closed = true;
+        closeTarget();
+    }
+
+    WritableByteChannel channel() throws IOException {
+        if (closed) {
+            throw new IOException("already closed");
+        }
+        return openTarget();
+    }
+
+    /**
+     * Closes the file or network connection. Called by the background writer in asynchronous
+     * mode.
+     */
+    @Override
+    public void closeTarget() throws IOException {
         if (sharedChannel != null) {
             sharedChannel.close();
             sharedChannel = null;
         }
     }
 
-    WritableByteChannel channel() throws IOException {
-        if (closed) {
-            throw new IOException("already closed");
+    /**
+     * Reports a failure of the background writer and discards the rest of this stream.
+     */
+    @Override
+    public void failed(IOException e) {
+        if (!failed) {
+            failed = true;
+            TTY.println("WARNING: Failed to write IGV dump: %s", e);
+            try {
+                closeTarget();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Opens the file or network connection on first use. Called by the background writer in
+     * asynchronous mode.
+     */
+    @Override
+    public WritableByteChannel openTarget() throws IOException {
+        if (failed) {
+            return null;
         }
         if (sharedChannel == null) {
             PrintGraphTarget target = DebugOptions.PrintGraph.getValue(options);
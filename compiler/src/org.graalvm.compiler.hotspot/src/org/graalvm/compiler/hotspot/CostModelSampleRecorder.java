@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.debug.TTY;
+import org.graalvm.compiler.nodes.GraphState;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.PhaseSuite;
+import org.graalvm.compiler.phases.common.inlining.policy.InliningCostModel;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+
+/**
+ * Records a training sample for the {@link InliningCostModel} for a single compilation: the node
+ * class histogram of the graph as parsed, before any optimization, together with the size of the
+ * installed code and the compile time. The samples of all compilations are appended to the file
+ * given by {@link Options#InliningCostModelSamplesFile} and can be turned into a model with
+ * {@link InliningCostModel.Trainer#readSamples}.
+ */
+final class CostModelSampleRecorder {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "File to which a training sample for the inlining cost model is appended after every compilation. " +
+                       "A sample consists of the node class histogram of the parsed graph, the installed code size in bytes " +
+                       "and the compile time in microseconds.", type = OptionType.Debug)
+        public static final OptionKey<String> InliningCostModelSamplesFile = new OptionKey<>(null);
+        // @formatter:on
+    }
+
+    private final String file;
+    private EconomicMap<String, Integer> histogram;
+
+    private CostModelSampleRecorder(String file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns a recorder if sampling is enabled in {@code options}, or {@code null}.
+     */
+    static CostModelSampleRecorder create(OptionValues options) {
+        String file = Options.InliningCostModelSamplesFile.getValue(options);
+        return file == null ? null : new CostModelSampleRecorder(file);
+    }
+
+    /**
+     * Returns a graph builder suite that captures the histogram of {@code graph} once it is parsed.
+     * If {@code graph} has already been built, its histogram is captured right away.
+     */
+    PhaseSuite<HighTierContext> instrument(PhaseSuite<HighTierContext> graphBuilderSuite, StructuredGraph graph) {
+        if (graph.start().next() != null) {
+            histogram = InliningCostModel.histogram(graph);
+            return graphBuilderSuite;
+        }
+        PhaseSuite<HighTierContext> suite = graphBuilderSuite.copy();
+        suite.appendPhase(new HistogramPhase());
+        return suite;
+    }
+
+    void record(int codeSize, long compileTimeNanos) {
+        if (histogram == null) {
+            return;
+        }
+        synchronized (CostModelSampleRecorder.class) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                InliningCostModel.writeSample(writer, histogram, codeSize, compileTimeNanos / 1000d);
+            } catch (IOException e) {
+                TTY.println("Failed to record inlining cost model sample in %s: %s", file, e);
+            }
+        }
+    }
+
+    private final class HistogramPhase extends BasePhase<HighTierContext> {
+
+        @Override
+        public Optional<NotApplicable> notApplicableTo(GraphState graphState) {
+            return ALWAYS_APPLICABLE;
+        }
+
+        @Override
+        protected void run(StructuredGraph graph, HighTierContext context) {
+            histogram = InliningCostModel.histogram(graph);
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.graalvm.compiler.java.GraphBuilderPhase;
 import org.graalvm.compiler.java.StableMethodNameFormatter;
 import org.graalvm.compiler.lir.asm.CompilationResultBuilderFactory;
 import org.graalvm.compiler.lir.phases.LIRSuites;
+import org.graalvm.compiler.loop.phases.LoopLaneUnrollPhase;
 import org.graalvm.compiler.nodes.Cancellable;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
@@ -57,6 +58,7 @@ import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.phases.OptimisticOptimizations;
 import org.graalvm.compiler.phases.OptimisticOptimizations.Optimization;
 import org.graalvm.compiler.phases.PhaseSuite;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
 import org.graalvm.compiler.phases.tiers.HighTierContext;
 import org.graalvm.compiler.phases.tiers.Suites;
 import org.graalvm.compiler.printer.GraalDebugHandlersFactory;
@@ -242,7 +244,15 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
         PhaseSuite<HighTierContext> graphBuilderSuite = configGraphBuilderSuite(providers.getSuites().getDefaultGraphBuilderSuite(), shouldDebugNonSafepoints, shouldRetainLocalVariables,
                         eagerResolving, isOSR);
 
+        CostModelSampleRecorder sampleRecorder = CostModelSampleRecorder.create(options);
+        if (sampleRecorder != null) {
+            graphBuilderSuite = sampleRecorder.instrument(graphBuilderSuite, graph);
+        }
+        long start = sampleRecorder == null ? 0 : System.nanoTime();
         GraalCompiler.compileGraph(graph, method, providers, backend, graphBuilderSuite, optimisticOpts, profilingInfo, suites, lirSuites, result, crbf, true);
+        if (sampleRecorder != null) {
+            sampleRecorder.record(result.getTargetCodeSize(), System.nanoTime() - start);
+        }
         graph.getOptimizationLog().emit(new StableMethodNameFormatter(providers, graph.getDebug()));
         if (!isOSR) {
             profilingInfo.setCompilerIRSize(StructuredGraph.class, graph.getNodeCount());
@@ -265,7 +275,12 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
     }
 
     protected Suites getSuites(HotSpotProviders providers, OptionValues options) {
-        return providers.getSuites().getDefaultSuites(options, providers.getLowerer().getTarget().arch);
+        Suites suites = providers.getSuites().getDefaultSuites(options, providers.getLowerer().getTarget().arch);
+        if (LoopLaneUnrollPhase.Options.LoopLaneUnroll.getValue(options)) {
+            suites = suites.copy();
+            LoopLaneUnrollPhase.register(suites, CanonicalizerPhase.create(), options);
+        }
+        return suites;
     }
 
     protected LIRSuites getLIRSuites(HotSpotProviders providers, OptionValues options) {
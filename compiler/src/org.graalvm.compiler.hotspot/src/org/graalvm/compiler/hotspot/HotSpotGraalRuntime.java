@@ -40,6 +40,7 @@ import org.graalvm.collections.Equivalence;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
 import org.graalvm.compiler.api.runtime.GraalRuntime;
 import org.graalvm.compiler.core.CompilationWrapper.ExceptionAction;
+import org.graalvm.compiler.core.GraalServiceThread;
 import org.graalvm.compiler.core.Instrumentation;
 import org.graalvm.compiler.core.common.CompilationIdentifier;
 import org.graalvm.compiler.core.common.CompilationListenerProfiler;
@@ -48,6 +49,7 @@ import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.core.common.spi.ForeignCallsProvider;
 import org.graalvm.compiler.core.target.Backend;
 import org.graalvm.compiler.debug.Assertions;
+import org.graalvm.compiler.debug.AsyncIgvDumpWriter;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.debug.DebugContext.Builder;
 import org.graalvm.compiler.debug.DebugContext.Description;
@@ -142,6 +144,7 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
         garbageCollector = getSelectedGC();
 
         outputDirectory = new DiagnosticsOutputDirectory(options);
+        AsyncIgvDumpWriter.setThreadFactory(r -> new GraalServiceThread(AsyncIgvDumpWriter.class.getSimpleName(), r));
         compilationProblemsPerAction = new EnumMap<>(ExceptionAction.class);
         snippetCounterGroups = GraalOptions.SnippetCounters.getValue(options) ? new ArrayList<>() : null;
         CompilerConfiguration compilerConfiguration = compilerConfigurationFactory.createCompilerConfiguration();
@@ -390,6 +393,11 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
      */
     private volatile boolean shutdown;
 
+    /**
+     * Maximum time {@link #shutdown()} waits for buffered IGV dumps to be written.
+     */
+    private static final long IGV_DUMP_DRAIN_TIMEOUT_MILLIS = 10_000;
+
     /**
      * Shutdown hooks that should be run on the same thread doing the shutdown.
      */
@@ -440,6 +448,14 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider {
         }
         BenchmarkCounters.shutdown(runtime(), options, runtimeStartTime);
 
+        try {
+            // write out buffered graphs before the dump directory is archived
+            if (!AsyncIgvDumpWriter.drainShared(IGV_DUMP_DRAIN_TIMEOUT_MILLIS)) {
+                TTY.println("WARNING: Timed out writing buffered IGV dumps, some dumps may be incomplete.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         outputDirectory.close();
 
         shutdownLibGraal(this);
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.jtt.loop;
+
+import org.graalvm.compiler.jtt.JTTTest;
+import org.graalvm.compiler.loop.phases.LoopLaneUnrollPhase;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Test;
+
+/*
+ * Kernels of each shape unrolled by LoopLaneUnrollPhase, run with odd lengths so that the pre and
+ * post loops are exercised as well.
+ */
+public class LoopLaneUnroll extends JTTTest {
+
+    private static int[] ints(int length) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i * 31 - 7;
+        }
+        return result;
+    }
+
+    public static int[] add(int length) {
+        int[] a = ints(length);
+        int[] b = ints(length);
+        int[] c = new int[length];
+        for (int i = 0; i < length; i++) {
+            c[i] = a[i] + b[i] * 3;
+        }
+        return c;
+    }
+
+    public static double[] scale(int length) {
+        double[] a = new double[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i;
+        }
+        for (int i = 0; i < length; i++) {
+            a[i] = a[i] * 0.5;
+        }
+        return a;
+    }
+
+    public static long sum(int length) {
+        int[] a = ints(length);
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static byte[] fill(int length) {
+        byte[] a = new byte[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = 42;
+        }
+        return a;
+    }
+
+    public static short[] copy(int length) {
+        short[] a = new short[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = (short) i;
+        }
+        short[] b = new short[length];
+        for (int i = 0; i < length; i++) {
+            b[i] = a[i];
+        }
+        return b;
+    }
+
+    public static int overlapping(int length) {
+        int[] a = ints(length + 1);
+        for (int i = 0; i < length; i++) {
+            a[i + 1] = a[i] + 1;
+        }
+        return a[length];
+    }
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts);
+        LoopLaneUnrollPhase.register(suites, createCanonicalizerPhase(), opts);
+        return suites;
+    }
+
+    private void runUnrolled(String name, int length) {
+        runTest(new OptionValues(getInitialOptions(), LoopLaneUnrollPhase.Options.LoopLaneUnroll, true), name, length);
+    }
+
+    @Test
+    public void run0() {
+        runUnrolled("add", 0);
+        runUnrolled("add", 1);
+        runUnrolled("add", 67);
+    }
+
+    @Test
+    public void run1() {
+        runUnrolled("scale", 3);
+        runUnrolled("scale", 131);
+    }
+
+    @Test
+    public void run2() {
+        runUnrolled("sum", 0);
+        runUnrolled("sum", 259);
+    }
+
+    @Test
+    public void run3() {
+        runUnrolled("fill", 1);
+        runUnrolled("fill", 1027);
+    }
+
+    @Test
+    public void run4() {
+        runUnrolled("copy", 5);
+        runUnrolled("copy", 517);
+    }
+
+    @Test
+    public void run5() {
+        runUnrolled("overlapping", 33);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.test;
+
+import static org.graalvm.compiler.lir.alloc.lsra.IntervalArena.END;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.compiler.lir.LIRInstruction.OperandMode;
+import org.graalvm.compiler.lir.alloc.lsra.Interval.RegisterPriority;
+import org.graalvm.compiler.lir.alloc.lsra.IntervalArena;
+import org.junit.Test;
+
+public class IntervalArenaTest {
+
+    private static int ranges(IntervalArena arena, int... fromTo) {
+        int first = END;
+        for (int i = fromTo.length - 2; i >= 0; i -= 2) {
+            first = arena.addRange(first, fromTo[i], fromTo[i + 1]);
+        }
+        return first;
+    }
+
+    @Test
+    public void addRange() {
+        IntervalArena arena = new IntervalArena(1);
+        int first = ranges(arena, 2, 6, 10, 14, 20, 30);
+        assertEquals("[2, 6], [10, 14], [20, 30]", arena.rangesToString(first));
+        assertEquals(30, arena.calcTo(first));
+        assertEquals(3, arena.rangeCount());
+
+        // joining an intersecting range does not allocate
+        first = arena.addRange(first, 0, 4);
+        assertEquals("[0, 6], [10, 14], [20, 30]", arena.rangesToString(first));
+        assertEquals(3, arena.rangeCount());
+    }
+
+    @Test
+    public void covers() {
+        IntervalArena arena = new IntervalArena();
+        int first = ranges(arena, 2, 6, 10, 14);
+        assertFalse(arena.covers(first, 0, OperandMode.USE));
+        assertTrue(arena.covers(first, 2, OperandMode.DEF));
+        assertTrue(arena.covers(first, 6, OperandMode.USE));
+        assertFalse(arena.covers(first, 6, OperandMode.DEF));
+        assertFalse(arena.covers(first, 8, OperandMode.USE));
+        assertTrue(arena.covers(first, 12, OperandMode.USE));
+        assertFalse(arena.covers(first, 16, OperandMode.USE));
+
+        assertTrue(arena.hasHoleBetween(first, 4, 12));
+        assertFalse(arena.hasHoleBetween(first, 10, 14));
+        assertTrue(arena.hasHoleBetween(first, 2, 8));
+    }
+
+    @Test
+    public void intersectsAt() {
+        IntervalArena arena = new IntervalArena();
+        int a = ranges(arena, 2, 6, 10, 14);
+        int b = ranges(arena, 6, 10, 16, 20);
+        int c = ranges(arena, 8, 12);
+        assertEquals(-1, arena.intersectsAt(a, b));
+        assertEquals(10, arena.intersectsAt(a, c));
+        assertEquals(8, arena.intersectsAt(b, c));
+    }
+
+    @Test
+    public void splitRanges() {
+        IntervalArena arena = new IntervalArena();
+        int first = ranges(arena, 2, 6, 10, 14, 20, 30);
+
+        // split inside a range
+        int child = arena.splitRanges(first, 12);
+        assertEquals("[2, 6], [10, 12]", arena.rangesToString(first));
+        assertEquals("[12, 14], [20, 30]", arena.rangesToString(child));
+
+        // split in a hole
+        int grandChild = arena.splitRanges(child, 16);
+        assertEquals("[12, 14]", arena.rangesToString(child));
+        assertEquals("[20, 30]", arena.rangesToString(grandChild));
+    }
+
+    @Test
+    public void usePositions() {
+        IntervalArena arena = new IntervalArena(1);
+        int firstUse = END;
+        firstUse = arena.addUsePos(firstUse, 20, RegisterPriority.MustHaveRegister);
+        firstUse = arena.addUsePos(firstUse, 12, RegisterPriority.None);
+        firstUse = arena.addUsePos(firstUse, 12, RegisterPriority.ShouldHaveRegister);
+        firstUse = arena.addUsePos(firstUse, 4, RegisterPriority.LiveAtLoopEnd);
+        assertEquals(3, arena.usePosCount());
+
+        assertEquals(4, arena.usePos(firstUse));
+        assertEquals(RegisterPriority.ShouldHaveRegister, arena.registerPriority(arena.nextUse(firstUse)));
+        assertEquals(12, arena.nextUsage(firstUse, RegisterPriority.ShouldHaveRegister, 0));
+        assertEquals(20, arena.nextUsage(firstUse, RegisterPriority.MustHaveRegister, 0));
+        assertEquals(Integer.MAX_VALUE, arena.nextUsage(firstUse, RegisterPriority.None, 21));
+
+        int childUse = arena.splitUsePositions(firstUse, 12);
+        assertEquals(12, arena.usePos(childUse));
+        assertEquals(20, arena.usePos(arena.nextUse(childUse)));
+        assertEquals(END, arena.nextUse(firstUse));
+
+        // splitting before the first position moves the whole list to new entries
+        int grandChildUse = arena.splitUsePositions(childUse, 8);
+        assertNotEquals(childUse, grandChildUse);
+        assertNotEquals(arena.nextUse(childUse), arena.nextUse(grandChildUse));
+        assertEquals(12, arena.usePos(grandChildUse));
+        assertEquals(20, arena.usePos(arena.nextUse(grandChildUse)));
+
+        // splitting after the last position leaves an empty remainder
+        assertEquals(END, arena.splitUsePositions(grandChildUse, 21));
+    }
+
+    @Test
+    public void splitUsePositionsDoesNotShareEntries() {
+        IntervalArena arena = new IntervalArena();
+        int parentUse = END;
+        parentUse = arena.addUsePos(parentUse, 20, RegisterPriority.None);
+        parentUse = arena.addUsePos(parentUse, 10, RegisterPriority.None);
+
+        int childUse = arena.splitUsePositions(parentUse, 10);
+        // the parent's list is empty now, raising a priority in the child must not show through it
+        childUse = arena.addUsePos(childUse, 10, RegisterPriority.MustHaveRegister);
+        assertEquals(RegisterPriority.MustHaveRegister, arena.registerPriority(childUse));
+        assertEquals(RegisterPriority.None, arena.registerPriority(parentUse));
+        // both entries were copied
+        assertEquals(4, arena.usePosCount());
+    }
+
+    @Test
+    public void reset() {
+        IntervalArena arena = new IntervalArena(1);
+        ranges(arena, 0, 1, 2, 3, 4, 5, 6, 7);
+        long capacity = arena.capacityInBytes();
+        arena.reset();
+        assertEquals(0, arena.rangeCount());
+        ranges(arena, 0, 1, 2, 3, 4, 5, 6, 7);
+        assertEquals(capacity, arena.capacityInBytes());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.graalvm.compiler.lir.util.DenseIndexSet;
+import org.graalvm.compiler.lir.util.IndexSet;
+import org.graalvm.compiler.lir.util.SparseBitSet;
+import org.junit.Test;
+
+public class SparseBitSetTest {
+
+    private static void assertSameElements(BitSet expected, IndexSet actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        int e = expected.nextSetBit(0);
+        int a = actual.nextSetBit(0);
+        while (e >= 0) {
+            assertEquals(e, a);
+            assertTrue(actual.get(e));
+            e = expected.nextSetBit(e + 1);
+            a = actual.nextSetBit(a + 1);
+        }
+        assertEquals(-1, a);
+    }
+
+    /**
+     * Returns a random index, clustered so that both sparse and dense chunks are exercised.
+     */
+    private static int randomIndex(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return random.nextInt(1 << 22);
+            case 1:
+                return 3 * (1 << 16) + random.nextInt(8000);
+            default:
+                return random.nextInt(200);
+        }
+    }
+
+    @Test
+    public void setClearAndQuery() {
+        Random random = new Random(42);
+        BitSet expected = new BitSet();
+        SparseBitSet actual = new SparseBitSet();
+        for (int i = 0; i < 50000; i++) {
+            int index = randomIndex(random);
+            if (random.nextInt(3) == 0) {
+                expected.clear(index);
+                actual.clear(index);
+            } else {
+                expected.set(index);
+                actual.set(index);
+            }
+            assertEquals(expected.get(index), actual.get(index));
+        }
+        assertSameElements(expected, actual);
+        for (int i = 0; i < 1000; i++) {
+            int from = randomIndex(random);
+            assertEquals(expected.nextSetBit(from), actual.nextSetBit(from));
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void orAndNot() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            BitSet expected = new BitSet();
+            SparseBitSet actual = new SparseBitSet();
+            BitSet expectedOther = new BitSet();
+            SparseBitSet other = new SparseBitSet();
+            DenseIndexSet denseOther = new DenseIndexSet();
+            for (int i = 0; i < 6000; i++) {
+                int index = randomIndex(random);
+                expected.set(index);
+                actual.set(index);
+                index = randomIndex(random);
+                expectedOther.set(index);
+                other.set(index);
+                denseOther.set(index);
+            }
+            SparseBitSet copy = actual.copy();
+            assertEquals(copy, actual);
+
+            expected.or(expectedOther);
+            actual.or(other);
+            assertSameElements(expected, actual);
+            copy.or(denseOther);
+            assertEquals(actual, copy);
+
+            expected.andNot(expectedOther);
+            actual.andNot(other);
+            assertSameElements(expected, actual);
+            copy.andNot(denseOther);
+            assertEquals(actual, copy);
+            assertEquals(actual.hashCode(), copy.hashCode());
+        }
+    }
+
+    @Test
+    public void clearAll() {
+        SparseBitSet set = new SparseBitSet();
+        for (int i = 0; i < 10000; i++) {
+            set.set(i * 3);
+        }
+        assertFalse(set.isEmpty());
+        for (int i = 0; i < 10000; i++) {
+            set.clear(i * 3);
+        }
+        assertTrue(set.isEmpty());
+        assertEquals(-1, set.nextSetBit(0));
+        assertEquals(new SparseBitSet(), set);
+    }
+
+    @Test
+    public void sparseSetsAreSmall() {
+        SparseBitSet set = new SparseBitSet();
+        for (int i = 0; i < 100; i++) {
+            set.set(i * 100000);
+        }
+        BitSet dense = new BitSet();
+        dense.set(99 * 100000);
+        assertTrue(set.estimatedMemory() < dense.size() / 8 / 10);
+    }
+}
@@ -44,6 +44,7 @@ import org.graalvm.compiler.lir.LIRInstruction.OperandFlag;
 import org.graalvm.compiler.lir.LIRInstruction.OperandMode;
 import org.graalvm.compiler.lir.framemap.FrameMap;
 import org.graalvm.compiler.lir.ssa.SSAUtil;
+import org.graalvm.compiler.lir.util.IndexSet;
 
 import jdk.vm.ci.code.Register;
 import jdk.vm.ci.meta.Value;
@@ -55,14 +56,14 @@ public final class LIRVerifier {
 
     private final boolean beforeRegisterAllocation;
 
-    private final BitSet[] blockLiveOut;
+    private final IndexSet[] blockLiveOut;
     private final Object[] variableDefinitions;
 
-    private BitSet liveOutFor(BasicBlock<?> block) {
+    private IndexSet liveOutFor(BasicBlock<?> block) {
         return blockLiveOut[block.getId()];
     }
 
-    private void setLiveOutFor(BasicBlock<?> block, BitSet liveOut) {
+    private void setLiveOutFor(BasicBlock<?> block, IndexSet liveOut) {
         blockLiveOut[block.getId()] = liveOut;
     }
 
@@ -96,11 +97,11 @@ public final class LIRVerifier {
         this.beforeRegisterAllocation = beforeRegisterAllocation;
         this.lir = lir;
         this.frameMap = frameMap;
-        this.blockLiveOut = new BitSet[lir.linearScanOrder().length];
+        this.blockLiveOut = new IndexSet[lir.linearScanOrder().length];
         this.variableDefinitions = new Object[lir.numVariables()];
     }
 
-    private BitSet curVariablesLive;
+    private IndexSet curVariablesLive;
     private Value[] curRegistersLive;
 
     private BasicBlock<?> curBlock;
@@ -129,7 +130,7 @@ public final class LIRVerifier {
             BasicBlock<?> block = lir.getBlockById(blockId);
 
             curBlock = block;
-            curVariablesLive = new BitSet();
+            curVariablesLive = IndexSet.create(lir.getOptions());
             curRegistersLive = new Value[maxRegisterNum];
 
             if (block.getDominator() != null) {
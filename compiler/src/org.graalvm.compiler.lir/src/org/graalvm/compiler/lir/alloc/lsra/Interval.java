@@ -830,6 +830,18 @@ public final class Interval {
     }
 
     Interval getSplitChildAtOpId(int opId, LIRInstruction.OperandMode mode, LinearScan allocator) {
+        return getSplitChildAtOpId(opId, mode, allocator, true);
+    }
+
+    /**
+     * Gets the split child covering {@code opId}.
+     *
+     * @param reorder if {@code true}, the found child is moved to the start of the split children
+     *            list to speed up subsequent lookups. Must be {@code false} if the lookup may run
+     *            concurrently with other lookups on the same interval. The found child is unique,
+     *            so this does not influence the result.
+     */
+    Interval getSplitChildAtOpId(int opId, LIRInstruction.OperandMode mode, LinearScan allocator, boolean reorder) {
         assert isSplitParent() : "can only be called for split parents";
         assert opId >= 0 : "invalid opId (method cannot be called for spill moves)";
 
@@ -847,7 +859,7 @@ public final class Interval {
             for (i = 0; i < len; i++) {
                 Interval cur = splitChildren.get(i);
                 if (cur.from() <= opId && opId < cur.to() + toOffset) {
-                    if (i > 0) {
+                    if (i > 0 && reorder) {
                         // exchange current split child to start of list (faster access for next
                         // call)
                         Util.atPutGrow(splitChildren, i, splitChildren.get(0), null);
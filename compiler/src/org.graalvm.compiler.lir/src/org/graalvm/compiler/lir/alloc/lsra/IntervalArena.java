@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.alloc.lsra;
+
+import java.util.Arrays;
+
+import org.graalvm.compiler.lir.LIRInstruction;
+import org.graalvm.compiler.lir.alloc.lsra.Interval.RegisterPriority;
+
+/**
+ * A compact store for the live ranges and use positions of all intervals of one register
+ * allocation. Instead of allocating a {@link Range} object per range and an
+ * {@link Interval.UsePosList} per interval, entries are packed into two growable {@code int[]}
+ * arrays owned by the arena and are addressed by {@code int} handles. An interval is represented
+ * by the handle of its first range and the handle of its first use position; {@link #END}
+ * terminates both lists.
+ * <p>
+ * The range operations mirror those of {@link Interval} and {@link Range}. Use positions are kept
+ * in ascending order, which is the natural result of adding them in the descending order produced
+ * by lifetime analysis. An arena can be {@linkplain #reset() reset} and reused for the next
+ * allocation, so that steady-state compilations do not allocate interval storage at all.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class IntervalArena {
+
+    /**
+     * Handle terminating range and use position lists.
+     */
+    public static final int END = -1;
+
+    private static final int RANGE_FROM = 0;
+    private static final int RANGE_TO = 1;
+    private static final int RANGE_NEXT = 2;
+    private static final int RANGE_SIZE = 3;
+
+    private static final int USE_POS = 0;
+    private static final int USE_PRIORITY = 1;
+    private static final int USE_NEXT = 2;
+    private static final int USE_SIZE = 3;
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] ranges;
+    private int rangesTop;
+
+    private int[] uses;
+    private int usesTop;
+
+    public IntervalArena() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an arena with room for {@code initialCapacity} ranges and use positions before it
+     * needs to grow.
+     */
+    public IntervalArena(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.ranges = new int[capacity * RANGE_SIZE];
+        this.uses = new int[capacity * USE_SIZE];
+    }
+
+    /**
+     * Discards all ranges and use positions while keeping the backing arrays for reuse.
+     */
+    public void reset() {
+        rangesTop = 0;
+        usesTop = 0;
+    }
+
+    /**
+     * Gets the number of ranges allocated since the last {@linkplain #reset() reset}.
+     */
+    public int rangeCount() {
+        return rangesTop / RANGE_SIZE;
+    }
+
+    /**
+     * Gets the number of use positions allocated since the last {@linkplain #reset() reset}.
+     */
+    public int usePosCount() {
+        return usesTop / USE_SIZE;
+    }
+
+    /**
+     * Gets the number of bytes held by the backing arrays, excluding array headers.
+     */
+    public long capacityInBytes() {
+        return ((long) ranges.length + uses.length) * Integer.BYTES;
+    }
+
+    // ranges
+
+    private int newRange(int from, int to, int next) {
+        if (rangesTop + RANGE_SIZE > ranges.length) {
+            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+        }
+        int r = rangesTop;
+        ranges[r + RANGE_FROM] = from;
+        ranges[r + RANGE_TO] = to;
+        ranges[r + RANGE_NEXT] = next;
+        rangesTop += RANGE_SIZE;
+        return r;
+    }
+
+    /**
+     * The start of range {@code r}, inclusive.
+     */
+    public int from(int r) {
+        return ranges[r + RANGE_FROM];
+    }
+
+    /**
+     * The end of range {@code r}, exclusive.
+     */
+    public int to(int r) {
+        return ranges[r + RANGE_TO];
+    }
+
+    /**
+     * The range following {@code r}, or {@link #END}.
+     */
+    public int next(int r) {
+        return ranges[r + RANGE_NEXT];
+    }
+
+    /**
+     * Adds the range {@code [from, to)} in front of the range list starting at {@code first},
+     * joining it with the first range if they intersect. Like {@link Interval#addRange}, ranges
+     * must be added in descending order.
+     *
+     * @return the new first range of the list
+     */
+    public int addRange(int first, int from, int to) {
+        assert from < to : "invalid range";
+        assert first == END || next(first) == END || to < from(next(first)) : "not inserting at begin of interval";
+        assert first == END || from <= to(first) : "not inserting at begin of interval";
+
+        if (first != END && from(first) <= to) {
+            // join intersecting ranges
+            ranges[first + RANGE_FROM] = Math.min(from, from(first));
+            ranges[first + RANGE_TO] = Math.max(to, to(first));
+            return first;
+        }
+        // insert new range
+        return newRange(from, to, first);
+    }
+
+    /**
+     * Splits the range list starting at {@code first} at {@code splitPos}. The ranges before
+     * {@code splitPos} stay in the original list, which must not become empty.
+     *
+     * @return the first range of the split off remainder
+     * @see Interval#split
+     */
+    public int splitRanges(int first, int splitPos) {
+        int prev = END;
+        int cur = first;
+        while (cur != END && to(cur) <= splitPos) {
+            prev = cur;
+            cur = next(cur);
+        }
+        assert cur != END : "split interval after end of last range";
+
+        if (from(cur) < splitPos) {
+            int result = newRange(splitPos, to(cur), next(cur));
+            ranges[cur + RANGE_TO] = splitPos;
+            ranges[cur + RANGE_NEXT] = END;
+            return result;
+        }
+        assert prev != END : "split before start of first range";
+        ranges[prev + RANGE_NEXT] = END;
+        return cur;
+    }
+
+    /**
+     * Gets the end of the last range in the list starting at {@code first}.
+     */
+    public int calcTo(int first) {
+        assert first != END : "interval has no range";
+        int r = first;
+        while (next(r) != END) {
+            r = next(r);
+        }
+        return to(r);
+    }
+
+    /**
+     * Determines if {@code opId} is inside the range list starting at {@code first}.
+     *
+     * @see Interval#covers
+     */
+    public boolean covers(int first, int opId, LIRInstruction.OperandMode mode) {
+        int cur = first;
+        while (cur != END && to(cur) < opId) {
+            cur = next(cur);
+        }
+        if (cur != END) {
+            assert next(cur) == END || to(cur) != from(next(cur)) : "ranges not separated";
+            if (mode == LIRInstruction.OperandMode.DEF) {
+                return from(cur) <= opId && opId < to(cur);
+            } else {
+                return from(cur) <= opId && opId <= to(cur);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the range list starting at {@code first} has any hole between
+     * {@code holeFrom} and {@code holeTo}, even if the hole has only the length 1.
+     *
+     * @see Interval#hasHoleBetween
+     */
+    public boolean hasHoleBetween(int first, int holeFrom, int holeTo) {
+        assert holeFrom < holeTo : "check";
+        int cur = first;
+        while (cur != END) {
+            if (holeFrom < from(cur)) {
+                // hole-range starts before this range
+                return true;
+            } else if (holeTo <= to(cur)) {
+                // hole-range completely inside this range
+                return false;
+            } else if (holeFrom <= to(cur)) {
+                // overlapping of hole-range with this range
+                return true;
+            }
+            cur = next(cur);
+        }
+        return false;
+    }
+
+    /**
+     * Gets the first position at which the range lists starting at {@code first1} and
+     * {@code first2} intersect, or -1 if they do not intersect.
+     *
+     * @see Range#intersectsAt
+     */
+    public int intersectsAt(int first1, int first2) {
+        assert first1 != END && first2 != END : "empty ranges not allowed";
+        int r1 = first1;
+        int r2 = first2;
+        do {
+            if (from(r1) < from(r2)) {
+                if (to(r1) <= from(r2)) {
+                    r1 = next(r1);
+                    if (r1 == END) {
+                        return -1;
+                    }
+                } else {
+                    return from(r2);
+                }
+            } else if (from(r2) < from(r1)) {
+                if (to(r2) <= from(r1)) {
+                    r2 = next(r2);
+                    if (r2 == END) {
+                        return -1;
+                    }
+                } else {
+                    return from(r1);
+                }
+            } else if (from(r1) == to(r1)) {
+                r1 = next(r1);
+                if (r1 == END) {
+                    return -1;
+                }
+            } else if (from(r2) == to(r2)) {
+                r2 = next(r2);
+                if (r2 == END) {
+                    return -1;
+                }
+            } else {
+                return from(r1);
+            }
+        } while (true);
+    }
+
+    // use positions
+
+    /**
+     * Gets the position of use entry {@code u}.
+     */
+    public int usePos(int u) {
+        return uses[u + USE_POS];
+    }
+
+    /**
+     * Gets the register priority of use entry {@code u}.
+     */
+    public RegisterPriority registerPriority(int u) {
+        return RegisterPriority.VALUES[uses[u + USE_PRIORITY]];
+    }
+
+    /**
+     * The use entry following {@code u}, or {@link #END}.
+     */
+    public int nextUse(int u) {
+        return uses[u + USE_NEXT];
+    }
+
+    private int newUse(int pos, int priority, int next) {
+        if (usesTop + USE_SIZE > uses.length) {
+            uses = Arrays.copyOf(uses, uses.length * 2);
+        }
+        int u = usesTop;
+        uses[u + USE_POS] = pos;
+        uses[u + USE_PRIORITY] = priority;
+        uses[u + USE_NEXT] = next;
+        usesTop += USE_SIZE;
+        return u;
+    }
+
+    /**
+     * Adds a use position in front of the ascending use list starting at {@code firstUse}. Like
+     * {@link Interval#addUsePos}, positions must be added in descending order; adding the lowest
+     * position again only raises its register priority.
+     *
+     * @return the new first entry of the use list
+     */
+    public int addUsePos(int firstUse, int pos, RegisterPriority registerPriority) {
+        if (firstUse == END || usePos(firstUse) > pos) {
+            return newUse(pos, registerPriority.ordinal(), firstUse);
+        }
+        assert usePos(firstUse) == pos : "list not sorted correctly";
+        if (registerPriority(firstUse).lessThan(registerPriority)) {
+            uses[firstUse + USE_PRIORITY] = registerPriority.ordinal();
+        }
+        return firstUse;
+    }
+
+    /**
+     * Splits the use list starting at {@code firstUse} like {@link Interval.UsePosList#splitAt}.
+     * The positions below {@code splitPos} stay in the original list, all other positions are
+     * moved to a new list made of new entries, so that the two lists never share an entry. If no
+     * position is below {@code splitPos}, the original list becomes empty and its owner must
+     * replace {@code firstUse} with {@link #END}.
+     *
+     * @return the first entry of the split off remainder, or {@link #END} if no position is at or
+     *         after {@code splitPos}
+     */
+    public int splitUsePositions(int firstUse, int splitPos) {
+        int prev = END;
+        int cur = firstUse;
+        while (cur != END && usePos(cur) < splitPos) {
+            prev = cur;
+            cur = nextUse(cur);
+        }
+        if (prev != END) {
+            uses[prev + USE_NEXT] = END;
+        }
+        int result = END;
+        int last = END;
+        for (int u = cur; u != END; u = nextUse(u)) {
+            int copy = newUse(usePos(u), uses[u + USE_PRIORITY], END);
+            if (last == END) {
+                result = copy;
+            } else {
+                uses[last + USE_NEXT] = copy;
+            }
+            last = copy;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the first use position at or after {@code from} in the use list starting at
+     * {@code firstUse} with a register priority of at least {@code minRegisterPriority}, or
+     * {@link Integer#MAX_VALUE} if there is none.
+     */
+    public int nextUsage(int firstUse, RegisterPriority minRegisterPriority, int from) {
+        for (int u = firstUse; u != END; u = nextUse(u)) {
+            int pos = usePos(u);
+            if (pos >= from && registerPriority(u).greaterEqual(minRegisterPriority)) {
+                return pos;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Formats the range list starting at {@code first} like {@link Interval#logString}.
+     */
+    public String rangesToString(int first) {
+        StringBuilder buf = new StringBuilder();
+        for (int r = first; r != END; r = next(r)) {
+            if (r != first) {
+                buf.append(", ");
+            }
+            buf.append('[').append(from(r)).append(", ").append(to(r)).append(']');
+        }
+        return buf.toString();
+    }
+}
@@ -72,6 +72,11 @@ public class LinearScanAssignLocationsPhase extends LinearScanAllocationPhase {
 
     protected final LinearScan allocator;
 
+    /**
+     * Determines if blocks are currently processed in parallel, see {@link LinearScanParallelism}.
+     */
+    private boolean parallel;
+
     public LinearScanAssignLocationsPhase(LinearScan allocator) {
         this.allocator = allocator;
     }
@@ -118,7 +123,7 @@ public class LinearScanAssignLocationsPhase extends LinearScanAllocationPhase {
              * Operands are not changed when an interval is split during allocation, so search the
              * right interval here.
              */
-            interval = allocator.splitChildAtOpId(interval, opId, mode);
+            interval = splitChildAtOpId(interval, opId, mode);
         }
 
         if (isIllegal(interval.location()) && interval.canMaterialize()) {
@@ -128,6 +133,25 @@ public class LinearScanAssignLocationsPhase extends LinearScanAllocationPhase {
         return interval.location();
     }
 
+    private Interval splitChildAtOpId(Interval interval, int opId, OperandMode mode) {
+        if (parallel) {
+            return LinearScanParallelism.splitChildAtOpId(interval, opId, mode, allocator);
+        }
+        return allocator.splitChildAtOpId(interval, opId, mode);
+    }
+
+    private boolean isMaterialized(AllocatableValue operand, int opId, OperandMode mode) {
+        if (!parallel) {
+            return allocator.isMaterialized(operand, opId, mode);
+        }
+        Interval interval = allocator.intervalFor(operand);
+        assert interval != null : "interval must exist";
+        if (opId != -1) {
+            interval = splitChildAtOpId(interval, opId, mode);
+        }
+        return isIllegal(interval.location()) && interval.canMaterialize();
+    }
+
     private Value debugInfoProcedure(LIRInstruction op, Value operand) {
         if (isVirtualStackSlot(operand) || ValueUtil.isRegister(operand)) {
             return operand;
@@ -254,7 +278,7 @@ public class LinearScanAssignLocationsPhase extends LinearScanAllocationPhase {
         // remove useless moves
         if (MoveOp.isMoveOp(op)) {
             AllocatableValue result = MoveOp.asMoveOp(op).getResult();
-            if (isVariable(result) && allocator.isMaterialized(result, op.id(), OperandMode.DEF)) {
+            if (isVariable(result) && isMaterialized(result, op.id(), OperandMode.DEF)) {
                 /*
                  * This happens if a materializable interval is originally not spilled but then
                  * kicked out in LinearScanWalker.splitForSpilling(). When kicking out such an
@@ -298,6 +322,20 @@ public class LinearScanAssignLocationsPhase extends LinearScanAllocationPhase {
     private void assignLocations() {
         DebugContext debug = allocator.getDebug();
         try (Indent indent = debug.logAndIndent("assign locations")) {
+            if (LinearScanParallelism.isEnabled(allocator)) {
+                /*
+                 * Each block only rewrites its own instructions, and the lookups done for the
+                 * operands do not modify the intervals.
+                 */
+                int[] blockIds = allocator.sortedBlocks();
+                parallel = true;
+                try {
+                    LinearScanParallelism.forEachIndex(blockIds.length, i -> assignLocations(allocator.getLIR().getLIRforBlock(allocator.getLIR().getBlockById(blockIds[i]))));
+                } finally {
+                    parallel = false;
+                }
+                return;
+            }
             for (int blockId : allocator.sortedBlocks()) {
                 BasicBlock<?> block = allocator.getLIR().getBlockById(blockId);
                 try (Indent indent2 = debug.logAndIndent("assign locations in block B%d", block.getId())) {
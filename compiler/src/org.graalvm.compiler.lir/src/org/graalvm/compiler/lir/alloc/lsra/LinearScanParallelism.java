@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.alloc.lsra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstruction;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+import jdk.vm.ci.services.Services;
+
+/**
+ * Support for running the per-block parts of linear scan phases on a fork-join pool owned by the
+ * compiler. The {@linkplain ForkJoinPool#commonPool() common pool} is not used because it belongs
+ * to the application, whose tasks would then compete with and delay compilations and vice versa.
+ * The pool is only created on first use, and its idle workers terminate on their own.
+ *
+ * Work done in parallel must only read the allocator state and must only modify LIR instructions
+ * of the block it processes. In particular, it must look up split children with
+ * {@link #splitChildAtOpId} instead of {@link LinearScan#splitChildAtOpId}, which reorders the
+ * split children list and logs to the debug context. Parallel execution is disabled whenever debug
+ * logging is enabled, because the {@link org.graalvm.compiler.debug.DebugContext} is bound to the
+ * compiler thread. It is also disabled in libgraal, where compilations must not start threads of
+ * their own, and on machines where the pool would have a single worker.
+ */
+public final class LinearScanParallelism {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Process independent blocks in parallel in the linear scan location assignment and data flow resolution phases.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> LSRAParallel = new OptionKey<>(false);
+        @Option(help = "Minimum number of blocks for which linear scan phases are run in parallel.", type = OptionType.Expert)
+        public static final OptionKey<Integer> LSRAParallelMinBlocks = new OptionKey<>(512);
+        // @formatter:on
+    }
+
+    /**
+     * Number of consecutive blocks processed by one fork-join task.
+     */
+    private static final int BLOCKS_PER_TASK = 32;
+
+    /**
+     * Maximum number of workers. The pool is shared by all compiler threads, and only the largest
+     * methods use it, so a few workers are enough.
+     */
+    private static final int MAX_PARALLELISM = 4;
+
+    private static final int PARALLELISM = Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static volatile ForkJoinPool pool;
+
+    private LinearScanParallelism() {
+    }
+
+    /**
+     * Determines if parallel execution is possible at all in this process, i.e., if
+     * {@link Options#LSRAParallel} can have an effect.
+     */
+    public static boolean isAvailable() {
+        return !Services.IS_IN_NATIVE_IMAGE && PARALLELISM > 1;
+    }
+
+    static boolean isEnabled(LinearScan allocator) {
+        OptionValues options = allocator.getOptions();
+        return Options.LSRAParallel.getValue(options) && allocator.sortedBlocks().length >= Options.LSRAParallelMinBlocks.getValue(options) && !allocator.getDebug().isLogEnabled() &&
+                        isAvailable();
+    }
+
+    private static ForkJoinPool getPool() {
+        ForkJoinPool result = pool;
+        if (result == null) {
+            synchronized (LinearScanParallelism.class) {
+                result = pool;
+                if (result == null) {
+                    result = new ForkJoinPool(PARALLELISM, p -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                        thread.setName("LinearScan-worker-" + thread.getPoolIndex());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, null, false);
+                    pool = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls {@code action} for every index in {@code [0, count)} on the compiler's fork-join pool
+     * and waits for all calls to complete. Exceptions thrown by {@code action} are propagated.
+     */
+    public static void forEachIndex(int count, IntConsumer action) {
+        getPool().invoke(new IndexRangeAction(0, count, action));
+    }
+
+    /**
+     * Same as {@link LinearScan#splitChildAtOpId} but safe for concurrent use.
+     */
+    static Interval splitChildAtOpId(Interval interval, int opId, LIRInstruction.OperandMode mode, LinearScan allocator) {
+        Interval result = interval.getSplitChildAtOpId(opId, mode, allocator, false);
+        if (result == null) {
+            throw new GraalError("LinearScan: interval is null");
+        }
+        return result;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class IndexRangeAction extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        IndexRangeAction(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BLOCKS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new IndexRangeAction(from, mid, action), new IndexRangeAction(mid, to, action));
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.BitSet;
 
 import org.graalvm.compiler.core.common.cfg.BasicBlock;
 import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.GraalError;
 import org.graalvm.compiler.debug.Indent;
 import org.graalvm.compiler.lir.LIRInstruction;
 import org.graalvm.compiler.lir.StandardOp;
@@ -47,6 +48,15 @@ public class LinearScanResolveDataFlowPhase extends LinearScanAllocationPhase {
 
     protected final LinearScan allocator;
 
+    /**
+     * Split children pairs of the variables live at the edges processed by
+     * {@link #resolveDataFlow0}, computed in parallel if {@link LinearScanParallelism} is enabled.
+     * Indexed by the linear scan number of the source block and the successor index, each entry
+     * holds the {@code from} and {@code to} intervals of all mappings in an alternating sequence.
+     * Otherwise {@code null}.
+     */
+    private Interval[][][] edgeMappings;
+
     protected LinearScanResolveDataFlowPhase(LinearScan allocator) {
         this.allocator = allocator;
     }
@@ -62,6 +72,14 @@ public class LinearScanResolveDataFlowPhase extends LinearScanAllocationPhase {
         assert midBlock == null ||
                         (midBlock.getPredecessorCount() == 1 && midBlock.getSuccessorCount() == 1 && midBlock.getPredecessorAt(0).equals(fromBlock) && midBlock.getSuccessorAt(0).equals(toBlock));
 
+        if (midBlock == null && edgeMappings != null) {
+            Interval[] mappings = precomputedMappings(fromBlock, toBlock);
+            for (int i = 0; i < mappings.length; i += 2) {
+                moveResolver.addMapping(mappings[i], mappings[i + 1]);
+            }
+            return;
+        }
+
         int toBlockFirstInstructionId = allocator.getFirstLirInstructionId(toBlock);
         int fromBlockLastInstructionId = allocator.getLastLirInstructionId(fromBlock) + 1;
         int numOperands = allocator.operandSize();
@@ -82,6 +100,56 @@ public class LinearScanResolveDataFlowPhase extends LinearScanAllocationPhase {
         }
     }
 
+    private Interval[] precomputedMappings(BasicBlock<?> fromBlock, BasicBlock<?> toBlock) {
+        Interval[][] successorMappings = edgeMappings[fromBlock.getLinearScanNumber()];
+        for (int i = 0; i < fromBlock.getSuccessorCount(); i++) {
+            if (fromBlock.getSuccessorAt(i) == toBlock) {
+                return successorMappings[i];
+            }
+        }
+        throw GraalError.shouldNotReachHere("no edge from B" + fromBlock.getId() + " to B" + toBlock.getId()); // ExcludeFromJacocoGeneratedReport
+    }
+
+    /**
+     * Computes the same mappings as {@link #resolveCollectMappings} for all edges leaving blocks
+     * that are not in {@code blockCompleted}, in parallel. This only reads the intervals, so the
+     * mappings are the same as when they are collected while moves are inserted.
+     */
+    private void computeEdgeMappings(BitSet blockCompleted) {
+        int[] blockIds = allocator.sortedBlocks();
+        Interval[][][] result = new Interval[allocator.blockCount()][][];
+        LinearScanParallelism.forEachIndex(blockIds.length, index -> {
+            BasicBlock<?> fromBlock = allocator.getLIR().getBlockById(blockIds[index]);
+            if (!blockCompleted.get(fromBlock.getLinearScanNumber())) {
+                Interval[][] successorMappings = new Interval[fromBlock.getSuccessorCount()][];
+                for (int i = 0; i < successorMappings.length; i++) {
+                    successorMappings[i] = collectMappings(fromBlock, fromBlock.getSuccessorAt(i));
+                }
+                result[fromBlock.getLinearScanNumber()] = successorMappings;
+            }
+        });
+        edgeMappings = result;
+    }
+
+    private Interval[] collectMappings(BasicBlock<?> fromBlock, BasicBlock<?> toBlock) {
+        int toBlockFirstInstructionId = allocator.getFirstLirInstructionId(toBlock);
+        int fromBlockLastInstructionId = allocator.getLastLirInstructionId(fromBlock) + 1;
+        BitSet liveAtEdge = allocator.getBlockData(toBlock).liveIn;
+
+        ArrayList<Interval> mappings = new ArrayList<>();
+        for (int operandNum = liveAtEdge.nextSetBit(0); operandNum >= 0; operandNum = liveAtEdge.nextSetBit(operandNum + 1)) {
+            assert allocator.getBlockData(fromBlock).liveOut.get(operandNum) : "interval not live at this edge";
+            Interval interval = allocator.intervalFor(operandNum);
+            Interval fromInterval = LinearScanParallelism.splitChildAtOpId(interval, fromBlockLastInstructionId, LIRInstruction.OperandMode.DEF, allocator);
+            Interval toInterval = LinearScanParallelism.splitChildAtOpId(interval, toBlockFirstInstructionId, LIRInstruction.OperandMode.DEF, allocator);
+            if (fromInterval != toInterval && !fromInterval.location().equals(toInterval.location())) {
+                mappings.add(fromInterval);
+                mappings.add(toInterval);
+            }
+        }
+        return mappings.toArray(new Interval[mappings.size()]);
+    }
+
     void resolveFindInsertPos(BasicBlock<?> fromBlock, BasicBlock<?> toBlock, MoveResolver moveResolver) {
         DebugContext debug = allocator.getDebug();
         if (fromBlock.getSuccessorCount() <= 1) {
@@ -134,7 +202,14 @@ public class LinearScanResolveDataFlowPhase extends LinearScanAllocationPhase {
 
             optimizeEmptyBlocks(moveResolver, blockCompleted);
 
-            resolveDataFlow0(moveResolver, blockCompleted);
+            if (LinearScanParallelism.isEnabled(allocator)) {
+                computeEdgeMappings(blockCompleted);
+            }
+            try {
+                resolveDataFlow0(moveResolver, blockCompleted);
+            } finally {
+                edgeMappings = null;
+            }
 
         }
     }
@@ -99,6 +99,11 @@ public class CompilationResultBuilder {
     public static class Options {
         @Option(help = "Include the LIR as comments with the final assembly.", type = OptionType.Debug) //
         public static final OptionKey<Boolean> PrintLIRWithAssembly = new OptionKey<>(false);
+        @Option(help = "Emit cold blocks such as exception handlers, deoptimization paths and slow paths in a separate " +
+                       "region after all hot blocks.", type = OptionType.Expert) //
+        public static final OptionKey<Boolean> SplitColdCode = new OptionKey<>(false);
+        @Option(help = "Relative frequency below which a block is considered cold by SplitColdCode.", type = OptionType.Expert) //
+        public static final OptionKey<Double> ColdCodeFrequency = new OptionKey<>(1e-3);
     }
 
     public static final List<LIRInstructionVerifier> NO_VERIFIERS = Collections.emptyList();
@@ -145,6 +150,13 @@ public class CompilationResultBuilder {
      */
     protected int currentBlockIndex;
 
+    /**
+     * The order in which blocks are emitted, indexed by {@link #currentBlockIndex}.
+     *
+     * @see #computeEmittingOrder(LIR)
+     */
+    private char[] emittingOrder;
+
     /**
      * The object that emits code for managing a method's frame.
      */
@@ -487,7 +499,7 @@ public class CompilationResultBuilder {
      */
     public boolean isSuccessorEdge(LabelRef edge) {
         assert lir != null;
-        char[] order = lir.codeEmittingOrder();
+        char[] order = emittingOrder;
         assert order[currentBlockIndex] == edge.getSourceBlock().getId();
         BasicBlock<?> nextBlock = LIR.getNextBlock(lir.getControlFlowGraph(), order, currentBlockIndex);
         return nextBlock == edge.getTargetBlock();
@@ -531,21 +543,58 @@ public class CompilationResultBuilder {
     }
 
     /**
-     * Emits code for {@code lir} in its {@linkplain LIR#codeEmittingOrder() code emitting order}.
+     * Computes the order in which the blocks of {@code generatedLIR} are emitted. This is its
+     * {@linkplain LIR#codeEmittingOrder() code emitting order}, which already lays out likely
+     * successors as fall-throughs. If {@link Options#SplitColdCode} is enabled, exception handlers
+     * and blocks with a relative frequency below {@link Options#ColdCodeFrequency} are removed from
+     * that order and appended after all hot blocks, keeping their relative order. This keeps the
+     * hot code dense in the instruction cache at the cost of explicit jumps on the rarely taken
+     * edges into and out of the cold region.
+     */
+    protected char[] computeEmittingOrder(LIR generatedLIR) {
+        char[] order = generatedLIR.codeEmittingOrder();
+        if (!Options.SplitColdCode.getValue(options) || order.length <= 1) {
+            return order;
+        }
+        double coldFrequency = Options.ColdCodeFrequency.getValue(options);
+        char[] result = new char[order.length];
+        char[] cold = new char[order.length];
+        int hotCount = 0;
+        int coldCount = 0;
+        for (int i = 0; i < order.length; i++) {
+            char blockId = order[i];
+            BasicBlock<?> b = LIR.isBlockDeleted(blockId) ? null : generatedLIR.getBlockById(blockId);
+            if (i != 0 && b != null && (b.isExceptionEntry() || b.getRelativeFrequency() < coldFrequency)) {
+                cold[coldCount++] = blockId;
+            } else {
+                result[hotCount++] = blockId;
+            }
+        }
+        if (coldCount == 0) {
+            return order;
+        }
+        System.arraycopy(cold, 0, result, hotCount, coldCount);
+        return result;
+    }
+
+    /**
+     * Emits code for {@code lir} in the order {@linkplain #computeEmittingOrder(LIR) computed} from
+     * its {@linkplain LIR#codeEmittingOrder() code emitting order}.
      */
     public void emit(@SuppressWarnings("hiding") LIR lir) {
         assert this.lir == null;
         assert currentBlockIndex == 0;
         assert lastImplicitExceptionOffset == Integer.MIN_VALUE;
         this.lir = lir;
+        this.emittingOrder = computeEmittingOrder(lir);
         this.currentBlockIndex = 0;
         this.lastImplicitExceptionOffset = Integer.MIN_VALUE;
         frameContext.enter(this);
         final BasicBlockInfoLogger logger = new BasicBlockInfoLogger();
         BasicBlock<?> previousBlock = null;
-        for (int blockId : lir.codeEmittingOrder()) {
+        for (int blockId : emittingOrder) {
             BasicBlock<?> b = lir.getBlockById(blockId);
-            assert (b == null && lir.codeEmittingOrder()[currentBlockIndex] == AbstractControlFlowGraph.INVALID_BLOCK_ID) || lir.codeEmittingOrder()[currentBlockIndex] == blockId;
+            assert (b == null && emittingOrder[currentBlockIndex] == AbstractControlFlowGraph.INVALID_BLOCK_ID) || emittingOrder[currentBlockIndex] == blockId;
             if (b != null) {
                 if (b.isAligned() && previousBlock != null) {
                     boolean hasSuccessorB = false;
@@ -573,6 +622,7 @@ public class CompilationResultBuilder {
         }
         logger.close();
         this.lir = null;
+        this.emittingOrder = null;
         this.currentBlockIndex = 0;
         this.lastImplicitExceptionOffset = Integer.MIN_VALUE;
     }
@@ -648,6 +698,7 @@ public class CompilationResultBuilder {
             dataCache.clear();
         }
         lir = null;
+        emittingOrder = null;
         currentBlockIndex = 0;
         lastImplicitExceptionOffset = Integer.MIN_VALUE;
     }
@@ -664,7 +715,9 @@ public class CompilationResultBuilder {
         labelBindLirPositions = EconomicMap.create(Equivalence.IDENTITY);
         lirPositions = EconomicMap.create(Equivalence.IDENTITY);
         int instructionPosition = 0;
-        for (int blockId : generatedLIR.getBlocks()) {
+        // cold blocks are far away from their hot predecessors when they are split off
+        char[] order = Options.SplitColdCode.getValue(options) ? computeEmittingOrder(generatedLIR) : generatedLIR.getBlocks();
+        for (int blockId : order) {
             if (LIR.isBlockDeleted(blockId)) {
                 continue;
             }
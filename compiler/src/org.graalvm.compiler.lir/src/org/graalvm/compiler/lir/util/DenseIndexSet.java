@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.util;
+
+import java.util.BitSet;
+
+/**
+ * An {@link IndexSet} backed by a {@link BitSet}.
+ */
+public final class DenseIndexSet implements IndexSet {
+
+    private final BitSet bits;
+
+    public DenseIndexSet() {
+        this.bits = new BitSet();
+    }
+
+    private DenseIndexSet(BitSet bits) {
+        this.bits = bits;
+    }
+
+    @Override
+    public boolean get(int index) {
+        return bits.get(index);
+    }
+
+    @Override
+    public void set(int index) {
+        bits.set(index);
+    }
+
+    @Override
+    public void clear(int index) {
+        bits.clear(index);
+    }
+
+    @Override
+    public void or(IndexSet other) {
+        if (other instanceof DenseIndexSet) {
+            bits.or(((DenseIndexSet) other).bits);
+        } else {
+            for (int i = other.nextSetBit(0); i >= 0; i = other.nextSetBit(i + 1)) {
+                bits.set(i);
+            }
+        }
+    }
+
+    @Override
+    public void andNot(IndexSet other) {
+        if (other instanceof DenseIndexSet) {
+            bits.andNot(((DenseIndexSet) other).bits);
+        } else {
+            for (int i = other.nextSetBit(0); i >= 0; i = other.nextSetBit(i + 1)) {
+                bits.clear(i);
+            }
+        }
+    }
+
+    @Override
+    public int nextSetBit(int fromIndex) {
+        return bits.nextSetBit(fromIndex);
+    }
+
+    @Override
+    public int cardinality() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    @Override
+    public DenseIndexSet copy() {
+        return new DenseIndexSet((BitSet) bits.clone());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DenseIndexSet && bits.equals(((DenseIndexSet) obj).bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return bits.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return bits.toString();
+    }
+}
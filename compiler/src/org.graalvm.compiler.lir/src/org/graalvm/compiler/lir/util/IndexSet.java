@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.util;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+/**
+ * A set of non-negative integers, such as the indices of the variables live at the end of a block.
+ * The representation is selected with {@link Options#LIRSparseBitSets}: a {@link DenseIndexSet}
+ * uses memory proportional to the largest element, a {@link SparseBitSet} uses memory
+ * proportional to the number of elements in sparse regions of the index space.
+ */
+public interface IndexSet {
+
+    class Options {
+        // @formatter:off
+        @Option(help = "Use compressed sparse bit sets instead of dense bit sets for per-block sets in LIR data flow analyses.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> LIRSparseBitSets = new OptionKey<>(false);
+        // @formatter:on
+    }
+
+    /**
+     * Creates an empty set with the representation selected by {@link Options#LIRSparseBitSets}.
+     */
+    static IndexSet create(OptionValues options) {
+        return Options.LIRSparseBitSets.getValue(options) ? new SparseBitSet() : new DenseIndexSet();
+    }
+
+    boolean get(int index);
+
+    void set(int index);
+
+    void clear(int index);
+
+    /**
+     * Adds all elements of {@code other} to this set.
+     */
+    void or(IndexSet other);
+
+    /**
+     * Removes all elements of {@code other} from this set.
+     */
+    void andNot(IndexSet other);
+
+    /**
+     * Returns the smallest element that is greater than or equal to {@code fromIndex}, or
+     * {@code -1} if there is no such element.
+     */
+    int nextSetBit(int fromIndex);
+
+    int cardinality();
+
+    boolean isEmpty();
+
+    IndexSet copy();
+}
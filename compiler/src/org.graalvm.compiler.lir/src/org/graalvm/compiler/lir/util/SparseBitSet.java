@@ -0,0 +1,562 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.util;
+
+import java.util.Arrays;
+
+/**
+ * A compressed bit set in the style of a roaring bitmap. The index space is split into chunks of
+ * 2<sup>16</sup> indices. Only chunks with at least one element are stored, each in a container
+ * whose representation depends on the number of elements in the chunk:
+ * <ul>
+ * <li>up to {@link #ARRAY_CONTAINER_MAX} elements are stored as a sorted {@code char[]},</li>
+ * <li>more elements are stored as a bitmap of 1024 {@code long}s (8 KB).</li>
+ * </ul>
+ * A set with {@code n} elements therefore never uses more than about {@code 2n} bytes plus the
+ * size of its bitmaps, which are only allocated for dense chunks. A bitmap is converted back to an
+ * array when its cardinality drops below half of {@link #ARRAY_CONTAINER_MAX}, so that alternating
+ * insertions and removals do not convert a container repeatedly.
+ */
+public final class SparseBitSet implements IndexSet {
+
+    /**
+     * The maximum number of elements in an array container.
+     */
+    static final int ARRAY_CONTAINER_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final Object[] EMPTY_CONTAINERS = new Object[0];
+    private static final int[] EMPTY_CARDINALITIES = new int[0];
+
+    /**
+     * The high 16 bits of the indices in each container, sorted.
+     */
+    private char[] keys;
+
+    /**
+     * The containers, either a {@code char[]} of sorted low 16 bits or a {@code long[]} bitmap.
+     */
+    private Object[] containers;
+
+    /**
+     * The number of elements in each container. For array containers, this is the number of used
+     * entries in the array.
+     */
+    private int[] cardinalities;
+
+    /**
+     * The number of used entries in {@link #keys}, {@link #containers} and {@link #cardinalities}.
+     */
+    private int size;
+
+    public SparseBitSet() {
+        keys = EMPTY_KEYS;
+        containers = EMPTY_CONTAINERS;
+        cardinalities = EMPTY_CARDINALITIES;
+    }
+
+    private SparseBitSet(SparseBitSet other) {
+        size = other.size;
+        keys = Arrays.copyOf(other.keys, size);
+        cardinalities = Arrays.copyOf(other.cardinalities, size);
+        containers = new Object[size];
+        for (int i = 0; i < size; i++) {
+            Object container = other.containers[i];
+            if (container instanceof long[]) {
+                containers[i] = ((long[]) container).clone();
+            } else {
+                containers[i] = Arrays.copyOf((char[]) container, Math.max(cardinalities[i], 1));
+            }
+        }
+    }
+
+    private static char highBits(int index) {
+        return (char) (index >>> 16);
+    }
+
+    private static char lowBits(int index) {
+        return (char) index;
+    }
+
+    private int containerIndex(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    @Override
+    public boolean get(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index < 0: " + index);
+        }
+        int i = containerIndex(highBits(index));
+        if (i < 0) {
+            return false;
+        }
+        char low = lowBits(index);
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[i], low) >= 0;
+    }
+
+    @Override
+    public void set(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index < 0: " + index);
+        }
+        char key = highBits(index);
+        int i = containerIndex(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new char[4], 0);
+        }
+        char low = lowBits(index);
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            long[] bitmap = (long[]) container;
+            long word = bitmap[low >>> 6];
+            long bit = 1L << low;
+            if ((word & bit) == 0) {
+                bitmap[low >>> 6] = word | bit;
+                cardinalities[i]++;
+            }
+            return;
+        }
+        char[] array = (char[]) container;
+        int cardinality = cardinalities[i];
+        int position = Arrays.binarySearch(array, 0, cardinality, low);
+        if (position >= 0) {
+            return;
+        }
+        if (cardinality == ARRAY_CONTAINER_MAX) {
+            long[] bitmap = toBitmap(array, cardinality);
+            bitmap[low >>> 6] |= 1L << low;
+            containers[i] = bitmap;
+            cardinalities[i] = cardinality + 1;
+            return;
+        }
+        position = -position - 1;
+        if (cardinality == array.length) {
+            array = Arrays.copyOf(array, Math.min(ARRAY_CONTAINER_MAX, cardinality * 2));
+            containers[i] = array;
+        }
+        System.arraycopy(array, position, array, position + 1, cardinality - position);
+        array[position] = low;
+        cardinalities[i] = cardinality + 1;
+    }
+
+    @Override
+    public void clear(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index < 0: " + index);
+        }
+        int i = containerIndex(highBits(index));
+        if (i < 0) {
+            return;
+        }
+        char low = lowBits(index);
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            long[] bitmap = (long[]) container;
+            long word = bitmap[low >>> 6];
+            long bit = 1L << low;
+            if ((word & bit) != 0) {
+                bitmap[low >>> 6] = word & ~bit;
+                cardinalities[i]--;
+                shrinkContainer(i);
+            }
+            return;
+        }
+        char[] array = (char[]) container;
+        int cardinality = cardinalities[i];
+        int position = Arrays.binarySearch(array, 0, cardinality, low);
+        if (position >= 0) {
+            System.arraycopy(array, position + 1, array, position, cardinality - position - 1);
+            cardinalities[i] = cardinality - 1;
+            shrinkContainer(i);
+        }
+    }
+
+    @Override
+    public void or(IndexSet other) {
+        if (!(other instanceof SparseBitSet)) {
+            for (int i = other.nextSetBit(0); i >= 0; i = other.nextSetBit(i + 1)) {
+                set(i);
+            }
+            return;
+        }
+        SparseBitSet that = (SparseBitSet) other;
+        int i = 0;
+        for (int j = 0; j < that.size; j++) {
+            char key = that.keys[j];
+            while (i < size && keys[i] < key) {
+                i++;
+            }
+            if (i < size && keys[i] == key) {
+                unionInto(i, that.containers[j], that.cardinalities[j]);
+            } else {
+                Object container = that.containers[j];
+                Object copy = container instanceof long[] ? ((long[]) container).clone() : Arrays.copyOf((char[]) container, Math.max(that.cardinalities[j], 1));
+                insertContainer(i, key, copy, that.cardinalities[j]);
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Adds the elements of a container of another set to the container at index {@code i}.
+     */
+    private void unionInto(int i, Object otherContainer, int otherCardinality) {
+        Object container = containers[i];
+        if (container instanceof char[] && otherContainer instanceof char[]) {
+            char[] merged = new char[cardinalities[i] + otherCardinality];
+            int cardinality = mergeArrays((char[]) container, cardinalities[i], (char[]) otherContainer, otherCardinality, merged);
+            if (cardinality > ARRAY_CONTAINER_MAX) {
+                containers[i] = toBitmap(merged, cardinality);
+            } else {
+                containers[i] = merged;
+            }
+            cardinalities[i] = cardinality;
+            return;
+        }
+        long[] bitmap;
+        if (container instanceof long[]) {
+            bitmap = (long[]) container;
+        } else {
+            bitmap = toBitmap((char[]) container, cardinalities[i]);
+            containers[i] = bitmap;
+        }
+        if (otherContainer instanceof long[]) {
+            long[] otherBitmap = (long[]) otherContainer;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                bitmap[w] |= otherBitmap[w];
+            }
+        } else {
+            char[] otherArray = (char[]) otherContainer;
+            for (int k = 0; k < otherCardinality; k++) {
+                char low = otherArray[k];
+                bitmap[low >>> 6] |= 1L << low;
+            }
+        }
+        cardinalities[i] = bitCount(bitmap);
+    }
+
+    /**
+     * Merges two sorted arrays into {@code result}, which must be large enough for both.
+     *
+     * @return the number of elements in the merged array
+     */
+    private static int mergeArrays(char[] a, int aLength, char[] b, int bLength, char[] result) {
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < aLength && j < bLength) {
+            char x = a[i];
+            char y = b[j];
+            if (x < y) {
+                result[k++] = x;
+                i++;
+            } else if (x > y) {
+                result[k++] = y;
+                j++;
+            } else {
+                result[k++] = x;
+                i++;
+                j++;
+            }
+        }
+        while (i < aLength) {
+            result[k++] = a[i++];
+        }
+        while (j < bLength) {
+            result[k++] = b[j++];
+        }
+        return k;
+    }
+
+    @Override
+    public void andNot(IndexSet other) {
+        if (!(other instanceof SparseBitSet)) {
+            for (int i = other.nextSetBit(0); i >= 0; i = other.nextSetBit(i + 1)) {
+                clear(i);
+            }
+            return;
+        }
+        SparseBitSet that = (SparseBitSet) other;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            char key = keys[i];
+            while (j < that.size && that.keys[j] < key) {
+                j++;
+            }
+            if (j == that.size) {
+                break;
+            }
+            if (that.keys[j] != key) {
+                continue;
+            }
+            Object otherContainer = that.containers[j];
+            Object container = containers[i];
+            if (container instanceof long[]) {
+                long[] bitmap = (long[]) container;
+                if (otherContainer instanceof long[]) {
+                    long[] otherBitmap = (long[]) otherContainer;
+                    for (int w = 0; w < BITMAP_WORDS; w++) {
+                        bitmap[w] &= ~otherBitmap[w];
+                    }
+                } else {
+                    char[] otherArray = (char[]) otherContainer;
+                    for (int k = 0; k < that.cardinalities[j]; k++) {
+                        char low = otherArray[k];
+                        bitmap[low >>> 6] &= ~(1L << low);
+                    }
+                }
+                cardinalities[i] = bitCount(bitmap);
+            } else {
+                char[] array = (char[]) container;
+                int kept = 0;
+                for (int k = 0; k < cardinalities[i]; k++) {
+                    char low = array[k];
+                    if (!containerContains(otherContainer, that.cardinalities[j], low)) {
+                        array[kept++] = low;
+                    }
+                }
+                cardinalities[i] = kept;
+            }
+        }
+        removeEmptyAndShrink();
+    }
+
+    private static boolean containerContains(Object container, int cardinality, char low) {
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinality, low) >= 0;
+    }
+
+    @Override
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        char key = highBits(fromIndex);
+        int i = containerIndex(key);
+        int low;
+        if (i < 0) {
+            i = -i - 1;
+            low = 0;
+        } else {
+            low = lowBits(fromIndex);
+        }
+        for (; i < size; i++) {
+            int next = nextInContainer(i, low);
+            if (next >= 0) {
+                return (keys[i] << 16) | next;
+            }
+            low = 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the smallest low 16 bits in container {@code i} which are not smaller than
+     * {@code low}, or {@code -1}.
+     */
+    private int nextInContainer(int i, int low) {
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            long[] bitmap = (long[]) container;
+            int w = low >>> 6;
+            long word = bitmap[w] & (-1L << low);
+            while (true) {
+                if (word != 0) {
+                    return (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = bitmap[w];
+            }
+        }
+        char[] array = (char[]) container;
+        int cardinality = cardinalities[i];
+        int position = Arrays.binarySearch(array, 0, cardinality, (char) low);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return position < cardinality ? array[position] : -1;
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += cardinalities[i];
+        }
+        return cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public SparseBitSet copy() {
+        return new SparseBitSet(this);
+    }
+
+    /**
+     * Returns an estimate of the memory used by the arrays of this set in bytes, excluding object
+     * headers.
+     */
+    public long estimatedMemory() {
+        long bytes = keys.length * 2L + cardinalities.length * 4L + containers.length * 8L;
+        for (int i = 0; i < size; i++) {
+            Object container = containers[i];
+            bytes += container instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) container).length * 2L;
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int i, char key, Object container, int cardinality) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        System.arraycopy(cardinalities, i, cardinalities, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        cardinalities[i] = cardinality;
+        size++;
+    }
+
+    private void removeContainer(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        System.arraycopy(cardinalities, i + 1, cardinalities, i, size - i - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Removes container {@code i} if it is empty or converts it to an array if it is a sparse
+     * bitmap.
+     */
+    private void shrinkContainer(int i) {
+        int cardinality = cardinalities[i];
+        if (cardinality == 0) {
+            removeContainer(i);
+        } else if (cardinality < ARRAY_CONTAINER_MAX / 2 && containers[i] instanceof long[]) {
+            containers[i] = toArray((long[]) containers[i], cardinality);
+        }
+    }
+
+    private void removeEmptyAndShrink() {
+        for (int i = size - 1; i >= 0; i--) {
+            shrinkContainer(i);
+        }
+    }
+
+    private static long[] toBitmap(char[] array, int cardinality) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int k = 0; k < cardinality; k++) {
+            char low = array[k];
+            bitmap[low >>> 6] |= 1L << low;
+        }
+        return bitmap;
+    }
+
+    private static char[] toArray(long[] bitmap, int cardinality) {
+        char[] array = new char[cardinality];
+        int k = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = bitmap[w];
+            while (word != 0) {
+                array[k++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+
+    private static int bitCount(long[] bitmap) {
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SparseBitSet)) {
+            return false;
+        }
+        SparseBitSet other = (SparseBitSet) obj;
+        if (size != other.size || !Arrays.equals(keys, 0, size, other.keys, 0, other.size) || !Arrays.equals(cardinalities, 0, size, other.cardinalities, 0, other.size)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int low = nextInContainer(i, 0); low >= 0; low = low == 0xFFFF ? -1 : nextInContainer(i, low + 1)) {
+                if (!containerContains(other.containers[i], other.cardinalities[i], (char) low)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + keys[i];
+            hash = 31 * hash + cardinalities[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = nextSetBit(0); i >= 0; i = i == Integer.MAX_VALUE ? -1 : nextSetBit(i + 1)) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(i);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.AbstractEndNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.SafepointNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.AndNode;
+import org.graalvm.compiler.nodes.calc.BinaryArithmeticNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.OrNode;
+import org.graalvm.compiler.nodes.calc.XorNode;
+import org.graalvm.compiler.nodes.loop.InductionVariable;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.memory.FloatingReadNode;
+import org.graalvm.compiler.nodes.memory.ReadNode;
+import org.graalvm.compiler.nodes.memory.WriteNode;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.memory.address.OffsetAddressNode;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Analysis of a counted loop over contiguous array elements. A loop qualifies if its body only
+ * consists of primitive array accesses that walk contiguously through memory in the direction of
+ * the loop counter and of floating arithmetic combining them, and if its only loop-carried values
+ * are the induction variables and integer reductions. Such a loop can be unrolled by the number of
+ * elements that fit into a given number of bytes, after which one iteration accesses adjacent
+ * elements of each array. Nothing packs those accesses into vector instructions yet.
+ */
+public final class ContiguousArrayLoop {
+
+    /**
+     * The shape of a contiguous array loop body.
+     */
+    public enum Shape {
+        /**
+         * Only stores of a loop invariant value, e.g., {@code a[i] = x}.
+         */
+        Fill,
+        /**
+         * Only stores of values loaded in the same iteration, e.g., {@code a[i] = b[i]}.
+         */
+        Copy,
+        /**
+         * No stores, the loads are combined into an integer reduction, e.g., {@code s += a[i]}.
+         */
+        Reduction,
+        /**
+         * Stores of values computed from loads of the same iteration, e.g.,
+         * {@code a[i] = b[i] + c[i]}.
+         */
+        ElementWise
+    }
+
+    private final Shape shape;
+    private final int elementBytes;
+
+    private ContiguousArrayLoop(Shape shape, int elementBytes) {
+        this.shape = shape;
+        this.elementBytes = elementBytes;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets the size of the smallest array element accessed in the loop body.
+     */
+    public int getElementBytes() {
+        return elementBytes;
+    }
+
+    /**
+     * Gets the number of iterations whose elements fit into {@code widthBytes}.
+     */
+    public int lanes(int widthBytes) {
+        return Math.max(1, widthBytes / elementBytes);
+    }
+
+    /**
+     * Analyzes {@code loop} and returns {@code null} if it does not qualify.
+     */
+    public static ContiguousArrayLoop analyze(LoopEx loop) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty()) {
+            return null;
+        }
+        InductionVariable counter = loop.counted().getLimitCheckedIV();
+        if (!counter.isConstantStride() || counter.constantStride() != 1) {
+            return null;
+        }
+        EconomicMap<Node, InductionVariable> ivs = loop.getInductionVariables();
+        LoopBeginNode loopBegin = loop.loopBegin();
+
+        List<ValueNode> reads = new ArrayList<>();
+        List<WriteNode> writes = new ArrayList<>();
+        int minElementBytes = Integer.MAX_VALUE;
+        for (Node n : loop.whole().nodes()) {
+            if (n instanceof ReadNode || n instanceof FloatingReadNode || n instanceof WriteNode) {
+                int bytes = contiguousElementBytes(n, ivs);
+                if (bytes < 0) {
+                    return null;
+                }
+                minElementBytes = Math.min(minElementBytes, bytes);
+                if (n instanceof WriteNode) {
+                    writes.add((WriteNode) n);
+                } else {
+                    reads.add((ValueNode) n);
+                }
+            } else if (n instanceof FixedNode) {
+                if (!(n instanceof AbstractBeginNode || n instanceof AbstractEndNode || n instanceof SafepointNode || n == loop.counted().getLimitTest())) {
+                    // calls, allocations, checks and other control flow inside the body
+                    return null;
+                }
+            }
+        }
+        if (minElementBytes == Integer.MAX_VALUE) {
+            return null;
+        }
+
+        boolean hasReduction = false;
+        for (PhiNode phi : loopBegin.phis()) {
+            if (ivs.containsKey(phi)) {
+                continue;
+            }
+            if (!(phi instanceof ValuePhiNode) || !isIntegerReduction((ValuePhiNode) phi, loop)) {
+                // loop-carried dependency other than a reduction
+                return null;
+            }
+            hasReduction = true;
+        }
+
+        if (!hasIndependentAccesses(reads, writes)) {
+            return null;
+        }
+
+        Shape result;
+        if (writes.isEmpty()) {
+            if (!hasReduction) {
+                return null;
+            }
+            result = Shape.Reduction;
+        } else if (hasReduction) {
+            result = Shape.ElementWise;
+        } else {
+            boolean allFill = true;
+            boolean allCopy = true;
+            for (WriteNode write : writes) {
+                allFill &= loop.isOutsideLoop(write.value());
+                allCopy &= reads.contains(write.value());
+            }
+            result = allFill ? Shape.Fill : allCopy ? Shape.Copy : Shape.ElementWise;
+        }
+        return new ContiguousArrayLoop(result, minElementBytes);
+    }
+
+    private static AddressNode addressOf(Node access) {
+        if (access instanceof ReadNode) {
+            return ((ReadNode) access).getAddress();
+        } else if (access instanceof FloatingReadNode) {
+            return ((FloatingReadNode) access).getAddress();
+        }
+        return ((WriteNode) access).getAddress();
+    }
+
+    private static LocationIdentity locationOf(Node access) {
+        if (access instanceof ReadNode) {
+            return ((ReadNode) access).getLocationIdentity();
+        } else if (access instanceof FloatingReadNode) {
+            return ((FloatingReadNode) access).getLocationIdentity();
+        }
+        return ((WriteNode) access).getLocationIdentity();
+    }
+
+    /**
+     * Returns the element size of a primitive array access whose offset advances by exactly one
+     * element per iteration, or -1 for any other access.
+     */
+    private static int contiguousElementBytes(Node access, EconomicMap<Node, InductionVariable> ivs) {
+        AddressNode address = addressOf(access);
+        if (!(address instanceof OffsetAddressNode)) {
+            return -1;
+        }
+        JavaKind kind = primitiveArrayKind(locationOf(access));
+        if (kind == null) {
+            return -1;
+        }
+        InductionVariable iv = ivs.get(((OffsetAddressNode) address).getOffset());
+        if (iv == null || !iv.isConstantStride() || iv.constantStride() != kind.getByteCount()) {
+            return -1;
+        }
+        return kind.getByteCount();
+    }
+
+    private static JavaKind primitiveArrayKind(LocationIdentity location) {
+        for (JavaKind kind : JavaKind.values()) {
+            if (kind.isPrimitive() && kind != JavaKind.Void && NamedLocationIdentity.getArrayLocation(kind).equals(location)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reordering a reduction is only allowed for associative operations. Floating point addition
+     * and multiplication are not associative in Java, so only integer reductions qualify.
+     */
+    private static boolean isIntegerReduction(ValuePhiNode phi, LoopEx loop) {
+        if (phi.valueCount() != 2 || !(phi.stamp(NodeView.DEFAULT) instanceof IntegerStamp)) {
+            return false;
+        }
+        ValueNode backValue = phi.valueAt(loop.loopBegin().loopEnds().first());
+        if (!(backValue instanceof AddNode || backValue instanceof MulNode || backValue instanceof AndNode || backValue instanceof OrNode || backValue instanceof XorNode)) {
+            return false;
+        }
+        BinaryArithmeticNode<?> op = (BinaryArithmeticNode<?>) backValue;
+        if ((op.getX() == phi) == (op.getY() == phi)) {
+            return false;
+        }
+        // partial results must not be observed inside the loop
+        return onlyUsedBy(phi, op, loop) && onlyUsedBy(op, phi, loop);
+    }
+
+    private static boolean onlyUsedBy(ValueNode value, ValueNode user, LoopEx loop) {
+        for (Node usage : value.usages()) {
+            if (usage != user && !loop.isOutsideLoop(usage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that no iteration reads a value written by another iteration. Accesses to the same
+     * array location identity must use the same base and offset, since different arrays may alias.
+     */
+    private static boolean hasIndependentAccesses(List<ValueNode> reads, List<WriteNode> writes) {
+        for (WriteNode write : writes) {
+            OffsetAddressNode writeAddress = (OffsetAddressNode) write.getAddress();
+            for (WriteNode other : writes) {
+                if (other != write && !sameElement(writeAddress, locationOf(write), other)) {
+                    return false;
+                }
+            }
+            for (ValueNode read : reads) {
+                if (!sameElement(writeAddress, locationOf(write), read)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameElement(OffsetAddressNode address, LocationIdentity location, Node other) {
+        if (!locationOf(other).overlaps(location)) {
+            return true;
+        }
+        OffsetAddressNode otherAddress = (OffsetAddressNode) addressOf(other);
+        return otherAddress.getBase() == address.getBase() && otherAddress.getOffset() == address.getOffset();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import java.util.ListIterator;
+import java.util.Optional;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.graph.Graph;
+import org.graalvm.compiler.nodes.GraphState;
+import org.graalvm.compiler.nodes.GraphState.StageFlag;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.extended.OpaqueNode;
+import org.graalvm.compiler.nodes.loop.DefaultLoopPolicies;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopPolicies;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.PhaseSuite;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.MidTierLoweringPhase;
+import org.graalvm.compiler.phases.common.util.EconomicSetNodeEventListener;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+
+/**
+ * Partially unrolls {@linkplain ContiguousArrayLoop contiguous array loops} by the number of
+ * elements that fit into {@link Options#LoopLaneUnrollWidth} bytes. Each such loop gets
+ * pre/main/post loops inserted and the main loop is then unrolled until one iteration covers that
+ * many bytes of every accessed array. Unlike {@link LoopPartialUnrollPhase}, the unroll factor is
+ * derived from the element size rather than from the {@linkplain LoopPolicies loop policies}.
+ *
+ * The phase does not pack the unrolled iterations into vector instructions; it only unrolls.
+ */
+public class LoopLaneUnrollPhase extends LoopPhase<LoopPolicies> {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Partially unroll counted loops over contiguous primitive array elements by the number of elements " +
+                       "that fit into LoopLaneUnrollWidth bytes.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> LoopLaneUnroll = new OptionKey<>(false);
+        @Option(help = "Number of bytes of each accessed array covered by one iteration of a loop unrolled by LoopLaneUnroll.", type = OptionType.Expert)
+        public static final OptionKey<Integer> LoopLaneUnrollWidth = new OptionKey<>(32);
+        // @formatter:on
+    }
+
+    private static final CounterKey UNROLLED_LOOPS = DebugContext.counter("LoopLaneUnroll_Loops");
+
+    public LoopLaneUnrollPhase(LoopPolicies policies, CanonicalizerPhase canonicalizer) {
+        super(policies, canonicalizer);
+    }
+
+    /**
+     * Inserts this phase into the mid tier of {@code suites} if {@link Options#LoopLaneUnroll} is
+     * enabled: right before {@link LoopPartialUnrollPhase}, so that the lane count rather than the
+     * loop policies determines the unroll factor of contiguous array loops, or right before
+     * {@link MidTierLoweringPhase} if partial unrolling is disabled.
+     */
+    public static void register(Suites suites, CanonicalizerPhase canonicalizer, OptionValues options) {
+        if (!Options.LoopLaneUnroll.getValue(options)) {
+            return;
+        }
+        if (suites.isImmutable()) {
+            throw new IllegalStateException("Suites are already immutable.");
+        }
+        PhaseSuite<MidTierContext> midTier = suites.getMidTier();
+        ListIterator<BasePhase<? super MidTierContext>> position = midTier.findPhase(LoopPartialUnrollPhase.class);
+        if (position == null) {
+            position = midTier.findPhase(MidTierLoweringPhase.class);
+            GraalError.guarantee(position != null, "mid tier has no %s", MidTierLoweringPhase.class.getSimpleName());
+        }
+        position.previous();
+        position.add(new LoopLaneUnrollPhase(new DefaultLoopPolicies(), canonicalizer));
+    }
+
+    @Override
+    public Optional<NotApplicable> notApplicableTo(GraphState graphState) {
+        return NotApplicable.ifAny(
+                        super.notApplicableTo(graphState),
+                        NotApplicable.unlessRunAfter(this, StageFlag.FSA, graphState),
+                        NotApplicable.unlessRunAfter(this, StageFlag.VALUE_PROXY_REMOVAL, graphState));
+    }
+
+    @Override
+    @SuppressWarnings("try")
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        OptionValues options = graph.getOptions();
+        if (!graph.hasLoops() || !Options.LoopLaneUnroll.getValue(options)) {
+            return;
+        }
+        int widthBytes = Options.LoopLaneUnrollWidth.getValue(options);
+        EconomicSetNodeEventListener listener = new EconomicSetNodeEventListener();
+        EconomicMap<LoopBeginNode, OpaqueNode> opaqueUnrolledStrides = null;
+        /*
+         * Once unrolled, the main loop's strides no longer match the element size, so the lane count
+         * is computed once on the simple loop and remembered for the main loop created from it.
+         */
+        EconomicMap<LoopBeginNode, Integer> mainLoopLanes = EconomicMap.create(Equivalence.IDENTITY);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            try (Graph.NodeEventScope nes = graph.trackNodeEvents(listener)) {
+                LoopsData dataCounted = context.getLoopsDataProvider().getLoopsData(graph);
+                dataCounted.detectCountedLoops();
+                for (LoopEx loop : dataCounted.countedLoops()) {
+                    if (!LoopTransformations.isUnrollableLoop(loop)) {
+                        continue;
+                    }
+                    LoopBeginNode loopBegin = loop.loopBegin();
+                    if (loopBegin.isSimpleLoop()) {
+                        ContiguousArrayLoop contiguous = ContiguousArrayLoop.analyze(loop);
+                        if (contiguous == null) {
+                            continue;
+                        }
+                        int lanes = contiguous.lanes(widthBytes);
+                        graph.getDebug().log(DebugContext.DETAILED_LEVEL, "LoopLaneUnroll: %s loop %s with %d lanes", contiguous.getShape(), loopBegin, lanes);
+                        LoopTransformations.PreMainPostResult result = LoopTransformations.insertPrePostLoops(loop);
+                        mainLoopLanes.put(result.getMainLoop(), lanes);
+                        UNROLLED_LOOPS.increment(graph.getDebug());
+                        changed = true;
+                    } else if (loopBegin.isMainLoop()) {
+                        Integer lanes = mainLoopLanes.get(loopBegin);
+                        if (lanes != null && loopBegin.getUnrollFactor() < lanes) {
+                            if (opaqueUnrolledStrides == null) {
+                                opaqueUnrolledStrides = EconomicMap.create(Equivalence.IDENTITY);
+                            }
+                            LoopTransformations.partialUnroll(loop, opaqueUnrolledStrides);
+                            changed = true;
+                        }
+                    }
+                }
+                dataCounted.deleteUnusedNodes();
+
+                if (!listener.getNodes().isEmpty()) {
+                    canonicalizer.applyIncremental(graph, context, listener.getNodes());
+                    listener.getNodes().clear();
+                }
+            }
+        }
+        if (opaqueUnrolledStrides != null) {
+            try (Graph.NodeEventScope nes = graph.trackNodeEvents(listener)) {
+                for (OpaqueNode opaque : opaqueUnrolledStrides.getValues()) {
+                    opaque.remove();
+                }
+                if (!listener.getNodes().isEmpty()) {
+                    canonicalizer.applyIncremental(graph, context, listener.getNodes());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean checkContract() {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common.inlining.policy;
+
+import static org.graalvm.compiler.core.common.GraalOptions.MaximumDesiredSize;
+
+import java.util.Map;
+
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.phases.common.inlining.info.InlineInfo;
+import org.graalvm.compiler.phases.common.inlining.info.elem.Inlineable;
+import org.graalvm.compiler.phases.common.inlining.info.elem.InlineableGraph;
+
+/**
+ * A {@link GreedyInliningPolicy} that measures graphs with an {@link InliningCostModel} instead of
+ * counting their nodes. Since the model estimates are expressed in node equivalents, the usual
+ * inlining limits apply unchanged.
+ */
+public class CostModelInliningPolicy extends GreedyInliningPolicy {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "File containing per-node-class weights used to estimate the size and compile time of inlining " +
+                       "candidates instead of counting their nodes.", type = OptionType.Expert)
+        public static final OptionKey<String> InliningCostModelFile = new OptionKey<>(null);
+        // @formatter:on
+    }
+
+    private final InliningCostModel model;
+
+    public CostModelInliningPolicy(Map<Invoke, Double> hints, InliningCostModel model) {
+        super(hints);
+        this.model = model;
+    }
+
+    public InliningCostModel getModel() {
+        return model;
+    }
+
+    @Override
+    protected int graphSize(StructuredGraph graph) {
+        /*
+         * This is queried after every inlining step. Avoid walking the graph while even the upper
+         * bound of the estimate stays below the limit it is compared against.
+         */
+        double bound = super.graphSize(graph) * model.getMaxWeight();
+        if (bound < MaximumDesiredSize.getValue(graph.getOptions())) {
+            return (int) bound;
+        }
+        return model.estimate(graph).getCost();
+    }
+
+    @Override
+    protected int determineNodeCount(InlineInfo info) {
+        int cost = 0;
+        for (int i = 0; i < info.numberOfMethods(); i++) {
+            Inlineable callee = info.inlineableElementAt(i);
+            if (callee instanceof InlineableGraph) {
+                cost += model.estimate(((InlineableGraph) callee).getGraph()).getCost();
+            } else {
+                cost += callee.getNodeCount();
+            }
+        }
+        return cost;
+    }
+}
@@ -55,7 +55,7 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
 
     @Override
     public boolean continueInlining(StructuredGraph currentGraph) {
-        if (InliningUtil.getNodeCount(currentGraph) >= MaximumDesiredSize.getValue(currentGraph.getOptions())) {
+        if (graphSize(currentGraph) >= MaximumDesiredSize.getValue(currentGraph.getOptions())) {
             DebugContext debug = currentGraph.getDebug();
             InliningUtil.logInliningDecision(debug, "inlining is cut off by MaximumDesiredSize");
             inliningStoppedByMaxDesiredSizeCounter.increment(debug);
@@ -64,6 +64,21 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
         return true;
     }
 
+    /**
+     * Returns the size of {@code graph} that is compared against {@code MaximumDesiredSize}.
+     */
+    protected int graphSize(StructuredGraph graph) {
+        return InliningUtil.getNodeCount(graph);
+    }
+
+    /**
+     * Returns the size of the callee(s) described by {@code info} that is compared against the
+     * inlining size limits.
+     */
+    protected int determineNodeCount(InlineInfo info) {
+        return info.determineNodeCount();
+    }
+
     protected static boolean hasSubstitution(Replacements replacements, InlineInfo info) {
         for (int i = 0; i < info.numberOfMethods(); i++) {
             if (replacements.hasSubstitution(info.methodAt(i), info.graph().getOptions())) {
@@ -97,7 +112,7 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
         }
 
         double inliningBonus = getInliningBonus(info);
-        int nodes = info.determineNodeCount();
+        int nodes = determineNodeCount(info);
         int lowLevelGraphSize = previousLowLevelGraphSize(info);
 
         if (SmallCompiledLowLevelGraphSize.getValue(options) > 0 && lowLevelGraphSize > SmallCompiledLowLevelGraphSize.getValue(options) * inliningBonus && !hasSubstitution(replacements, info)) {
@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common.inlining.policy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.MapCursor;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+/**
+ * Estimates the code size and compile time contributed by a graph from per-node-class weights.
+ * <p>
+ * Both estimates are expressed in node equivalents: the weights are normalized such that the
+ * average node of the training set weighs 1.0, which keeps the estimates comparable with the
+ * node-count based inlining limits. Node classes without an explicit weight use the default
+ * weights.
+ * <p>
+ * A model is stored as text with one node class per line, followed by its size weight and its
+ * compile time weight. The entry named {@value #DEFAULT_ENTRY} holds the default weights and lines
+ * starting with {@code #} are comments:
+ *
+ * <pre>
+ * # inlining cost model
+ * * 1.0 1.0
+ * org.graalvm.compiler.nodes.calc.AddNode 0.75 0.5
+ * </pre>
+ *
+ * Models are fitted by a {@link Trainer} from samples collected during instrumented compilations.
+ * Samples are stored as text with one sample per line: the observed size and compile time followed
+ * by the node counts of the graph as {@code <node class>=<count>} pairs, see
+ * {@link #writeSample}.
+ */
+public final class InliningCostModel {
+
+    /**
+     * Name of the entry that holds the weights of node classes not listed in the model.
+     */
+    public static final String DEFAULT_ENTRY = "*";
+
+    private static final ConcurrentHashMap<String, InliningCostModel> loadedModels = new ConcurrentHashMap<>();
+
+    /**
+     * The estimated size and compile time of a graph in node equivalents.
+     */
+    public static final class Estimate {
+        private final double size;
+        private final double compileTime;
+
+        Estimate(double size, double compileTime) {
+            this.size = size;
+            this.compileTime = compileTime;
+        }
+
+        public double getSize() {
+            return size;
+        }
+
+        public double getCompileTime() {
+            return compileTime;
+        }
+
+        /**
+         * Returns the larger of the two estimates rounded up, i.e., the value that is compared
+         * against node-count based limits.
+         */
+        public int getCost() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.ceil(Math.max(size, compileTime)));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Estimate[size=%.2f, compileTime=%.2f]", size, compileTime);
+        }
+    }
+
+    /**
+     * Maps node class names to their size and compile time weights.
+     */
+    private final EconomicMap<String, double[]> weights;
+    private final double defaultSizeWeight;
+    private final double defaultCompileTimeWeight;
+    private final double maxWeight;
+
+    private InliningCostModel(EconomicMap<String, double[]> weights, double defaultSizeWeight, double defaultCompileTimeWeight) {
+        this.weights = weights;
+        this.defaultSizeWeight = defaultSizeWeight;
+        this.defaultCompileTimeWeight = defaultCompileTimeWeight;
+        double max = Math.max(defaultSizeWeight, defaultCompileTimeWeight);
+        for (double[] w : weights.getValues()) {
+            max = Math.max(max, Math.max(w[0], w[1]));
+        }
+        this.maxWeight = max;
+    }
+
+    /**
+     * Gets the model stored in {@code path}, reading it on first use.
+     */
+    public static InliningCostModel getOrLoad(String path) {
+        return loadedModels.computeIfAbsent(path, p -> {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(p), StandardCharsets.UTF_8)) {
+                return read(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new GraalError(e, "Could not load inlining cost model from %s", p);
+            }
+        });
+    }
+
+    /**
+     * Reads a model in the format described in the {@linkplain InliningCostModel class
+     * documentation}.
+     *
+     * @throws IllegalArgumentException if the input is malformed
+     */
+    public static InliningCostModel read(BufferedReader reader) throws IOException {
+        EconomicMap<String, double[]> weights = EconomicMap.create();
+        double defaultSize = 1.0;
+        double defaultCompileTime = 1.0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("line " + lineNumber + ": expected <node class> <size weight> <compile time weight>");
+            }
+            double size = parseWeight(fields[1], lineNumber);
+            double compileTime = parseWeight(fields[2], lineNumber);
+            if (fields[0].equals(DEFAULT_ENTRY)) {
+                defaultSize = size;
+                defaultCompileTime = compileTime;
+            } else {
+                weights.put(fields[0], new double[]{size, compileTime});
+            }
+        }
+        return new InliningCostModel(weights, defaultSize, defaultCompileTime);
+    }
+
+    private static double parseWeight(String field, int lineNumber) {
+        double weight;
+        try {
+            weight = Double.parseDouble(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("line " + lineNumber + ": invalid weight " + field);
+        }
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("line " + lineNumber + ": weight must be a non-negative number: " + field);
+        }
+        return weight;
+    }
+
+    /**
+     * Writes this model in the format accepted by {@link #read}.
+     */
+    public void write(Writer writer) throws IOException {
+        writer.write("# inlining cost model: <node class> <size weight> <compile time weight>\n");
+        writer.write(DEFAULT_ENTRY + " " + defaultSizeWeight + " " + defaultCompileTimeWeight + "\n");
+        List<String> names = new ArrayList<>();
+        for (String name : weights.getKeys()) {
+            names.add(name);
+        }
+        names.sort(null);
+        for (String name : names) {
+            double[] w = weights.get(name);
+            writer.write(name + " " + w[0] + " " + w[1] + "\n");
+        }
+    }
+
+    public double getSizeWeight(String nodeClassName) {
+        double[] w = weights.get(nodeClassName);
+        return w == null ? defaultSizeWeight : w[0];
+    }
+
+    public double getCompileTimeWeight(String nodeClassName) {
+        double[] w = weights.get(nodeClassName);
+        return w == null ? defaultCompileTimeWeight : w[1];
+    }
+
+    /**
+     * Returns the largest weight in this model. The estimates of a graph never exceed its node
+     * count multiplied by this value.
+     */
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public Estimate estimate(StructuredGraph graph) {
+        double size = 0;
+        double compileTime = 0;
+        Class<?> lastClass = null;
+        double[] lastWeights = null;
+        for (Node node : graph.getNodes()) {
+            /* Nodes of the same class are frequently adjacent, so cache the last lookup. */
+            if (node.getClass() != lastClass) {
+                lastClass = node.getClass();
+                lastWeights = weights.get(lastClass.getName());
+            }
+            if (lastWeights == null) {
+                size += defaultSizeWeight;
+                compileTime += defaultCompileTimeWeight;
+            } else {
+                size += lastWeights[0];
+                compileTime += lastWeights[1];
+            }
+        }
+        return new Estimate(size, compileTime);
+    }
+
+    /**
+     * Estimates a graph given as a histogram from node class names to node counts.
+     */
+    public Estimate estimate(UnmodifiableEconomicMap<String, Integer> histogram) {
+        double size = 0;
+        double compileTime = 0;
+        MapCursor<String, Integer> cursor = histogram.getEntries();
+        while (cursor.advance()) {
+            int count = cursor.getValue();
+            size += count * getSizeWeight(cursor.getKey());
+            compileTime += count * getCompileTimeWeight(cursor.getKey());
+        }
+        return new Estimate(size, compileTime);
+    }
+
+    /**
+     * Computes the node class histogram of {@code graph} as used by {@link Trainer#addSample}.
+     */
+    public static EconomicMap<String, Integer> histogram(StructuredGraph graph) {
+        EconomicMap<String, Integer> histogram = EconomicMap.create();
+        for (Node node : graph.getNodes()) {
+            String name = node.getClass().getName();
+            Integer count = histogram.get(name);
+            histogram.put(name, count == null ? 1 : count + 1);
+        }
+        return histogram;
+    }
+
+    /**
+     * Writes a training sample as a single line in the format accepted by
+     * {@link Trainer#readSamples}.
+     */
+    public static void writeSample(Writer writer, UnmodifiableEconomicMap<String, Integer> histogram, double observedSize, double observedCompileTime) throws IOException {
+        StringBuilder line = new StringBuilder();
+        line.append(observedSize).append(' ').append(observedCompileTime);
+        MapCursor<String, Integer> cursor = histogram.getEntries();
+        while (cursor.advance()) {
+            line.append(' ').append(cursor.getKey()).append('=').append(cursor.getValue());
+        }
+        writer.write(line.append('\n').toString());
+    }
+
+    /**
+     * Fits the weights of an {@link InliningCostModel} to observations made during compilations.
+     * Each sample consists of the node class histogram of a graph together with the code size and
+     * the compile time observed for it. The weights are the non-negative least squares solution of
+     * {@code histogram * weights = observation}, normalized to node equivalents.
+     */
+    public static final class Trainer {
+
+        private static final class Sample {
+            final int[] classes;
+            final int[] counts;
+            final double size;
+            final double compileTime;
+
+            Sample(int[] classes, int[] counts, double size, double compileTime) {
+                this.classes = classes;
+                this.counts = counts;
+                this.size = size;
+                this.compileTime = compileTime;
+            }
+        }
+
+        private final EconomicMap<String, Integer> classIndex = EconomicMap.create();
+        private final List<String> classNames = new ArrayList<>();
+        private final List<Sample> samples = new ArrayList<>();
+
+        public void addSample(StructuredGraph graph, double observedSize, double observedCompileTime) {
+            addSample(histogram(graph), observedSize, observedCompileTime);
+        }
+
+        public void addSample(UnmodifiableEconomicMap<String, Integer> histogram, double observedSize, double observedCompileTime) {
+            int[] classes = new int[histogram.size()];
+            int[] counts = new int[histogram.size()];
+            int i = 0;
+            MapCursor<String, Integer> cursor = histogram.getEntries();
+            while (cursor.advance()) {
+                if (cursor.getValue() <= 0) {
+                    continue;
+                }
+                Integer index = classIndex.get(cursor.getKey());
+                if (index == null) {
+                    index = classNames.size();
+                    classIndex.put(cursor.getKey(), index);
+                    classNames.add(cursor.getKey());
+                }
+                classes[i] = index;
+                counts[i] = cursor.getValue();
+                i++;
+            }
+            samples.add(new Sample(Arrays.copyOf(classes, i), Arrays.copyOf(counts, i), observedSize, observedCompileTime));
+        }
+
+        /**
+         * Adds the samples written by {@link InliningCostModel#writeSample}.
+         *
+         * @throws IllegalArgumentException if the input is malformed
+         */
+        public void readSamples(BufferedReader reader) throws IOException {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 2) {
+                    throw new IllegalArgumentException("line " + lineNumber + ": expected <size> <compile time> <node class>=<count>...");
+                }
+                double size = parseWeight(fields[0], lineNumber);
+                double compileTime = parseWeight(fields[1], lineNumber);
+                EconomicMap<String, Integer> histogram = EconomicMap.create();
+                for (int i = 2; i < fields.length; i++) {
+                    int separator = fields[i].lastIndexOf('=');
+                    try {
+                        histogram.put(fields[i].substring(0, separator), Integer.parseInt(fields[i].substring(separator + 1)));
+                    } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                        throw new IllegalArgumentException("line " + lineNumber + ": invalid node count " + fields[i]);
+                    }
+                }
+                addSample(histogram, size, compileTime);
+            }
+        }
+
+        public int getSampleCount() {
+            return samples.size();
+        }
+
+        /**
+         * Fits a model to the samples added so far.
+         *
+         * @param iterations number of coordinate descent sweeps over all node classes
+         */
+        public InliningCostModel fit(int iterations) {
+            int classCount = classNames.size();
+            /* Column-wise view of the samples: for each class, the samples and counts it has. */
+            int[][] columnSamples = new int[classCount][];
+            int[][] columnCounts = new int[classCount][];
+            int[] columnSize = new int[classCount];
+            for (Sample sample : samples) {
+                for (int c : sample.classes) {
+                    columnSize[c]++;
+                }
+            }
+            for (int c = 0; c < classCount; c++) {
+                columnSamples[c] = new int[columnSize[c]];
+                columnCounts[c] = new int[columnSize[c]];
+                columnSize[c] = 0;
+            }
+            long totalNodes = 0;
+            for (int s = 0; s < samples.size(); s++) {
+                Sample sample = samples.get(s);
+                for (int i = 0; i < sample.classes.length; i++) {
+                    int c = sample.classes[i];
+                    columnSamples[c][columnSize[c]] = s;
+                    columnCounts[c][columnSize[c]] = sample.counts[i];
+                    columnSize[c]++;
+                    totalNodes += sample.counts[i];
+                }
+            }
+
+            double[] sizeWeights = solve(columnSamples, columnCounts, true, iterations);
+            double[] compileTimeWeights = solve(columnSamples, columnCounts, false, iterations);
+            normalize(sizeWeights, columnCounts, totalNodes);
+            normalize(compileTimeWeights, columnCounts, totalNodes);
+
+            EconomicMap<String, double[]> weights = EconomicMap.create();
+            for (int c = 0; c < classCount; c++) {
+                weights.put(classNames.get(c), new double[]{sizeWeights[c], compileTimeWeights[c]});
+            }
+            return new InliningCostModel(weights, 1.0, 1.0);
+        }
+
+        /**
+         * Non-negative least squares by cyclic coordinate descent, which needs nothing but the
+         * sparse columns of the histogram matrix.
+         */
+        private double[] solve(int[][] columnSamples, int[][] columnCounts, boolean size, int iterations) {
+            int classCount = columnSamples.length;
+            double observedTotal = 0;
+            long nodesTotal = 0;
+            for (Sample sample : samples) {
+                observedTotal += size ? sample.size : sample.compileTime;
+                for (int count : sample.counts) {
+                    nodesTotal += count;
+                }
+            }
+            /* Start from the uniform solution. */
+            double initial = nodesTotal == 0 ? 0 : observedTotal / nodesTotal;
+            double[] weights = new double[classCount];
+            Arrays.fill(weights, initial);
+            double[] residuals = new double[samples.size()];
+            for (int s = 0; s < residuals.length; s++) {
+                Sample sample = samples.get(s);
+                double predicted = 0;
+                for (int count : sample.counts) {
+                    predicted += count * initial;
+                }
+                residuals[s] = predicted - (size ? sample.size : sample.compileTime);
+            }
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                for (int c = 0; c < classCount; c++) {
+                    int[] rows = columnSamples[c];
+                    int[] counts = columnCounts[c];
+                    double gradient = 0;
+                    double curvature = 0;
+                    for (int i = 0; i < rows.length; i++) {
+                        gradient += counts[i] * residuals[rows[i]];
+                        curvature += (double) counts[i] * counts[i];
+                    }
+                    if (curvature == 0) {
+                        continue;
+                    }
+                    double updated = Math.max(0, weights[c] - gradient / curvature);
+                    double delta = updated - weights[c];
+                    if (delta != 0) {
+                        for (int i = 0; i < rows.length; i++) {
+                            residuals[rows[i]] += counts[i] * delta;
+                        }
+                        weights[c] = updated;
+                    }
+                }
+            }
+            return weights;
+        }
+
+        /**
+         * Scales {@code weights} such that the average node of the training set weighs 1.0.
+         */
+        private static void normalize(double[] weights, int[][] columnCounts, long totalNodes) {
+            double weightedTotal = 0;
+            for (int c = 0; c < weights.length; c++) {
+                for (int count : columnCounts[c]) {
+                    weightedTotal += count * weights[c];
+                }
+            }
+            if (weightedTotal == 0) {
+                Arrays.fill(weights, 1.0);
+                return;
+            }
+            double scale = totalNodes / weightedTotal;
+            for (int c = 0; c < weights.length; c++) {
+                weights[c] *= scale;
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compilation profiles of call targets that outlive the process. A profile records which tier a
+ * call target reached, how often it was compiled, and the size of its last installed code, keyed
+ * by a stable description of the call target. The profiles are stored in and loaded from a file so
+ * that the next start of the same application can use them to prioritize the compilation of call
+ * targets that were hot in the previous run.
+ *
+ * The file is read into and written from heap buffers rather than mapped. A mapping stays alive
+ * until its buffer is garbage collected, and on Windows a file that is still mapped can be neither
+ * replaced nor deleted, which would make {@link #store(Path)} fail after {@link #load(Path)}.
+ *
+ * The file consists of a header with a magic number, a format version and the number of records,
+ * followed by the records. Each record is the UTF-8 encoded key prefixed by its length, followed by
+ * the tier, the number of compilations and the code size as 32-bit integers.
+ */
+public final class PersistentProfileCache {
+
+    static final int MAGIC = 0x47545043;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int RECORD_FIXED_SIZE = 4 * Integer.BYTES;
+
+    public static final class Profile {
+        private final int tier;
+        private final int compilations;
+        private final int codeSize;
+
+        Profile(int tier, int compilations, int codeSize) {
+            this.tier = tier;
+            this.compilations = compilations;
+            this.codeSize = codeSize;
+        }
+
+        /**
+         * The highest tier the call target was compiled in.
+         */
+        public int getTier() {
+            return tier;
+        }
+
+        public int getCompilations() {
+            return compilations;
+        }
+
+        /**
+         * The size of the most recently installed code in bytes.
+         */
+        public int getCodeSize() {
+            return codeSize;
+        }
+
+        Profile merge(int newTier, int newCodeSize) {
+            return new Profile(Math.max(tier, newTier), compilations + 1, newCodeSize);
+        }
+
+        @Override
+        public String toString() {
+            return "Profile[tier=" + tier + ", compilations=" + compilations + ", codeSize=" + codeSize + "]";
+        }
+    }
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    public PersistentProfileCache() {
+    }
+
+    /**
+     * Loads the profiles stored in {@code file}. Returns an empty cache if the file does not exist.
+     * The length fields of the file are validated against its size, so a corrupt file is rejected
+     * as a whole instead of allocating arbitrarily large keys.
+     *
+     * @throws IOException if the file cannot be read or is not a valid profile cache file
+     */
+    public static PersistentProfileCache load(Path file) throws IOException {
+        PersistentProfileCache cache = new PersistentProfileCache();
+        if (!Files.exists(file)) {
+            return cache;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a profile cache file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported profile cache version %d in %s, expected %d", version, file, VERSION));
+            }
+            int count = buffer.getInt();
+            if (count < 0 || (long) count * RECORD_FIXED_SIZE > buffer.remaining()) {
+                throw new IOException(String.format("Corrupt profile cache file %s: invalid record count %d", file, count));
+            }
+            for (int i = 0; i < count; i++) {
+                int keyLength = buffer.getInt();
+                if (keyLength < 0 || keyLength > buffer.remaining()) {
+                    throw new IOException(String.format("Corrupt profile cache file %s: invalid key length %d in record %d", file, keyLength, i));
+                }
+                byte[] key = new byte[keyLength];
+                buffer.get(key);
+                int tier = buffer.getInt();
+                int compilations = buffer.getInt();
+                int codeSize = buffer.getInt();
+                cache.profiles.put(new String(key, StandardCharsets.UTF_8), new Profile(tier, compilations, codeSize));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated profile cache file: " + file, e);
+        }
+        return cache;
+    }
+
+    /**
+     * Writes all profiles to {@code file}. The profiles are first written to a temporary file in the
+     * same directory, which then replaces {@code file}, so that a concurrently starting process
+     * never observes a partially written cache.
+     */
+    public void store(Path file) throws IOException {
+        List<byte[]> keys = new ArrayList<>(profiles.size());
+        List<Profile> values = new ArrayList<>(profiles.size());
+        long size = HEADER_SIZE;
+        for (Map.Entry<String, Profile> entry : profiles.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            keys.add(key);
+            values.add(entry.getValue());
+            size += RECORD_FIXED_SIZE + key.length;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                writeRecord(buffer, keys.get(i), values.get(i));
+            }
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeRecord(ByteBuffer buffer, byte[] key, Profile profile) {
+        buffer.putInt(key.length);
+        buffer.put(key);
+        buffer.putInt(profile.tier);
+        buffer.putInt(profile.compilations);
+        buffer.putInt(profile.codeSize);
+    }
+
+    /**
+     * Records that the call target identified by {@code key} was compiled in {@code tier},
+     * producing {@code codeSize} bytes of code.
+     */
+    public void recordCompilation(String key, int tier, int codeSize) {
+        profiles.merge(key, new Profile(tier, 1, codeSize), (old, unused) -> old.merge(tier, codeSize));
+    }
+
+    /**
+     * Returns the profile for the call target identified by {@code key}, or {@code null} if there is
+     * none.
+     */
+    public Profile lookup(String key) {
+        return profiles.get(key);
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.graalvm.compiler.serviceprovider.ServiceProvider;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+import org.graalvm.options.OptionValues;
+
+import com.oracle.truffle.api.Option;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * An {@link EngineCacheSupport} that persists the {@linkplain PersistentProfileCache compilation
+ * profiles} of an engine's call targets across process restarts. Installed machine code cannot be
+ * reused by a later HotSpot process, so instead of caching the engine itself this implementation
+ * records which call targets were compiled, and in which tier. The profiles of the previous run
+ * are loaded when an engine with the same cache file is created, so the stored file accumulates
+ * the profiles of all runs.
+ *
+ * It is only used if no other engine cache support is available, and stays inactive unless
+ * {@code engine.ProfileCacheFile} is set.
+ */
+@ServiceProvider(EngineCacheSupport.class)
+@Option.Group("engine")
+public final class ProfileCacheEngineCacheSupport implements EngineCacheSupport {
+
+    @Option(help = "Path of a file in which compilation profiles are stored when an engine is closed, and from which they are loaded when an engine is created (default: no file).", //
+                    usageSyntax = "<path>", category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<String> ProfileCacheFile = new OptionKey<>("");
+
+    @Option(help = "Only store the profiles when an engine is closed, but do not load profiles from a previous run (default: false).", //
+                    usageSyntax = "true|false", category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Boolean> ProfileCacheStoreOnly = new OptionKey<>(false);
+
+    private static final Map<EngineData, PersistentProfileCache> caches = new ConcurrentHashMap<>();
+
+    private static final GraalTruffleRuntimeListener recorder = new GraalTruffleRuntimeListener() {
+        @Override
+        public void onCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph, CompilationResultInfo result, int tier) {
+            PersistentProfileCache cache = caches.get(target.engine);
+            if (cache != null) {
+                cache.recordCompilation(keyOf(target), tier, result.getTargetCodeSize());
+            }
+        }
+    };
+
+    private static volatile boolean recorderInstalled;
+
+    /**
+     * Describes {@code target} in a way that is stable across runs of the same application.
+     */
+    static String keyOf(OptimizedCallTarget target) {
+        StringBuilder key = new StringBuilder(target.getName());
+        RootNode rootNode = target.getRootNode();
+        SourceSection section = rootNode.getSourceSection();
+        if (section != null && section.isAvailable()) {
+            key.append('@').append(section.getSource().getName()).append(':').append(section.getStartLine()).append(':').append(section.getStartColumn());
+        }
+        return key.toString();
+    }
+
+    private static Path cacheFile(OptionValues options) {
+        String file = options.get(ProfileCacheFile);
+        return file.isEmpty() ? null : Paths.get(file);
+    }
+
+    @Override
+    public void onEngineCreated(EngineData e) {
+        Path file = cacheFile(e.getEngineOptions());
+        if (file == null) {
+            return;
+        }
+        PersistentProfileCache cache;
+        if (e.getEngineOptions().get(ProfileCacheStoreOnly)) {
+            cache = new PersistentProfileCache();
+        } else {
+            try {
+                cache = PersistentProfileCache.load(file);
+                e.getEngineLogger().fine(String.format("Loaded %d compilation profiles from %s", cache.size(), file));
+            } catch (IOException ioe) {
+                e.getEngineLogger().warning(String.format("Ignoring profile cache %s: %s", file, ioe.getMessage()));
+                cache = new PersistentProfileCache();
+            }
+        }
+        caches.put(e, cache);
+        installRecorder();
+    }
+
+    private static synchronized void installRecorder() {
+        if (!recorderInstalled) {
+            GraalTruffleRuntime.getRuntime().addListener(recorder);
+            recorderInstalled = true;
+        }
+    }
+
+    @Override
+    public void onEnginePatch(EngineData e) {
+        caches.remove(e);
+        onEngineCreated(e);
+    }
+
+    @Override
+    public boolean onEngineClosing(EngineData e) {
+        PersistentProfileCache cache = caches.get(e);
+        Path file = cacheFile(e.getEngineOptions());
+        if (cache != null && file != null) {
+            try {
+                cache.store(file);
+                e.getEngineLogger().fine(String.format("Stored %d compilation profiles to %s", cache.size(), file));
+            } catch (IOException ioe) {
+                e.getEngineLogger().warning(String.format("Failed to store profile cache %s: %s", file, ioe.getMessage()));
+            }
+        }
+        // The engine itself is not retained.
+        return false;
+    }
+
+    @Override
+    public void onEngineClosed(EngineData e) {
+        caches.remove(e);
+    }
+
+    @Override
+    public boolean isStoreEnabled(OptionValues options) {
+        // The profiles are stored, but the engine itself never is.
+        return false;
+    }
+
+    @Override
+    public Object tryLoadingCachedEngine(OptionValues options, Function<String, TruffleLogger> loggerFactory) {
+        // Profiles are loaded per engine in onEngineCreated, there is no cached engine to reuse.
+        return null;
+    }
+
+    @Override
+    public int getPriority() {
+        // Used only if no engine cache support with real code caching is available.
+        return Integer.MIN_VALUE + 1;
+    }
+
+    @Override
+    public OptionDescriptors getEngineOptions() {
+        return new ProfileCacheEngineCacheSupportOptionDescriptors();
+    }
+}
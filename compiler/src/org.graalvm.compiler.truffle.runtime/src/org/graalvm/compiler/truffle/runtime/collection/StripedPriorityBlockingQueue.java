@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime.collection;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An unbounded priority {@link BlockingQueue} that is split into several independently locked
+ * shards, so that producers and consumers running on different threads rarely contend on the same
+ * lock.
+ * <p>
+ * Every thread has a home shard. Elements are added to the home shard of the producing thread.
+ * Consumers first look at the heads of all shards without blocking and take the element with the
+ * highest priority (the smallest element according to the comparator), falling back to stealing
+ * from any shard whose lock is currently available. Ordering is therefore exact within a shard,
+ * and across shards it is exact whenever the consumer is not racing with another thread on the
+ * shard that holds the best element.
+ * <p>
+ * Each shard records its depth, the time consumers spent blocked waiting for work, and the
+ * latency of dequeue operations, see {@link #getStatistics()}.
+ */
+public final class StripedPriorityBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final Comparator<? super E> comparator;
+    private final Shard<E>[] shards;
+    private final AtomicInteger count;
+    private final AtomicInteger waiters;
+    private final ReentrantLock waitLock;
+    private final Condition notEmpty;
+
+    @SuppressWarnings("unchecked")
+    public StripedPriorityBlockingQueue(int shardCount, Comparator<? super E> comparator) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.comparator = comparator;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard<>(comparator);
+        }
+        this.count = new AtomicInteger();
+        this.waiters = new AtomicInteger();
+        this.waitLock = new ReentrantLock();
+        this.notEmpty = waitLock.newCondition();
+    }
+
+    private static final class Shard<E> {
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueue<E> queue;
+        final LongAdder dequeues = new LongAdder();
+        final LongAdder steals = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAdder dequeueNanos = new LongAdder();
+        final AtomicLong maxDequeueNanos = new AtomicLong();
+        /*
+         * Read without holding the lock to pick a shard, so it must be published separately from
+         * the non thread-safe priority queue.
+         */
+        volatile E head;
+
+        Shard(Comparator<? super E> comparator) {
+            this.queue = new PriorityQueue<>(comparator);
+        }
+
+        /** Must be called with the lock held. */
+        void updateHead() {
+            head = queue.peek();
+        }
+
+        void recordDequeue(long startNanos, boolean stolen) {
+            long latency = System.nanoTime() - startNanos;
+            dequeues.increment();
+            if (stolen) {
+                steals.increment();
+            }
+            dequeueNanos.add(latency);
+            long max;
+            while (latency > (max = maxDequeueNanos.get())) {
+                if (maxDequeueNanos.compareAndSet(max, latency)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of one shard.
+     */
+    public static final class ShardStatistics {
+        /** Number of elements in the shard when the snapshot was taken. */
+        public final int depth;
+        /** Number of elements removed from the shard. */
+        public final long dequeues;
+        /** Number of elements removed by a consumer whose home is a different shard. */
+        public final long steals;
+        /** Total time consumers with this home shard spent blocked waiting for an element. */
+        public final long waitNanos;
+        /** Total time spent acquiring the shard lock and removing elements. */
+        public final long dequeueNanos;
+        /** Longest single dequeue operation. */
+        public final long maxDequeueNanos;
+
+        ShardStatistics(int depth, long dequeues, long steals, long waitNanos, long dequeueNanos, long maxDequeueNanos) {
+            this.depth = depth;
+            this.dequeues = dequeues;
+            this.steals = steals;
+            this.waitNanos = waitNanos;
+            this.dequeueNanos = dequeueNanos;
+            this.maxDequeueNanos = maxDequeueNanos;
+        }
+
+        public double averageDequeueNanos() {
+            return dequeues == 0 ? 0 : (double) dequeueNanos / dequeues;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ShardStatistics[depth=%d, dequeues=%d, steals=%d, waitNanos=%d, avgDequeueNanos=%.1f, maxDequeueNanos=%d]",
+                            depth, dequeues, steals, waitNanos, averageDequeueNanos(), maxDequeueNanos);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public List<ShardStatistics> getStatistics() {
+        List<ShardStatistics> result = new ArrayList<>(shards.length);
+        for (Shard<E> shard : shards) {
+            int depth;
+            shard.lock.lock();
+            try {
+                depth = shard.queue.size();
+            } finally {
+                shard.lock.unlock();
+            }
+            result.add(new ShardStatistics(depth, shard.dequeues.sum(), shard.steals.sum(), shard.waitNanos.sum(), shard.dequeueNanos.sum(), shard.maxDequeueNanos.get()));
+        }
+        return result;
+    }
+
+    private int homeIndex() {
+        return (int) (Thread.currentThread().getId() % shards.length);
+    }
+
+    @Override
+    public boolean add(E x) {
+        if (x == null) {
+            throw new NullPointerException();
+        }
+        Shard<E> shard = shards[homeIndex()];
+        shard.lock.lock();
+        try {
+            shard.queue.add(x);
+            shard.updateHead();
+        } finally {
+            shard.lock.unlock();
+        }
+        count.incrementAndGet();
+        if (waiters.get() > 0) {
+            waitLock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(E x) {
+        return add(x);
+    }
+
+    @Override
+    public void put(E x) throws InterruptedException {
+        add(x);
+    }
+
+    @Override
+    public boolean offer(E x, long l, TimeUnit unit) throws InterruptedException {
+        return add(x);
+    }
+
+    @Override
+    public E poll() {
+        if (count.get() == 0) {
+            return null;
+        }
+        final int home = homeIndex();
+        // Take from the shard with the best head first, and steal from uncontended shards next.
+        while (count.get() > 0) {
+            int best = -1;
+            E bestHead = null;
+            for (int i = 0; i < shards.length; i++) {
+                E head = shards[(home + i) % shards.length].head;
+                if (head != null && (bestHead == null || comparator.compare(head, bestHead) < 0)) {
+                    best = (home + i) % shards.length;
+                    bestHead = head;
+                }
+            }
+            if (best >= 0) {
+                E result = pollShard(best, home, true);
+                if (result != null) {
+                    return result;
+                }
+            }
+            for (int i = 0; i < shards.length; i++) {
+                E result = pollShard((home + i) % shards.length, home, false);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    private E pollShard(int index, int home, boolean block) {
+        Shard<E> shard = shards[index];
+        long start = System.nanoTime();
+        if (block) {
+            shard.lock.lock();
+        } else if (!shard.lock.tryLock()) {
+            return null;
+        }
+        E result;
+        try {
+            result = shard.queue.poll();
+            if (result == null) {
+                return null;
+            }
+            shard.updateHead();
+        } finally {
+            shard.lock.unlock();
+        }
+        count.decrementAndGet();
+        shard.recordDequeue(start, index != home);
+        return result;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        E result;
+        while ((result = poll()) == null && nanos > 0) {
+            nanos = awaitNotEmpty(nanos);
+        }
+        return result;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E result;
+        while ((result = poll()) == null) {
+            awaitNotEmpty(Long.MAX_VALUE);
+        }
+        return result;
+    }
+
+    /**
+     * Blocks until the queue might contain an element or the timeout expires, and returns the
+     * remaining timeout.
+     */
+    private long awaitNotEmpty(long timeoutNanos) throws InterruptedException {
+        long nanos = timeoutNanos;
+        long start = System.nanoTime();
+        waitLock.lockInterruptibly();
+        waiters.incrementAndGet();
+        try {
+            // Producers increment the count before reading the number of waiters.
+            while (count.get() == 0 && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            waiters.decrementAndGet();
+            waitLock.unlock();
+            shards[homeIndex()].waitNanos.add(System.nanoTime() - start);
+        }
+        return nanos;
+    }
+
+    @Override
+    public E peek() {
+        E best = null;
+        for (Shard<E> shard : shards) {
+            E head = shard.head;
+            if (head != null && (best == null || comparator.compare(head, best) < 0)) {
+                best = head;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> collection) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                count.addAndGet(-shard.queue.size());
+                shard.queue.clear();
+                shard.updateHead();
+                // Note: no need to awake waiting threads, because no item was added.
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return Math.max(count.get(), 0);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        List<E> result = new ArrayList<>();
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                result.addAll(shard.queue);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return result.iterator();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+}
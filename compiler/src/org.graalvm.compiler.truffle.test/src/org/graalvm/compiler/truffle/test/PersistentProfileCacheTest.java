@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.compiler.truffle.runtime.PersistentProfileCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentProfileCacheTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path dir = Files.createTempDirectory(PersistentProfileCacheTest.class.getSimpleName());
+        Path file = dir.resolve("profiles.bin");
+        try {
+            PersistentProfileCache cache = PersistentProfileCache.load(file);
+            Assert.assertEquals(0, cache.size());
+            cache.recordCompilation("fib@fib.sl:1:1", 1, 128);
+            cache.recordCompilation("fib@fib.sl:1:1", 2, 512);
+            cache.recordCompilation("main@fib.sl:10:1", 1, 64);
+            cache.recordCompilation("\u00e4\u00f6\u00fc@unicode.js:3:7", 2, 1024);
+            cache.store(file);
+
+            PersistentProfileCache loaded = PersistentProfileCache.load(file);
+            Assert.assertEquals(3, loaded.size());
+            PersistentProfileCache.Profile fib = loaded.lookup("fib@fib.sl:1:1");
+            Assert.assertEquals(2, fib.getTier());
+            Assert.assertEquals(2, fib.getCompilations());
+            Assert.assertEquals(512, fib.getCodeSize());
+            Assert.assertEquals(1, loaded.lookup("main@fib.sl:10:1").getTier());
+            Assert.assertEquals(1024, loaded.lookup("\u00e4\u00f6\u00fc@unicode.js:3:7").getCodeSize());
+            Assert.assertNull(loaded.lookup("unknown"));
+
+            // Storing again replaces the previous contents.
+            loaded.recordCompilation("other", 1, 8);
+            loaded.store(file);
+            Assert.assertEquals(4, PersistentProfileCache.load(file).size());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        Path file = Files.createTempFile(PersistentProfileCacheTest.class.getSimpleName(), ".bin");
+        try {
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            try {
+                PersistentProfileCache.load(file);
+                Assert.fail("expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCorruptLength() throws IOException {
+        Path file = Files.createTempFile(PersistentProfileCacheTest.class.getSimpleName(), ".bin");
+        try {
+            PersistentProfileCache cache = new PersistentProfileCache();
+            cache.recordCompilation("fib@fib.sl:1:1", 1, 128);
+            cache.store(file);
+
+            // Overwrite the key length of the only record with a huge value.
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer.wrap(bytes).putInt(3 * Integer.BYTES, Integer.MAX_VALUE);
+            Files.write(file, bytes);
+            try {
+                PersistentProfileCache.load(file);
+                Assert.fail("expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+
+            // A corrupt file is replaced by the next store.
+            cache.store(file);
+            Assert.assertEquals(1, PersistentProfileCache.load(file).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.compiler.truffle.runtime.collection.StripedPriorityBlockingQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedPriorityBlockingQueueTest {
+
+    @Test
+    public void priorityOrder() {
+        StripedPriorityBlockingQueue<Integer> queue = new StripedPriorityBlockingQueue<>(4, Comparator.reverseOrder());
+        for (int i = 0; i < 100; i++) {
+            queue.add((i * 37) % 100);
+        }
+        Assert.assertEquals(100, queue.size());
+        Assert.assertEquals(Integer.valueOf(99), queue.peek());
+        for (int i = 99; i >= 0; i--) {
+            Assert.assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void pollTimeout() throws InterruptedException {
+        StripedPriorityBlockingQueue<Integer> queue = new StripedPriorityBlockingQueue<>(2, Comparator.naturalOrder());
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        queue.add(1);
+        Assert.assertEquals(Integer.valueOf(1), queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void producersAndConsumers() throws InterruptedException {
+        final int producers = 4;
+        final int consumers = 8;
+        final int perProducer = 10000;
+        final StripedPriorityBlockingQueue<Integer> queue = new StripedPriorityBlockingQueue<>(4, Comparator.naturalOrder());
+        final AtomicLong sum = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        int value = queue.take();
+                        if (value < 0) {
+                            return;
+                        }
+                        sum.addAndGet(value);
+                    }
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        }
+        List<Thread> producerThreads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            producerThreads.add(new Thread(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    queue.add(i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        producerThreads.forEach(Thread::start);
+        for (Thread thread : producerThreads) {
+            thread.join();
+        }
+        while (!queue.isEmpty()) {
+            Thread.yield();
+        }
+        for (int c = 0; c < consumers; c++) {
+            queue.add(-1);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+        Assert.assertEquals(0, queue.size());
+        long dequeues = 0;
+        for (StripedPriorityBlockingQueue.ShardStatistics statistics : queue.getStatistics()) {
+            Assert.assertEquals(0, statistics.depth);
+            dequeues += statistics.dequeues;
+        }
+        Assert.assertEquals(producers * perProducer + consumers, dequeues);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import org.graalvm.compiler.lir.LIRInstruction.OperandMode;
+import org.graalvm.compiler.lir.alloc.lsra.Interval;
+import org.graalvm.compiler.lir.alloc.lsra.Interval.RegisterPriority;
+import org.graalvm.compiler.lir.alloc.lsra.IntervalArena;
+import org.graalvm.compiler.lir.alloc.lsra.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the object representation of linear scan live ranges and use positions, that is linked
+ * {@link Range}s and an {@link Interval.UsePosList} per interval, with the packed
+ * {@link IntervalArena}. Each invocation models the interval work of one method: building the
+ * ranges and use positions of all intervals in reverse order as lifetime analysis does, splitting
+ * every interval once and querying coverage. Run with {@code -prof gc} to see the allocated bytes
+ * per method next to the time per method.
+ */
+public class IntervalStoreBenchmark extends BenchmarkBase {
+
+    private static final int RANGES_PER_INTERVAL = 8;
+    private static final int OPS_PER_RANGE = 8;
+
+    @State(Scope.Thread)
+    public static class MethodState {
+        /**
+         * Number of intervals in the modeled method.
+         */
+        @Param({"100", "10000"}) public int intervals;
+
+        IntervalArena arena;
+        int[] firstRange;
+        int[] firstUse;
+
+        @Setup
+        public void setup() {
+            arena = new IntervalArena();
+            firstRange = new int[intervals];
+            firstUse = new int[intervals];
+        }
+    }
+
+    /**
+     * Same layout and linking as {@link Range}, whose constructor is not accessible from here.
+     */
+    private static final class LinkedRange {
+        int from;
+        int to;
+        LinkedRange next;
+
+        LinkedRange(int from, int to, LinkedRange next) {
+            this.from = from;
+            this.to = to;
+            this.next = next;
+        }
+    }
+
+    /**
+     * The range and use position storage of an {@link Interval}: a linked list of ranges, built
+     * and split like {@link Interval#addRange} and {@code Interval.split} do, and the actual
+     * {@link Interval.UsePosList}.
+     */
+    private static final class ObjectIntervalStore {
+        LinkedRange first;
+        Interval.UsePosList usePosList = new Interval.UsePosList(4);
+
+        void addRange(int from, int to) {
+            if (first != null && first.from <= to) {
+                first.from = Math.min(from, first.from);
+                first.to = Math.max(to, first.to);
+            } else {
+                first = new LinkedRange(from, to, first);
+            }
+        }
+
+        ObjectIntervalStore split(int splitPos) {
+            ObjectIntervalStore result = new ObjectIntervalStore();
+            LinkedRange prev = null;
+            LinkedRange cur = first;
+            while (cur.to <= splitPos) {
+                prev = cur;
+                cur = cur.next;
+            }
+            if (cur.from < splitPos) {
+                result.first = new LinkedRange(splitPos, cur.to, cur.next);
+                cur.to = splitPos;
+                cur.next = null;
+            } else {
+                result.first = cur;
+                prev.next = null;
+            }
+            result.usePosList = usePosList.splitAt(splitPos);
+            return result;
+        }
+
+        boolean covers(int opId) {
+            LinkedRange cur = first;
+            while (cur != null && cur.to < opId) {
+                cur = cur.next;
+            }
+            return cur != null && cur.from <= opId && opId <= cur.to;
+        }
+    }
+
+    private static int rangeStart(int interval, int range) {
+        return (interval + range * RANGES_PER_INTERVAL) * OPS_PER_RANGE;
+    }
+
+    @Benchmark
+    public int objects(MethodState state) {
+        ObjectIntervalStore[] intervals = new ObjectIntervalStore[state.intervals];
+        for (int i = 0; i < intervals.length; i++) {
+            ObjectIntervalStore interval = new ObjectIntervalStore();
+            for (int r = RANGES_PER_INTERVAL - 1; r >= 0; r--) {
+                int from = rangeStart(i, r);
+                interval.usePosList.add(from + 2, RegisterPriority.MustHaveRegister);
+                interval.addRange(from, from + 4);
+            }
+            intervals[i] = interval;
+        }
+        int covered = 0;
+        for (int i = 0; i < intervals.length; i++) {
+            ObjectIntervalStore child = intervals[i].split(rangeStart(i, RANGES_PER_INTERVAL / 2) + 1);
+            if (child.usePosList.size() == 0) {
+                covered--;
+            }
+            if (child.covers(rangeStart(i, RANGES_PER_INTERVAL - 1) + 2)) {
+                covered++;
+            }
+        }
+        return covered;
+    }
+
+    @Benchmark
+    public int arena(MethodState state) {
+        IntervalArena arena = state.arena;
+        arena.reset();
+        int[] firstRange = state.firstRange;
+        int[] firstUse = state.firstUse;
+        for (int i = 0; i < firstRange.length; i++) {
+            int range = IntervalArena.END;
+            int use = IntervalArena.END;
+            for (int r = RANGES_PER_INTERVAL - 1; r >= 0; r--) {
+                int from = rangeStart(i, r);
+                use = arena.addUsePos(use, from + 2, RegisterPriority.MustHaveRegister);
+                range = arena.addRange(range, from, from + 4);
+            }
+            firstRange[i] = range;
+            firstUse[i] = use;
+        }
+        int covered = 0;
+        for (int i = 0; i < firstRange.length; i++) {
+            int splitPos = rangeStart(i, RANGES_PER_INTERVAL / 2) + 1;
+            int child = arena.splitRanges(firstRange[i], splitPos);
+            int childUse = arena.splitUsePositions(firstUse[i], splitPos);
+            if (arena.nextUsage(childUse, RegisterPriority.MustHaveRegister, splitPos) == Integer.MAX_VALUE) {
+                covered--;
+            }
+            if (arena.covers(child, rangeStart(i, RANGES_PER_INTERVAL - 1) + 2, OperandMode.USE)) {
+                covered++;
+            }
+        }
+        return covered;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.util.json.JSONFormatter;
+import org.graalvm.util.json.JSONPullParser;
+import org.graalvm.util.json.JSONStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares writing an optimization log record with {@link JSONFormatter}, which needs the record
+ * as maps and lists, with the streaming {@link JSONStreamWriter}, which writes the same output
+ * directly from the fields of the record. Run with {@code -prof gc} to compare the allocated bytes
+ * per record.
+ */
+public class JSONWriterBenchmark extends BenchmarkBase {
+
+    /**
+     * A writer which discards its output, so that only the cost of producing it is measured.
+     */
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RecordState {
+        /**
+         * Number of optimizations in the record.
+         */
+        @Param({"10", "1000"}) public int optimizations;
+
+        String[] names;
+        int[] bcis;
+        ByteBuffer buffer;
+        String formatted;
+
+        @Setup
+        public void setup() throws IOException {
+            names = new String[optimizations];
+            bcis = new int[optimizations];
+            for (int i = 0; i < optimizations; i++) {
+                names[i] = "Canonicalizer\tCanonicalReplacement" + (i % 17);
+                bcis[i] = i * 3;
+            }
+            buffer = ByteBuffer.allocateDirect(256 * optimizations + 1024);
+            formatted = JSONFormatter.formatJSON(createMap(this));
+        }
+    }
+
+    private static EconomicMap<String, Object> createMap(RecordState state) {
+        List<Object> optimizations = new ArrayList<>(state.optimizations);
+        for (int i = 0; i < state.optimizations; i++) {
+            EconomicMap<String, Object> position = EconomicMap.create();
+            position.put("java.lang.String.hashCode()", state.bcis[i]);
+            EconomicMap<String, Object> optimization = EconomicMap.create();
+            optimization.put("optimizationName", state.names[i]);
+            optimization.put("position", position);
+            optimization.put("replacedNodeClass", "Add");
+            optimization.put("canonicalNodeClass", null);
+            optimizations.add(optimization);
+        }
+        EconomicMap<String, Object> record = EconomicMap.create();
+        record.put("compilationMethodName", "java.lang.String.hashCode()");
+        record.put("compilationId", 42);
+        record.put("optimizations", optimizations);
+        return record;
+    }
+
+    private static void writeRecord(JSONStreamWriter json, RecordState state) throws IOException {
+        json.beginObject();
+        json.name("compilationMethodName").value("java.lang.String.hashCode()");
+        json.name("compilationId").value(42);
+        json.name("optimizations").beginArray();
+        for (int i = 0; i < state.optimizations; i++) {
+            json.beginObject();
+            json.name("optimizationName").value(state.names[i]);
+            json.name("position").beginObject().name("java.lang.String.hashCode()").value(state.bcis[i]).endObject();
+            json.name("replacedNodeClass").value("Add");
+            json.name("canonicalNodeClass").nullValue();
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    @Benchmark
+    public String formatter(RecordState state) {
+        return JSONFormatter.formatJSON(createMap(state));
+    }
+
+    @Benchmark
+    public void streamToWriter(RecordState state) throws IOException {
+        try (JSONStreamWriter json = JSONStreamWriter.of(new NullWriter())) {
+            writeRecord(json, state);
+        }
+    }
+
+    @Benchmark
+    public int streamToByteBuffer(RecordState state) throws IOException {
+        state.buffer.clear();
+        JSONStreamWriter json = JSONStreamWriter.of(state.buffer);
+        writeRecord(json, state);
+        json.close();
+        return state.buffer.position();
+    }
+
+    @Benchmark
+    public void pullParse(RecordState state, Blackhole blackhole) throws IOException {
+        JSONPullParser parser = new JSONPullParser(state.formatted);
+        JSONPullParser.Event event;
+        while ((event = parser.next()) != JSONPullParser.Event.END_DOCUMENT) {
+            blackhole.consume(event);
+        }
+    }
+}
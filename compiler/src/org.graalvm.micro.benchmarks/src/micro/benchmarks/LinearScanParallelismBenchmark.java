@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.graalvm.compiler.lir.alloc.lsra.LinearScanParallelism;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the per-block dispatch of the parallel linear scan phases against a serial loop over
+ * the same blocks. The work per block models location assignment: every instruction of a block
+ * looks up the location of a few operands. The block count at which {@code parallel} overtakes
+ * {@code serial} is a lower bound for {@code -Dgraal.LSRAParallelMinBlocks}.
+ */
+public class LinearScanParallelismBenchmark extends BenchmarkBase {
+
+    private static final int OPERANDS_PER_INSTRUCTION = 3;
+
+    @State(Scope.Benchmark)
+    public static class BlocksState {
+        @Param({"64", "512", "4096"}) public int blocks;
+
+        @Param({"8", "64"}) public int instructionsPerBlock;
+
+        int[][] operands;
+        int[] locations;
+        int[] results;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(23);
+            int variables = blocks * instructionsPerBlock;
+            locations = new int[variables];
+            for (int v = 0; v < variables; v++) {
+                locations[v] = random.nextInt(64);
+            }
+            operands = new int[blocks][instructionsPerBlock * OPERANDS_PER_INSTRUCTION];
+            for (int b = 0; b < blocks; b++) {
+                for (int i = 0; i < operands[b].length; i++) {
+                    operands[b][i] = random.nextInt(variables);
+                }
+            }
+            results = new int[blocks];
+        }
+
+        void assign(int block) {
+            int sum = 0;
+            for (int operand : operands[block]) {
+                sum += locations[operand];
+            }
+            results[block] = sum;
+        }
+    }
+
+    @Benchmark
+    public int[] serial(BlocksState state) {
+        for (int b = 0; b < state.blocks; b++) {
+            state.assign(b);
+        }
+        return state.results;
+    }
+
+    @Benchmark
+    public int[] parallel(BlocksState state) {
+        LinearScanParallelism.forEachIndex(state.blocks, state::assign);
+        return state.results;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.graalvm.compiler.lir.util.DenseIndexSet;
+import org.graalvm.compiler.lir.util.IndexSet;
+import org.graalvm.compiler.lir.util.SparseBitSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the dense and sparse {@link IndexSet} representations in a backward liveness analysis
+ * of a large method. The modeled method is a chain of blocks with a loop back edge; each block
+ * defines a contiguous range of variables and uses a few variables defined in earlier blocks.
+ * Run with {@code -prof gc} to compare the memory allocated for the per-block sets.
+ */
+public class LivenessSetBenchmark extends BenchmarkBase {
+
+    private static final int USES_PER_BLOCK = 8;
+
+    @State(Scope.Thread)
+    public static class MethodState {
+        @Param({"1000", "10000"}) public int blocks;
+
+        @Param({"10", "50"}) public int variablesPerBlock;
+
+        @Param({"dense", "sparse"}) public String representation;
+
+        int[][] uses;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(17);
+            uses = new int[blocks][USES_PER_BLOCK];
+            for (int b = 0; b < blocks; b++) {
+                for (int u = 0; u < USES_PER_BLOCK; u++) {
+                    int definingBlock = random.nextInt(b + 1);
+                    uses[b][u] = definingBlock * variablesPerBlock + random.nextInt(variablesPerBlock);
+                }
+            }
+        }
+
+        IndexSet newSet() {
+            return representation.equals("sparse") ? new SparseBitSet() : new DenseIndexSet();
+        }
+    }
+
+    @Benchmark
+    public int liveness(MethodState state) {
+        int blocks = state.blocks;
+        IndexSet[] gen = new IndexSet[blocks];
+        IndexSet[] kill = new IndexSet[blocks];
+        IndexSet[] liveIn = new IndexSet[blocks];
+        for (int b = 0; b < blocks; b++) {
+            gen[b] = state.newSet();
+            kill[b] = state.newSet();
+            for (int v = b * state.variablesPerBlock; v < (b + 1) * state.variablesPerBlock; v++) {
+                kill[b].set(v);
+            }
+            for (int use : state.uses[b]) {
+                if (!kill[b].get(use)) {
+                    gen[b].set(use);
+                }
+            }
+            liveIn[b] = gen[b].copy();
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = blocks - 1; b >= 0; b--) {
+                // the successor of the last block is the loop header
+                IndexSet liveOut = liveIn[b == blocks - 1 ? 0 : b + 1].copy();
+                liveOut.andNot(kill[b]);
+                liveOut.or(gen[b]);
+                if (liveOut.cardinality() != liveIn[b].cardinality()) {
+                    liveIn[b] = liveOut;
+                    changed = true;
+                }
+            }
+        }
+        int total = 0;
+        for (IndexSet set : liveIn) {
+            total += set.cardinality();
+        }
+        return total;
+    }
+}
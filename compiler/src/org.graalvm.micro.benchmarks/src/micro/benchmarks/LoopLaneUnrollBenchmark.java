@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Numeric kernels of each loop shape unrolled by LoopLaneUnrollPhase. Compare runs with and without
+ * {@code -Dgraal.LoopLaneUnroll=true}.
+ */
+public class LoopLaneUnrollBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class ArrayState {
+        @Param({"64", "4096", "262144"}) public int length;
+
+        int[] intsA;
+        int[] intsB;
+        int[] intsC;
+        float[] floatsA;
+        float[] floatsB;
+        byte[] bytes;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            intsA = new int[length];
+            intsB = new int[length];
+            intsC = new int[length];
+            floatsA = new float[length];
+            floatsB = new float[length];
+            bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                intsA[i] = random.nextInt();
+                intsB[i] = random.nextInt();
+                floatsA[i] = random.nextFloat();
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] addInts(ArrayState state) {
+        int[] a = state.intsA;
+        int[] b = state.intsB;
+        int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] scaleFloats(ArrayState state) {
+        float[] a = state.floatsA;
+        float[] b = state.floatsB;
+        for (int i = 0; i < b.length; i++) {
+            b[i] = a[i] * 1.5f;
+        }
+        return b;
+    }
+
+    @Benchmark
+    public int sumInts(ArrayState state) {
+        int[] a = state.intsA;
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public byte[] fillBytes(ArrayState state) {
+        byte[] a = state.bytes;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = 7;
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int[] copyInts(ArrayState state) {
+        int[] a = state.intsA;
+        int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i];
+        }
+        return c;
+    }
+}
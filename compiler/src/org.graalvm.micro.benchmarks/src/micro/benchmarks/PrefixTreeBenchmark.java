@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.graalvm.collections.LockFreePrefixTree;
+import org.graalvm.collections.SeqLockPrefixTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compares the throughput of {@link SeqLockPrefixTree} and {@link LockFreePrefixTree} when many
+ * threads record keys in the same tree, as done when profiling call paths.
+ */
+public class PrefixTreeBenchmark extends BenchmarkBase {
+
+    private static final int DEPTH = 6;
+
+    @State(Scope.Benchmark)
+    public static class TreeState {
+        /**
+         * Number of distinct keys per level. Small values produce hot, mostly read-only paths,
+         * large values cause frequent child insertions.
+         */
+        @Param({"4", "64", "1024"}) public int width;
+
+        SeqLockPrefixTree seqLockTree;
+        LockFreePrefixTree lockFreeTree;
+
+        @Setup
+        public void setup() {
+            seqLockTree = new SeqLockPrefixTree();
+            lockFreeTree = new LockFreePrefixTree();
+        }
+    }
+
+    private static long seqLockPath(TreeState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SeqLockPrefixTree.Node node = state.seqLockTree.root();
+        for (int i = 0; i < DEPTH; i++) {
+            node = node.at(random.nextInt(state.width) + 1);
+        }
+        return node.incValue();
+    }
+
+    private static long lockFreePath(TreeState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LockFreePrefixTree.Node node = state.lockFreeTree.root();
+        for (int i = 0; i < DEPTH; i++) {
+            node = node.at(random.nextInt(state.width) + 1);
+        }
+        return node.incValue();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long seqLock1(TreeState state) {
+        return seqLockPath(state);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long lockFree1(TreeState state) {
+        return lockFreePath(state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long seqLock8(TreeState state) {
+        return seqLockPath(state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long lockFree8(TreeState state) {
+        return lockFreePath(state);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public long seqLock32(TreeState state) {
+        return seqLockPath(state);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public long lockFree32(TreeState state) {
+        return lockFreePath(state);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long seqLock64(TreeState state) {
+        return seqLockPath(state);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long lockFree64(TreeState state) {
+        return lockFreePath(state);
+    }
+}
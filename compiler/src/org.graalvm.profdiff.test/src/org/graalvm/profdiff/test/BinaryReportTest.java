@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.profdiff.core.ExperimentId;
+import org.graalvm.profdiff.report.BinaryReportFormat;
+import org.graalvm.profdiff.report.BinaryReportReader;
+import org.graalvm.profdiff.report.BinaryReportWriter;
+import org.junit.Test;
+
+public class BinaryReportTest {
+    private static final int UNITS = 1000;
+
+    private static byte[] writeReport(int blockRows) throws IOException {
+        EconomicMap<String, Object> metadata = EconomicMap.create();
+        metadata.put("build", "nightly");
+        metadata.put("timestamp", 42L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryReportWriter writer = new BinaryReportWriter(out, metadata, blockRows)) {
+            for (int i = 0; i < UNITS; i++) {
+                ExperimentId experimentId = i % 2 == 0 ? ExperimentId.ONE : ExperimentId.TWO;
+                int unit = writer.writeCompilationUnit(experimentId, "method" + (i / 2) + "()", Integer.toString(i), i % 10 == 0, 1000L * i);
+                assertEquals(i, unit);
+                writer.writeInliningDecision(unit, 0, "method" + (i / 2) + "()", -1, true, null);
+                writer.writeInliningDecision(unit, 1, "callee" + (i % 7) + "()", i % 13, i % 3 != 0, i % 3 != 0 ? "trivial" : "too large");
+                writer.writeOptimizationDelta(unit, experimentId, "LoopTransformation", "PartialUnroll", -i);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        for (int blockRows : new int[]{1, 7, BinaryReportWriter.DEFAULT_BLOCK_ROWS}) {
+            List<String> units = new ArrayList<>();
+            int[] counts = new int[2];
+            try (BinaryReportReader reader = new BinaryReportReader(new ByteArrayInputStream(writeReport(blockRows)))) {
+                assertEquals("nightly", reader.getMetadata().get("build"));
+                assertEquals(42L, reader.getMetadata().get("timestamp"));
+                reader.accept(new BinaryReportReader.Visitor() {
+                    @Override
+                    public void compilationUnit(int compilationUnit, ExperimentId experimentId, String methodName, String compilationId, boolean hot, long period) {
+                        assertEquals(units.size(), compilationUnit);
+                        assertEquals(compilationUnit % 2 == 0 ? ExperimentId.ONE : ExperimentId.TWO, experimentId);
+                        assertEquals(compilationUnit % 10 == 0, hot);
+                        assertEquals(1000L * compilationUnit, period);
+                        units.add(methodName + "#" + compilationId);
+                    }
+
+                    @Override
+                    public void inliningDecision(int compilationUnit, int depth, String callee, int bci, boolean inlined, String reason) {
+                        assertTrue(compilationUnit < units.size());
+                        if (depth == 0) {
+                            assertEquals(-1, bci);
+                            assertNull(reason);
+                        } else {
+                            assertEquals("callee" + (compilationUnit % 7) + "()", callee);
+                            assertEquals(compilationUnit % 13, bci);
+                            assertEquals(compilationUnit % 3 != 0, inlined);
+                        }
+                        ++counts[0];
+                    }
+
+                    @Override
+                    public void optimizationDelta(int compilationUnit, ExperimentId experimentId, String optimizationName, String eventName, int bci) {
+                        assertTrue(compilationUnit < units.size());
+                        assertEquals("PartialUnroll", eventName);
+                        assertEquals(-compilationUnit, bci);
+                        ++counts[1];
+                    }
+                });
+            }
+            assertEquals(UNITS, units.size());
+            assertEquals("method1()#3", units.get(3));
+            assertEquals(2 * UNITS, counts[0]);
+            assertEquals(UNITS, counts[1]);
+        }
+    }
+
+    @Test
+    public void skipTables() throws IOException {
+        int[] deltas = new int[1];
+        try (BinaryReportReader reader = new BinaryReportReader(new ByteArrayInputStream(writeReport(64)))) {
+            reader.accept(new BinaryReportReader.Visitor() {
+                @Override
+                public boolean visits(BinaryReportFormat.Table table) {
+                    return table == BinaryReportFormat.Table.OptimizationDeltas;
+                }
+
+                @Override
+                public void compilationUnit(int compilationUnit, ExperimentId experimentId, String methodName, String compilationId, boolean hot, long period) {
+                    fail("compilation units should be skipped");
+                }
+
+                @Override
+                public void optimizationDelta(int compilationUnit, ExperimentId experimentId, String optimizationName, String eventName, int bci) {
+                    assertEquals(-compilationUnit, bci);
+                    ++deltas[0];
+                }
+            });
+        }
+        assertEquals(UNITS, deltas[0]);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.profdiff.diff.ApproximateTreeMatching;
+import org.graalvm.profdiff.diff.HashingTreeMatcher;
+import org.junit.Test;
+
+public class HashingTreeMatcherTest {
+    private static HashingTreeMatcher<TreeMatchingCorpus.Node> createMatcher(int lookahead) {
+        return new HashingTreeMatcher<>(TreeMatchingCorpus.EDIT_POLICY, TreeMatchingCorpus::nodeHash, lookahead);
+    }
+
+    private static long size(TreeMatchingCorpus.Node root) {
+        long[] size = new long[1];
+        root.forEach(node -> ++size[0]);
+        return size[0];
+    }
+
+    /**
+     * Counts the nodes of the first or second tree covered by the operations of a matching.
+     */
+    private static long coveredNodes(ApproximateTreeMatching<TreeMatchingCorpus.Node> matching, boolean first) {
+        long covered = 0;
+        for (ApproximateTreeMatching.Operation<TreeMatchingCorpus.Node> operation : matching.getOperations()) {
+            TreeMatchingCorpus.Node node = first ? operation.getNode1() : operation.getNode2();
+            if (node == null) {
+                continue;
+            }
+            switch (operation.getKind()) {
+                case Identity:
+                case Delete:
+                case Insert:
+                    covered += size(node);
+                    break;
+                default:
+                    ++covered;
+                    break;
+            }
+        }
+        return covered;
+    }
+
+    @Test
+    public void identicalTrees() {
+        for (TreeMatchingCorpus.Entry entry : TreeMatchingCorpus.generate(1)) {
+            ApproximateTreeMatching<TreeMatchingCorpus.Node> matching = createMatcher(0).match(entry.tree1, TreeMatchingCorpus.copy(entry.tree1));
+            assertTrue(entry.name, matching.isIdentity());
+            assertEquals(entry.name, 0, matching.getEditCount());
+        }
+    }
+
+    @Test
+    public void matchingCoversBothTrees() {
+        for (int lookahead : new int[]{0, 1, HashingTreeMatcher.DEFAULT_LOOKAHEAD, 64}) {
+            for (TreeMatchingCorpus.Entry entry : TreeMatchingCorpus.generate(1)) {
+                ApproximateTreeMatching<TreeMatchingCorpus.Node> matching = createMatcher(lookahead).match(entry.tree1, entry.tree2);
+                assertFalse(entry.name, matching.isIdentity());
+                assertEquals(entry.name, size(entry.tree1), coveredNodes(matching, true));
+                assertEquals(entry.name, size(entry.tree2), coveredNodes(matching, false));
+            }
+        }
+    }
+
+    @Test
+    public void leafMutationsAreLocal() {
+        for (TreeMatchingCorpus.Entry entry : TreeMatchingCorpus.generate(2)) {
+            if (entry.name.equals("bushy")) {
+                // labels recur among siblings, so the greedy alignment is not minimal
+                continue;
+            }
+            ApproximateTreeMatching<TreeMatchingCorpus.Node> matching = createMatcher(HashingTreeMatcher.DEFAULT_LOOKAHEAD).match(entry.tree1, entry.tree2);
+            assertTrue(entry.name, matching.getEditCount() <= 2L * entry.mutations);
+        }
+    }
+
+    @Test
+    public void deepTreesDoNotOverflowTheStack() {
+        int depth = 200_000;
+        TreeMatchingCorpus.Node tree1 = TreeMatchingCorpus.deep(depth);
+        TreeMatchingCorpus.Node tree2 = TreeMatchingCorpus.deep(depth);
+        TreeMatchingCorpus.Node deepest = tree2;
+        while (!deepest.getChildren().isEmpty()) {
+            deepest = deepest.getChildren().get(deepest.getChildren().size() - 1);
+        }
+        TreeMatchingCorpus.Node inserted = new TreeMatchingCorpus.Node("inserted");
+        deepest.addChild(inserted);
+        ApproximateTreeMatching<TreeMatchingCorpus.Node> matching = createMatcher(HashingTreeMatcher.DEFAULT_LOOKAHEAD).match(tree1, tree2);
+        assertEquals(1, matching.getEditCount());
+        ApproximateTreeMatching.Operation<TreeMatchingCorpus.Node> last = matching.getOperations().get(matching.getOperations().size() - 1);
+        assertEquals(ApproximateTreeMatching.Kind.Insert, last.getKind());
+        assertEquals(inserted, last.getNode2());
+        assertEquals(depth, last.getDepth());
+    }
+}
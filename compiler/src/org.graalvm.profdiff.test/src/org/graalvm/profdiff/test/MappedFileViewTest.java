@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graalvm.profdiff.parser.FileView;
+import org.junit.Test;
+
+public class MappedFileViewTest {
+    private static File createLog(int lines) throws IOException {
+        File file = File.createTempFile("mapped-file-view", ".txt");
+        file.deleteOnExit();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("{\"line\":").append(i).append(",\"name\":\"cafe\"}");
+            sb.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void sequentialLinesMatchBufferedView() throws IOException {
+        File file = createLog(1000);
+        List<String> expected = new ArrayList<>();
+        FileView.fromFile(file).forEachLine((line, lineView) -> expected.add(line));
+        List<String> actual = new ArrayList<>();
+        FileView.fromFileMapped(file).forEachLine((line, lineView) -> actual.add(line));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void parallelLinesAreRereadOnDemand() throws IOException {
+        // large enough to be split into several chunks
+        File file = createLog(100_000);
+        Map<String, FileView> views = new ConcurrentHashMap<>();
+        FileView.fromFileMapped(file).forEachLineInParallel(views::put);
+        assertEquals(100_000, views.size());
+        List<String> lines = new ArrayList<>(views.keySet());
+        Collections.shuffle(lines);
+        for (String line : lines.subList(0, 100)) {
+            assertEquals(line, views.get(line).readFully());
+        }
+    }
+
+    @Test
+    public void readFully() throws IOException {
+        File file = createLog(10);
+        assertEquals(FileView.fromFile(file).readFully(), FileView.fromFileMapped(file).readFully());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.graalvm.profdiff.core.TreeNode;
+import org.graalvm.profdiff.core.Writer;
+import org.graalvm.profdiff.diff.TreeEditPolicy;
+
+/**
+ * A corpus of generated tree pairs for tree matchers. The trees mimic the shapes of large
+ * optimization and inlining trees: wide flat phases with many optimizations, deep inlining chains
+ * and bushy trees. The second tree of a pair is a copy of the first one with a known number of
+ * mutations, each of which deletes, inserts or relabels a single leaf. The corpus is deterministic.
+ */
+public final class TreeMatchingCorpus {
+    private TreeMatchingCorpus() {
+    }
+
+    /**
+     * A labeled node of a generated tree.
+     */
+    public static final class Node extends TreeNode<Node> {
+        public Node(String name) {
+            super(name);
+        }
+
+        @Override
+        public void writeHead(Writer writer) {
+            writer.writeln(getName());
+        }
+    }
+
+    /**
+     * Compares nodes by name.
+     */
+    public static final TreeEditPolicy<Node> EDIT_POLICY = new TreeEditPolicy<>() {
+        @Override
+        public boolean nodesEqual(Node node1, Node node2) {
+            return node1.getName().equals(node2.getName());
+        }
+    };
+
+    /**
+     * Hashes nodes consistently with {@link #EDIT_POLICY}.
+     */
+    public static int nodeHash(Node node) {
+        return node.getName().hashCode();
+    }
+
+    /**
+     * A pair of trees with the number of mutations that transform the first tree to the second.
+     */
+    public static final class Entry {
+        public final String name;
+        public final Node tree1;
+        public final Node tree2;
+        public final int mutations;
+
+        Entry(String name, Node tree1, Node tree2, int mutations) {
+            this.name = name;
+            this.tree1 = tree1;
+            this.tree2 = tree2;
+            this.mutations = mutations;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Generates the corpus.
+     *
+     * @param scale multiplies the size of the trees
+     * @return the tree pairs of the corpus
+     */
+    public static List<Entry> generate(int scale) {
+        List<Entry> entries = new ArrayList<>();
+        entries.add(mutate("wide", wide(10_000 * scale), 20 * scale, new Random(1)));
+        entries.add(mutate("deep", deep(1_000 * scale), 10 * scale, new Random(2)));
+        Random random = new Random(3);
+        Node forest = new Node("forest");
+        for (int i = 0; i < scale; i++) {
+            forest.addChild(bushy(4, 6, random));
+        }
+        entries.add(mutate("bushy", forest, 50 * scale, new Random(4)));
+        return entries;
+    }
+
+    /**
+     * Creates a root phase with many optimizations, most of which have recurring names.
+     */
+    public static Node wide(int width) {
+        Node root = new Node("RootPhase");
+        for (int i = 0; i < width; i++) {
+            root.addChild(new Node("Optimization" + (i % 97) + "@" + i));
+        }
+        return root;
+    }
+
+    /**
+     * Creates a chain of inlined methods, each of which has a few leaves.
+     */
+    public static Node deep(int depth) {
+        Node root = new Node("method0");
+        Node current = root;
+        for (int i = 1; i < depth; i++) {
+            current.addChild(new Node("leaf" + i));
+            Node child = new Node("method" + i);
+            current.addChild(child);
+            current = child;
+        }
+        return root;
+    }
+
+    /**
+     * Creates a tree with a random branching factor up to {@code maxBranching}.
+     */
+    public static Node bushy(int maxBranching, int depth, Random random) {
+        Node root = new Node("node" + random.nextInt(16));
+        if (depth > 0) {
+            int branching = 1 + random.nextInt(maxBranching);
+            for (int i = 0; i < branching; i++) {
+                root.addChild(bushy(maxBranching, depth - 1, random));
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Copies a tree.
+     */
+    public static Node copy(Node node) {
+        Node result = new Node(node.getName());
+        for (Node child : node.getChildren()) {
+            result.addChild(copy(child));
+        }
+        return result;
+    }
+
+    private static Entry mutate(String name, Node tree, int mutations, Random random) {
+        Node copy = copy(tree);
+        List<Node> parents = new ArrayList<>();
+        copy.forEach(node -> {
+            for (Node child : node.getChildren()) {
+                if (child.getChildren().isEmpty()) {
+                    parents.add(node);
+                    break;
+                }
+            }
+        });
+        for (int i = 0; i < mutations; i++) {
+            Node parent = parents.get(random.nextInt(parents.size()));
+            List<Node> children = parent.getChildren();
+            int index = random.nextInt(children.size());
+            Node mutated = new Node("mutated" + i);
+            switch (random.nextInt(3)) {
+                case 0:
+                    children.add(index, mutated);
+                    break;
+                case 1:
+                    if (children.get(index).getChildren().isEmpty() && children.size() > 1) {
+                        children.remove(index);
+                    } else {
+                        children.add(index, mutated);
+                    }
+                    break;
+                default:
+                    if (children.get(index).getChildren().isEmpty()) {
+                        children.set(index, mutated);
+                    } else {
+                        children.add(index, mutated);
+                    }
+                    break;
+            }
+        }
+        return new Entry(name, tree, copy, mutations);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.profdiff.core.TreeNode;
+import org.graalvm.profdiff.core.Writer;
+
+/**
+ * A matching of two trees computed by the {@link HashingTreeMatcher}. The matching is a sequence of
+ * operations in preorder, where identical, deleted and inserted operations stand for whole
+ * subtrees.
+ *
+ * @param <T> the type of the nodes
+ */
+public class ApproximateTreeMatching<T extends TreeNode<T>> implements TreeMatching {
+    /**
+     * The kind of an operation in the matching.
+     */
+    public enum Kind {
+        /**
+         * The subtrees rooted in the nodes are identical.
+         */
+        Identity("  "),
+
+        /**
+         * The nodes are equal, but their subtrees differ.
+         */
+        Match("  "),
+
+        /**
+         * The nodes are not equal, but they are matched with each other.
+         */
+        Relabel("* "),
+
+        /**
+         * The subtree of the first tree is deleted.
+         */
+        Delete("- "),
+
+        /**
+         * The subtree of the second tree is inserted.
+         */
+        Insert("+ ");
+
+        private final String prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * An operation of the matching.
+     *
+     * @param <T> the type of the nodes
+     */
+    public static final class Operation<T> {
+        private final Kind kind;
+        private final T node1;
+        private final T node2;
+        private final int depth;
+
+        private Operation(Kind kind, T node1, T node2, int depth) {
+            this.kind = kind;
+            this.node1 = node1;
+            this.node2 = node2;
+            this.depth = depth;
+        }
+
+        /**
+         * Gets the kind of the operation.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the node from the first tree or {@code null} if the operation is an insertion.
+         */
+        public T getNode1() {
+            return node1;
+        }
+
+        /**
+         * Gets the node from the second tree or {@code null} if the operation is a deletion.
+         */
+        public T getNode2() {
+            return node2;
+        }
+
+        /**
+         * Gets the depth of the nodes in the trees.
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+    private final List<Operation<T>> operations = new ArrayList<>();
+
+    /**
+     * The number of deleted, inserted and relabeled nodes, including the nodes in deleted and
+     * inserted subtrees.
+     */
+    private long editCount;
+
+    void addIdentity(T node1, T node2, int depth) {
+        operations.add(new Operation<>(Kind.Identity, node1, node2, depth));
+    }
+
+    void addMatch(T node1, T node2, int depth) {
+        operations.add(new Operation<>(Kind.Match, node1, node2, depth));
+    }
+
+    void addRelabel(T node1, T node2, int depth) {
+        operations.add(new Operation<>(Kind.Relabel, node1, node2, depth));
+        ++editCount;
+    }
+
+    void addDeletion(T node1, int depth) {
+        operations.add(new Operation<>(Kind.Delete, node1, null, depth));
+        editCount += subtreeSize(node1);
+    }
+
+    void addInsertion(T node2, int depth) {
+        operations.add(new Operation<>(Kind.Insert, null, node2, depth));
+        editCount += subtreeSize(node2);
+    }
+
+    private static <T extends TreeNode<T>> long subtreeSize(T node) {
+        long[] size = new long[1];
+        node.forEach(n -> ++size[0]);
+        return size[0];
+    }
+
+    /**
+     * Gets the operations of the matching in preorder.
+     *
+     * @return the operations in preorder
+     */
+    public List<Operation<T>> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Gets the number of deleted, inserted and relabeled nodes, including the nodes in deleted and
+     * inserted subtrees. The count is an upper bound of the unit-cost tree edit distance.
+     *
+     * @return the number of edited nodes
+     */
+    public long getEditCount() {
+        return editCount;
+    }
+
+    /**
+     * Returns {@code true} if the matched trees are identical.
+     */
+    public boolean isIdentity() {
+        return editCount == 0 && operations.size() == 1 && operations.get(0).kind == Kind.Identity;
+    }
+
+    /**
+     * Writes the matched trees in preorder. Deleted nodes are prefixed with {@code -}, inserted
+     * nodes with {@code +} and relabeled nodes with {@code *}. Identical subtrees are written only
+     * with their root.
+     *
+     * @param writer the destination writer
+     */
+    @Override
+    public void write(Writer writer) {
+        for (Operation<T> operation : operations) {
+            for (int i = 0; i < operation.depth; i++) {
+                writer.increaseIndent();
+            }
+            switch (operation.kind) {
+                case Identity:
+                case Match:
+                    writer.write(operation.kind.prefix);
+                    operation.node1.writeHead(writer);
+                    break;
+                case Relabel:
+                    writer.write(operation.kind.prefix);
+                    operation.node1.writeHead(writer);
+                    writer.write(operation.kind.prefix);
+                    operation.node2.writeHead(writer);
+                    break;
+                case Delete:
+                    writeSubtree(writer, operation.kind, operation.node1);
+                    break;
+                case Insert:
+                    writeSubtree(writer, operation.kind, operation.node2);
+                    break;
+            }
+            for (int i = 0; i < operation.depth; i++) {
+                writer.decreaseIndent();
+            }
+        }
+    }
+
+    private static <T extends TreeNode<T>> void writeSubtree(Writer writer, Kind kind, T root) {
+        root.forEach(node -> {
+            writer.write(kind.prefix);
+            node.writeHead(writer);
+            writer.increaseIndent();
+        }, node -> writer.decreaseIndent());
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.diff;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.profdiff.core.TreeNode;
+
+/**
+ * Computes an approximate matching of two trees in time close to linear in the size of the trees.
+ * The matcher is meant for trees that are too large or too wide to be compared by an exact tree
+ * edit distance algorithm.
+ *
+ * The matcher first computes a structural hash for every subtree, combining the
+ * {@link #nodeHash hash of the node} with the hashes of its children in order. Starting with the
+ * roots, the children of matched nodes are then aligned greedily and in order:
+ * <ul>
+ * <li>a child of the first tree is matched with the next child of the second tree which has an
+ * identical subtree, which is found through a hash lookup,</li>
+ * <li>otherwise, it is matched with an {@link TreeEditPolicy#nodesEqual equal} child among the next
+ * {@link #lookahead} children of the second tree, and their children are aligned in turn,</li>
+ * <li>otherwise, the child is deleted. Skipped children of the second tree are inserted.</li>
+ * </ul>
+ *
+ * The lookahead trades precision for speed. The time spent aligning the children of a node is
+ * proportional to the number of children multiplied by the lookahead. With a lookahead of 0, only
+ * identical subtrees and children at corresponding positions are matched.
+ *
+ * @param <T> the type of the nodes
+ */
+public class HashingTreeMatcher<T extends TreeNode<T>> {
+    /**
+     * The default number of children searched ahead for an equal node.
+     */
+    public static final int DEFAULT_LOOKAHEAD = 8;
+
+    /**
+     * The edit policy which determines whether two nodes are equal.
+     */
+    private final TreeEditPolicy<T> editPolicy;
+
+    /**
+     * Computes the hash of a single node. The hashes of {@link TreeEditPolicy#nodesEqual equal}
+     * nodes must be equal.
+     */
+    private final ToIntFunction<T> nodeHash;
+
+    /**
+     * The number of children searched ahead for an equal node.
+     */
+    private final int lookahead;
+
+    /**
+     * The structural hashes of the subtrees of both trees.
+     */
+    private final Map<T, Long> subtreeHashes = new IdentityHashMap<>();
+
+    /**
+     * Constructs a matcher.
+     *
+     * @param editPolicy the edit policy which determines whether two nodes are equal
+     * @param nodeHash computes the hash of a single node, consistent with the edit policy
+     * @param lookahead the number of children searched ahead for an equal node
+     */
+    public HashingTreeMatcher(TreeEditPolicy<T> editPolicy, ToIntFunction<T> nodeHash, int lookahead) {
+        if (lookahead < 0) {
+            throw new IllegalArgumentException("lookahead must not be negative");
+        }
+        this.editPolicy = editPolicy;
+        this.nodeHash = nodeHash;
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Constructs a matcher with the {@link #DEFAULT_LOOKAHEAD default lookahead}.
+     *
+     * @param editPolicy the edit policy which determines whether two nodes are equal
+     * @param nodeHash computes the hash of a single node, consistent with the edit policy
+     */
+    public HashingTreeMatcher(TreeEditPolicy<T> editPolicy, ToIntFunction<T> nodeHash) {
+        this(editPolicy, nodeHash, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * Computes an approximate matching of two trees. The roots are always matched with each other.
+     *
+     * @param root1 the root of the first tree
+     * @param root2 the root of the second tree
+     * @return the computed matching
+     */
+    public ApproximateTreeMatching<T> match(T root1, T root2) {
+        subtreeHashes.clear();
+        computeSubtreeHashes(root1);
+        computeSubtreeHashes(root2);
+        ApproximateTreeMatching<T> matching = new ApproximateTreeMatching<>();
+        if (subtreesIdentical(root1, root2)) {
+            matching.addIdentity(root1, root2, 0);
+        } else {
+            if (editPolicy.nodesEqual(root1, root2)) {
+                matching.addMatch(root1, root2, 0);
+            } else {
+                matching.addRelabel(root1, root2, 0);
+            }
+            matchChildren(root1, root2, 1, matching);
+        }
+        subtreeHashes.clear();
+        return matching;
+    }
+
+    /**
+     * Computes the structural hashes of all subtrees of a tree in postorder without recursion.
+     *
+     * @param root the root of the tree
+     */
+    private void computeSubtreeHashes(T root) {
+        ArrayDeque<T> stack = new ArrayDeque<>();
+        List<T> postorder = new ArrayList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            T node = stack.pop();
+            postorder.add(node);
+            for (T child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        for (int i = postorder.size() - 1; i >= 0; i--) {
+            T node = postorder.get(i);
+            long hash = nodeHash.applyAsInt(node);
+            for (T child : node.getChildren()) {
+                hash = hash * 31 + subtreeHashes.get(child);
+            }
+            subtreeHashes.put(node, mix(hash));
+        }
+    }
+
+    /**
+     * Spreads the bits of a hash to reduce collisions of the combined hashes.
+     */
+    private static long mix(long hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Tests whether two subtrees are identical. Subtrees with equal hashes are verified node by
+     * node, which is linear in the size of the subtrees. Each node is part of at most one identical
+     * pair of subtrees.
+     */
+    private boolean subtreesIdentical(T node1, T node2) {
+        if (subtreeHashes.get(node1).longValue() != subtreeHashes.get(node2).longValue()) {
+            return false;
+        }
+        ArrayDeque<T> stack1 = new ArrayDeque<>();
+        ArrayDeque<T> stack2 = new ArrayDeque<>();
+        stack1.push(node1);
+        stack2.push(node2);
+        while (!stack1.isEmpty()) {
+            T left = stack1.pop();
+            T right = stack2.pop();
+            if (left.getChildren().size() != right.getChildren().size() || !editPolicy.nodesEqual(left, right)) {
+                return false;
+            }
+            for (T child : left.getChildren()) {
+                stack1.push(child);
+            }
+            for (T child : right.getChildren()) {
+                stack2.push(child);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The state of aligning the children of two matched nodes.
+     */
+    private final class ChildAlignment {
+        final List<T> children1;
+        final List<T> children2;
+        /**
+         * The depth of the children.
+         */
+        final int depth;
+        /**
+         * The indices of the children of the second tree grouped by their subtree hash.
+         */
+        final EconomicMap<Long, ArrayDeque<Integer>> candidates = EconomicMap.create();
+        /**
+         * The index of the next child of the first tree to align.
+         */
+        int index1;
+        /**
+         * The index of the first child of the second tree that was not aligned yet.
+         */
+        int next;
+
+        ChildAlignment(T parent1, T parent2, int depth) {
+            this.children1 = parent1.getChildren();
+            this.children2 = parent2.getChildren();
+            this.depth = depth;
+            for (int i = 0; i < children2.size(); i++) {
+                Long hash = subtreeHashes.get(children2.get(i));
+                ArrayDeque<Integer> indices = candidates.get(hash);
+                if (indices == null) {
+                    indices = new ArrayDeque<>();
+                    candidates.put(hash, indices);
+                }
+                indices.add(i);
+            }
+        }
+    }
+
+    /**
+     * Aligns the children of two matched nodes and matches the descendants of the aligned
+     * children. The alignments of nested children are kept on an explicit stack rather than the
+     * call stack, so that deep trees do not overflow it. The operations are added in the same
+     * preorder as by a recursive traversal.
+     *
+     * @param parent1 a node from the first tree
+     * @param parent2 the node from the second tree matched with {@code parent1}
+     * @param depth the depth of the children
+     * @param matching the matching to which the operations are added
+     */
+    private void matchChildren(T parent1, T parent2, int depth, ApproximateTreeMatching<T> matching) {
+        ArrayDeque<ChildAlignment> stack = new ArrayDeque<>();
+        stack.push(new ChildAlignment(parent1, parent2, depth));
+        while (!stack.isEmpty()) {
+            ChildAlignment alignment = stack.peek();
+            if (alignment.index1 == alignment.children1.size()) {
+                for (; alignment.next < alignment.children2.size(); alignment.next++) {
+                    matching.addInsertion(alignment.children2.get(alignment.next), alignment.depth);
+                }
+                stack.pop();
+                continue;
+            }
+            T child1 = alignment.children1.get(alignment.index1++);
+            int found = findIdentical(child1, alignment.children2, alignment.next, alignment.candidates);
+            boolean identical = found >= 0;
+            if (!identical) {
+                found = findEqual(child1, alignment.children2, alignment.next);
+            }
+            if (found < 0) {
+                matching.addDeletion(child1, alignment.depth);
+                continue;
+            }
+            for (; alignment.next < found; alignment.next++) {
+                matching.addInsertion(alignment.children2.get(alignment.next), alignment.depth);
+            }
+            T child2 = alignment.children2.get(found);
+            alignment.next = found + 1;
+            if (identical) {
+                matching.addIdentity(child1, child2, alignment.depth);
+            } else {
+                matching.addMatch(child1, child2, alignment.depth);
+                stack.push(new ChildAlignment(child1, child2, alignment.depth + 1));
+            }
+        }
+    }
+
+    /**
+     * Finds the first child at or after {@code from} whose subtree is identical to the subtree of
+     * {@code child1}.
+     *
+     * @return the index of the identical child or {@code -1}
+     */
+    private int findIdentical(T child1, List<T> children2, int from, EconomicMap<Long, ArrayDeque<Integer>> candidates) {
+        ArrayDeque<Integer> indices = candidates.get(subtreeHashes.get(child1));
+        if (indices == null) {
+            return -1;
+        }
+        while (!indices.isEmpty() && indices.peekFirst() < from) {
+            indices.pollFirst();
+        }
+        for (Integer index : indices) {
+            if (subtreesIdentical(child1, children2.get(index))) {
+                indices.remove(index);
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds an equal child among the next {@link #lookahead} children starting at {@code from}.
+     *
+     * @return the index of the equal child or {@code -1}
+     */
+    private int findEqual(T child1, List<T> children2, int from) {
+        int to = (int) Math.min(children2.size(), (long) from + lookahead + 1);
+        for (int i = from; i < to; i++) {
+            if (editPolicy.nodesEqual(child1, children2.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -47,4 +47,20 @@ public class OptimizationTreeEditPolicy extends TreeEditPolicy<OptimizationTreeN
         }
         return node1.equals(node2);
     }
+
+    /**
+     * Computes a hash of a node consistent with {@link #nodesEqual}, i.e., the hashes of equal nodes
+     * are equal. Phases are hashed by name, other types by content.
+     *
+     * @param node an optimization-tree node
+     * @return the hash of the node
+     *
+     * @see HashingTreeMatcher
+     */
+    public int nodeHash(OptimizationTreeNode node) {
+        if (node instanceof OptimizationPhase) {
+            return node.getName().hashCode();
+        }
+        return node.hashCode();
+    }
 }
@@ -82,6 +82,20 @@ public interface FileView {
         };
     }
 
+    /**
+     * Creates a view of a file that is read through memory mappings. Unlike
+     * {@link #fromFile(File)}, the view supports {@linkplain #forEachLineInParallel parallel}
+     * processing of its lines, and the views of the lines decode their contents from the mapping on
+     * demand rather than retaining them. This is meant for optimization logs that are too large to
+     * be read sequentially or kept in memory.
+     *
+     * @param file the file by which the view is backed
+     * @return a memory-mapped view of a file
+     */
+    static FileView fromFileMapped(File file) {
+        return new MappedFileView(file);
+    }
+
     /**
      * Creates a view of a line in a file, starting from the provided byte position until the end of
      * the line.
@@ -131,6 +145,18 @@ public interface FileView {
      */
     void forEachLine(BiConsumer<String, FileView> consumer) throws IOException;
 
+    /**
+     * Performs an action for each line in this file view, possibly concurrently from several
+     * threads and in no particular order. The consumer must therefore be thread-safe. The default
+     * implementation processes the lines {@linkplain #forEachLine sequentially}.
+     *
+     * @param consumer the action to be performed for each line and the view of the line
+     * @throws IOException failed to read the file
+     */
+    default void forEachLineInParallel(BiConsumer<String, FileView> consumer) throws IOException {
+        forEachLine(consumer);
+    }
+
     /**
      * Reads the file contents of the view.
      *
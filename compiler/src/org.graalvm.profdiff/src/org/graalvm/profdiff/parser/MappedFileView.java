@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * A view of a file that reads lines through memory mappings. The file is split into chunks at line
+ * boundaries, which are mapped and scanned independently and can therefore be processed in
+ * parallel. The views of individual lines only remember the mapping of their chunk and the offset
+ * and length of the line in it, so that records can be decoded again on demand instead of being
+ * kept in memory.
+ */
+final class MappedFileView implements FileView {
+    /**
+     * The maximum size of a chunk, which must fit into a single mapping.
+     */
+    static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    /**
+     * The minimum size of a chunk when splitting a file for parallel processing.
+     */
+    static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    private final File file;
+
+    MappedFileView(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getSymbolicPath() {
+        return file.getAbsolutePath();
+    }
+
+    @Override
+    public void forEachLine(BiConsumer<String, FileView> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                forEachLineInChunk(channel, bounds[i], bounds[i + 1], consumer);
+            }
+        }
+    }
+
+    @Override
+    public void forEachLineInParallel(BiConsumer<String, FileView> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, ForkJoinPool.getCommonPoolParallelism() * 4);
+            List<RecursiveAction> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        try {
+                            forEachLineInChunk(channel, start, end, consumer);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            }
+            try {
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        ForkJoinTask.invokeAll(tasks);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @Override
+    public String readFully() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return read(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Splits the file into at least {@code minChunks} chunks (fewer if the file is small), each
+     * ending after a line separator or at the end of the file.
+     *
+     * @return the start positions of the chunks followed by the size of the file
+     */
+    static long[] chunkBounds(FileChannel channel, int minChunks) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / Math.max(1, minChunks)));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (size - position > chunkSize) {
+            long next = nextLineStart(channel, position + chunkSize, size, buffer);
+            if (next - position > MAX_CHUNK_SIZE) {
+                throw new IOException(String.format("%s: line at position %d is too long to be mapped", channel, position));
+            }
+            if (next >= size) {
+                break;
+            }
+            bounds.add(next);
+            position = next;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the start of the first line beginning after {@code position}, or {@code size}.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer buffer) throws IOException {
+        long current = position;
+        while (current < size) {
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += read;
+        }
+        return size;
+    }
+
+    private void forEachLineInChunk(FileChannel channel, long start, long end, BiConsumer<String, FileView> consumer) throws IOException {
+        if (start == end) {
+            return;
+        }
+        MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = mapping.limit();
+        int lineStart = 0;
+        byte[] bytes = new byte[256];
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && mapping.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int length = lineEnd;
+            if (length > lineStart && mapping.get(length - 1) == '\r') {
+                length--;
+            }
+            length -= lineStart;
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            mapping.position(lineStart);
+            mapping.get(bytes, 0, length);
+            String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            consumer.accept(line, new LineView(mapping, lineStart, length));
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static String read(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("%s: cannot read %d bytes into a string", channel, length));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A view of a single line, which is decoded again from the mapping of its chunk on demand.
+     */
+    private final class LineView implements FileView {
+        private final MappedByteBuffer mapping;
+        private final int offset;
+        private final int length;
+
+        LineView(MappedByteBuffer mapping, int offset, int length) {
+            this.mapping = mapping;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public String getSymbolicPath() {
+            return file.getAbsolutePath();
+        }
+
+        @Override
+        public void forEachLine(BiConsumer<String, FileView> consumer) throws IOException {
+            consumer.accept(readFully(), this);
+        }
+
+        @Override
+        public String readFully() {
+            // a duplicate has its own position, so views of the same chunk can be read concurrently
+            ByteBuffer line = mapping.duplicate();
+            line.position(offset);
+            byte[] bytes = new byte[length];
+            line.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Describes the layout of binary profdiff reports written by {@link BinaryReportWriter} and read
+ * by {@link BinaryReportReader}.
+ *
+ * A report starts with a {@link #MAGIC magic number}, a {@link #VERSION version} and a list of
+ * metadata entries, which are pairs of typed values. The rest of the report is a sequence of
+ * blocks terminated by {@link #END_TAG}. A block holds the rows of a single {@link Table table}
+ * stored column by column:
+ *
+ * <pre>
+ * byte   table tag
+ * varint row count
+ * varint number of new strings, followed by the strings in UTF-8, each prefixed by its length
+ * for each column: int length in bytes, followed by the encoded values
+ * </pre>
+ *
+ * Strings are dictionary-encoded. Every block introduces the strings first used since the
+ * previous block, even if they are referenced only by later blocks of other tables. A string is
+ * referenced by its 1-based index in the dictionary; {@code 0} stands for {@code null}. Integers
+ * are encoded as zigzag variable-length quantities, booleans and enums as single bytes.
+ */
+public final class BinaryReportFormat {
+    private BinaryReportFormat() {
+    }
+
+    /**
+     * The magic number at the start of a report.
+     */
+    static final int MAGIC = 0x50444946;
+
+    /**
+     * The version of the format.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * The tag which terminates the sequence of blocks.
+     */
+    static final byte END_TAG = 0;
+
+    /**
+     * The tables of a report.
+     */
+    public enum Table {
+        /**
+         * Compilation units with their hotness. Columns: experiment ID, method name, compilation
+         * ID, hot flag, execution period. The index of a row in this table identifies the
+         * compilation unit in the other tables.
+         */
+        CompilationUnits(5),
+
+        /**
+         * Inlining decisions in the inlining trees of compilation units. Columns: compilation
+         * unit, depth in the inlining tree, callee name, bci, inlined flag, reason.
+         */
+        InliningDecisions(6),
+
+        /**
+         * Optimizations which are present in only one of the compared compilation units. Columns:
+         * compilation unit, ID of the experiment with the optimization, optimization name, event
+         * name, bci.
+         */
+        OptimizationDeltas(5);
+
+        private final int columnCount;
+
+        Table(int columnCount) {
+            this.columnCount = columnCount;
+        }
+
+        /**
+         * Gets the number of columns of the table.
+         */
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        byte tag() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static Table fromTag(byte tag) {
+            Table[] tables = values();
+            if (tag < 1 || tag > tables.length) {
+                return null;
+            }
+            return tables[tag - 1];
+        }
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of a column");
+            }
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+}
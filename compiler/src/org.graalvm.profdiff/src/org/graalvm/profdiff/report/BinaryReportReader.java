@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.report;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.profdiff.core.ExperimentId;
+import org.graalvm.profdiff.report.BinaryReportFormat.Table;
+import org.graalvm.util.TypedDataInputStream;
+
+/**
+ * Reads a binary profdiff report written by {@link BinaryReportWriter} in a streaming fashion. Only
+ * one block is decoded at a time, and the blocks of tables which are not {@link Visitor#visits
+ * visited} are skipped without decoding their columns.
+ */
+public class BinaryReportReader implements AutoCloseable {
+    /**
+     * Receives the rows of a report. The rows of each table are visited in the order in which they
+     * were written. A compilation unit is visited before the rows which refer to it.
+     */
+    public interface Visitor {
+        /**
+         * Returns {@code true} if the rows of the table should be visited.
+         *
+         * @param table a table of the report
+         */
+        default boolean visits(Table table) {
+            return true;
+        }
+
+        /**
+         * Visits a compilation unit.
+         *
+         * @see BinaryReportWriter#writeCompilationUnit
+         */
+        default void compilationUnit(int compilationUnit, ExperimentId experimentId, String methodName, String compilationId, boolean hot, long period) {
+        }
+
+        /**
+         * Visits an inlining decision.
+         *
+         * @see BinaryReportWriter#writeInliningDecision
+         */
+        default void inliningDecision(int compilationUnit, int depth, String callee, int bci, boolean inlined, String reason) {
+        }
+
+        /**
+         * Visits an optimization delta.
+         *
+         * @see BinaryReportWriter#writeOptimizationDelta
+         */
+        default void optimizationDelta(int compilationUnit, ExperimentId experimentId, String optimizationName, String eventName, int bci) {
+        }
+    }
+
+    private final TypedDataInputStream in;
+
+    private final EconomicMap<String, Object> metadata;
+
+    /**
+     * The dictionary of strings, where the string with index {@code i} is at {@code i - 1}.
+     */
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * The number of compilation units read so far, including skipped ones.
+     */
+    private int compilationUnitCount;
+
+    /**
+     * Constructs a reader and reads the header of the report.
+     *
+     * @param inputStream the source stream
+     * @throws IOException failed to read the header or the stream is not a report
+     */
+    public BinaryReportReader(InputStream inputStream) throws IOException {
+        this.in = new TypedDataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != BinaryReportFormat.MAGIC) {
+            throw new IOException("Not a binary profdiff report");
+        }
+        short version = in.readShort();
+        if (version != BinaryReportFormat.VERSION) {
+            throw new IOException("Unsupported report version " + version);
+        }
+        int entries = in.readInt();
+        metadata = EconomicMap.create(entries);
+        for (int i = 0; i < entries; i++) {
+            Object key = in.readTypedValue();
+            metadata.put(key.toString(), in.readTypedValue());
+        }
+    }
+
+    /**
+     * Gets the metadata entries of the report.
+     */
+    public UnmodifiableEconomicMap<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Reads the remaining blocks of the report and passes their rows to the visitor.
+     *
+     * @param visitor the visitor of the rows
+     * @throws IOException failed to read the report or the report is malformed
+     */
+    public void accept(Visitor visitor) throws IOException {
+        while (true) {
+            byte tag = in.readByte();
+            if (tag == BinaryReportFormat.END_TAG) {
+                return;
+            }
+            Table table = Table.fromTag(tag);
+            if (table == null) {
+                throw new IOException("Unknown table tag " + tag);
+            }
+            int rowCount = (int) BinaryReportFormat.readVarLong(in);
+            long newStrings = BinaryReportFormat.readVarLong(in);
+            for (long i = 0; i < newStrings; i++) {
+                byte[] bytes = new byte[(int) BinaryReportFormat.readVarLong(in)];
+                in.readFully(bytes);
+                dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            if (visitor.visits(table)) {
+                ByteArrayInputStream[] columns = new ByteArrayInputStream[table.getColumnCount()];
+                for (int i = 0; i < columns.length; i++) {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    columns[i] = new ByteArrayInputStream(bytes);
+                }
+                visitBlock(table, rowCount, columns, visitor);
+            } else {
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    skipFully(in.readInt());
+                }
+            }
+            if (table == Table.CompilationUnits) {
+                compilationUnitCount += rowCount;
+            }
+        }
+    }
+
+    private void visitBlock(Table table, int rowCount, ByteArrayInputStream[] columns, Visitor visitor) throws IOException {
+        for (int row = 0; row < rowCount; row++) {
+            switch (table) {
+                case CompilationUnits:
+                    visitor.compilationUnit(compilationUnitCount + row, readExperimentId(columns[0]), readString(columns[1]), readString(columns[2]),
+                                    readBoolean(columns[3]), BinaryReportFormat.readVarLong(columns[4]));
+                    break;
+                case InliningDecisions:
+                    visitor.inliningDecision(readInt(columns[0]), readInt(columns[1]), readString(columns[2]), readInt(columns[3]),
+                                    readBoolean(columns[4]), readString(columns[5]));
+                    break;
+                case OptimizationDeltas:
+                    visitor.optimizationDelta(readInt(columns[0]), readExperimentId(columns[1]), readString(columns[2]), readString(columns[3]),
+                                    readInt(columns[4]));
+                    break;
+            }
+        }
+    }
+
+    private static int readInt(InputStream column) throws IOException {
+        return (int) BinaryReportFormat.readVarLong(column);
+    }
+
+    private static boolean readBoolean(InputStream column) throws IOException {
+        int b = column.read();
+        if (b < 0) {
+            throw new IOException("Unexpected end of a column");
+        }
+        return b != 0;
+    }
+
+    private static ExperimentId readExperimentId(InputStream column) throws IOException {
+        int ordinal = column.read();
+        ExperimentId[] ids = ExperimentId.values();
+        if (ordinal < 0 || ordinal >= ids.length) {
+            throw new IOException("Invalid experiment ID " + ordinal);
+        }
+        return ids[ordinal];
+    }
+
+    private String readString(InputStream column) throws IOException {
+        long index = BinaryReportFormat.readVarLong(column);
+        if (index == 0) {
+            return null;
+        }
+        if (index < 0 || index > dictionary.size()) {
+            throw new IOException("Invalid string index " + index);
+        }
+        return dictionary.get((int) index - 1);
+    }
+
+    private void skipFully(int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of the report");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
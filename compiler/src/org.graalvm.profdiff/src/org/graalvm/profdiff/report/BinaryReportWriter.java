@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.profdiff.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.MapCursor;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.profdiff.core.ExperimentId;
+import org.graalvm.profdiff.report.BinaryReportFormat.Table;
+import org.graalvm.util.TypedDataOutputStream;
+
+/**
+ * Writes a binary, columnar profdiff report. Rows are buffered per {@link Table table} and written
+ * in blocks of {@link #blockRows} rows. The compilation units are always written before the blocks
+ * which refer to them, so that a {@link BinaryReportReader streaming reader} sees every
+ * compilation unit before its inlining decisions and optimization deltas.
+ *
+ * @see BinaryReportFormat
+ */
+public class BinaryReportWriter implements AutoCloseable {
+    /**
+     * The default number of rows in a block.
+     */
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+    /**
+     * The rows of a table which have not been written yet.
+     */
+    private static final class Block {
+        private final Table table;
+        private final ByteArrayOutputStream[] columns;
+        private int rowCount;
+
+        Block(Table table) {
+            this.table = table;
+            this.columns = new ByteArrayOutputStream[table.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new ByteArrayOutputStream();
+            }
+        }
+
+        void reset() {
+            for (ByteArrayOutputStream column : columns) {
+                column.reset();
+            }
+            rowCount = 0;
+        }
+    }
+
+    private final TypedDataOutputStream out;
+
+    /**
+     * The maximum number of rows in a block.
+     */
+    private final int blockRows;
+
+    /**
+     * Maps strings to their 1-based index in the dictionary.
+     */
+    private final EconomicMap<String, Integer> dictionary = EconomicMap.create();
+
+    /**
+     * The strings added to the dictionary since the last written block.
+     */
+    private final List<String> newStrings = new ArrayList<>();
+
+    private final Block[] blocks;
+
+    /**
+     * The number of compilation units added to the report.
+     */
+    private int compilationUnitCount;
+
+    /**
+     * Constructs a writer and writes the header of the report.
+     *
+     * @param outputStream the destination stream
+     * @param metadata metadata entries of the report, whose values must be
+     *            {@linkplain TypedDataOutputStream#isValueSupported supported}
+     * @param blockRows the maximum number of rows in a block
+     * @throws IOException failed to write the header
+     */
+    public BinaryReportWriter(OutputStream outputStream, UnmodifiableEconomicMap<String, Object> metadata, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("blockRows must be positive");
+        }
+        this.out = new TypedDataOutputStream(outputStream);
+        this.blockRows = blockRows;
+        Table[] tables = Table.values();
+        this.blocks = new Block[tables.length];
+        for (Table table : tables) {
+            blocks[table.ordinal()] = new Block(table);
+        }
+        out.writeInt(BinaryReportFormat.MAGIC);
+        out.writeShort(BinaryReportFormat.VERSION);
+        out.writeInt(metadata.size());
+        MapCursor<String, Object> cursor = metadata.getEntries();
+        while (cursor.advance()) {
+            out.writeTypedValue(cursor.getKey());
+            out.writeTypedValue(cursor.getValue());
+        }
+    }
+
+    /**
+     * Constructs a writer with the {@link #DEFAULT_BLOCK_ROWS default block size} and writes the
+     * header of the report.
+     *
+     * @param outputStream the destination stream
+     * @param metadata metadata entries of the report
+     * @throws IOException failed to write the header
+     */
+    public BinaryReportWriter(OutputStream outputStream, UnmodifiableEconomicMap<String, Object> metadata) throws IOException {
+        this(outputStream, metadata, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Adds a compilation unit to the report.
+     *
+     * @param experimentId the ID of the experiment of the compilation unit
+     * @param methodName the name of the compiled root method
+     * @param compilationId the compilation ID of the unit
+     * @param hot {@code true} iff the compilation unit is hot
+     * @param period the execution period of the compilation unit
+     * @return the index of the compilation unit, which identifies it in the other rows
+     * @throws IOException failed to write a block
+     */
+    public int writeCompilationUnit(ExperimentId experimentId, String methodName, String compilationId, boolean hot, long period) throws IOException {
+        Block block = blocks[Table.CompilationUnits.ordinal()];
+        block.columns[0].write(experimentId.ordinal());
+        writeString(block.columns[1], methodName);
+        writeString(block.columns[2], compilationId);
+        block.columns[3].write(hot ? 1 : 0);
+        BinaryReportFormat.writeVarLong(block.columns[4], period);
+        endRow(block);
+        return compilationUnitCount++;
+    }
+
+    /**
+     * Adds an inlining decision to the report.
+     *
+     * @param compilationUnit the index of the compilation unit
+     * @param depth the depth of the callee in the inlining tree (the root method has depth 0)
+     * @param callee the name of the callee
+     * @param bci the bci of the callsite
+     * @param inlined {@code true} iff the callee was inlined
+     * @param reason the reason of the decision or {@code null}
+     * @throws IOException failed to write a block
+     */
+    public void writeInliningDecision(int compilationUnit, int depth, String callee, int bci, boolean inlined, String reason) throws IOException {
+        Block block = blocks[Table.InliningDecisions.ordinal()];
+        checkCompilationUnit(compilationUnit);
+        BinaryReportFormat.writeVarLong(block.columns[0], compilationUnit);
+        BinaryReportFormat.writeVarLong(block.columns[1], depth);
+        writeString(block.columns[2], callee);
+        BinaryReportFormat.writeVarLong(block.columns[3], bci);
+        block.columns[4].write(inlined ? 1 : 0);
+        writeString(block.columns[5], reason);
+        endRow(block);
+    }
+
+    /**
+     * Adds an optimization which is present in only one of the compared compilation units.
+     *
+     * @param compilationUnit the index of the compilation unit
+     * @param experimentId the ID of the experiment in which the optimization is present
+     * @param optimizationName the name of the optimization
+     * @param eventName the event name of the optimization
+     * @param bci the bci of the optimization
+     * @throws IOException failed to write a block
+     */
+    public void writeOptimizationDelta(int compilationUnit, ExperimentId experimentId, String optimizationName, String eventName, int bci) throws IOException {
+        Block block = blocks[Table.OptimizationDeltas.ordinal()];
+        checkCompilationUnit(compilationUnit);
+        BinaryReportFormat.writeVarLong(block.columns[0], compilationUnit);
+        block.columns[1].write(experimentId.ordinal());
+        writeString(block.columns[2], optimizationName);
+        writeString(block.columns[3], eventName);
+        BinaryReportFormat.writeVarLong(block.columns[4], bci);
+        endRow(block);
+    }
+
+    private void checkCompilationUnit(int compilationUnit) {
+        if (compilationUnit < 0 || compilationUnit >= compilationUnitCount) {
+            throw new IllegalArgumentException("Unknown compilation unit " + compilationUnit);
+        }
+    }
+
+    private void writeString(ByteArrayOutputStream column, String value) {
+        if (value == null) {
+            BinaryReportFormat.writeVarLong(column, 0);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size() + 1;
+            dictionary.put(value, index);
+            newStrings.add(value);
+        }
+        BinaryReportFormat.writeVarLong(column, index);
+    }
+
+    private void endRow(Block block) throws IOException {
+        if (++block.rowCount >= blockRows) {
+            writeBlock(block);
+        }
+    }
+
+    private void writeBlock(Block block) throws IOException {
+        if (block.table != Table.CompilationUnits) {
+            Block units = blocks[Table.CompilationUnits.ordinal()];
+            if (units.rowCount > 0) {
+                writeBlock(units);
+            }
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        BinaryReportFormat.writeVarLong(header, block.rowCount);
+        BinaryReportFormat.writeVarLong(header, newStrings.size());
+        for (String string : newStrings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            BinaryReportFormat.writeVarLong(header, bytes.length);
+            header.write(bytes, 0, bytes.length);
+        }
+        newStrings.clear();
+        out.writeByte(block.table.tag());
+        header.writeTo(out);
+        for (ByteArrayOutputStream column : block.columns) {
+            out.writeInt(column.size());
+            column.writeTo(out);
+        }
+        block.reset();
+    }
+
+    /**
+     * Writes the buffered rows and the end of the report and closes the destination stream.
+     *
+     * @throws IOException failed to write the report
+     */
+    @Override
+    public void close() throws IOException {
+        for (Block block : blocks) {
+            if (block.rowCount > 0) {
+                writeBlock(block);
+            }
+        }
+        out.writeByte(BinaryReportFormat.END_TAG);
+        out.close();
+    }
+}
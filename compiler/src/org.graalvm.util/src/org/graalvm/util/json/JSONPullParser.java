@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.util.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * A pull parser for JSON. The parser reads the input in chunks and reports one
+ * {@link Event event} per call to {@link #next()}, so that a document can be processed without
+ * materializing it as maps and lists:
+ *
+ * <pre>
+ * JSONPullParser parser = new JSONPullParser(reader);
+ * parser.next(); // BEGIN_OBJECT
+ * while (parser.next() == JSONPullParser.Event.NAME) {
+ *     if (parser.getString().equals("id")) {
+ *         parser.next();
+ *         long id = parser.getLong();
+ *     } else {
+ *         parser.skipValue();
+ *     }
+ * }
+ * </pre>
+ *
+ * Malformed input is reported with a {@link JSONParserException} which includes the line and
+ * column of the error.
+ */
+public final class JSONPullParser {
+    /**
+     * An event reported by the parser.
+     */
+    public enum Event {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        /**
+         * The name of a member of an object, available through {@link #getString()}.
+         */
+        NAME,
+        /**
+         * A string value, available through {@link #getString()}.
+         */
+        STRING,
+        /**
+         * A number value, available through {@link #getNumber()}, {@link #getLong()} and
+         * {@link #getDouble()}.
+         */
+        NUMBER,
+        TRUE,
+        FALSE,
+        NULL,
+        /**
+         * The end of the document.
+         */
+        END_DOCUMENT
+    }
+
+    private static final int SCOPE_OBJECT = 0;
+    private static final int SCOPE_ARRAY = 1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private int line = 1;
+    private long lineStart;
+    /**
+     * The number of characters consumed before the current buffer contents.
+     */
+    private long consumed;
+
+    private int[] scopes = new int[16];
+    private int depth;
+
+    /**
+     * Whether the next token in the current scope must be preceded by a comma.
+     */
+    private boolean needComma;
+
+    /**
+     * Whether a name has been read and its value has not been read yet.
+     */
+    private boolean afterName;
+
+    private boolean topLevelValueRead;
+
+    private final StringBuilder text = new StringBuilder();
+    private Event event;
+
+    public JSONPullParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    public JSONPullParser(String input) {
+        this(new StringReader(input));
+    }
+
+    /**
+     * Gets the last event reported by {@link #next()}.
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Advances to the next event.
+     *
+     * @return the next event
+     * @throws JSONParserException if the input is malformed
+     * @throws IOException if reading the input fails
+     */
+    public Event next() throws IOException {
+        int c = skipWhitespace();
+        if (afterName) {
+            afterName = false;
+            event = readValue(c);
+            return event;
+        }
+        if (depth == 0) {
+            if (c < 0) {
+                if (!topLevelValueRead) {
+                    throw error("Unexpected end of input");
+                }
+                event = Event.END_DOCUMENT;
+                return event;
+            }
+            if (topLevelValueRead) {
+                throw error("Trailing characters after the top-level value");
+            }
+            topLevelValueRead = true;
+            event = readValue(c);
+            return event;
+        }
+        int scope = scopes[depth - 1];
+        if (c == (scope == SCOPE_OBJECT ? '}' : ']')) {
+            position++;
+            depth--;
+            needComma = true;
+            event = scope == SCOPE_OBJECT ? Event.END_OBJECT : Event.END_ARRAY;
+            return event;
+        }
+        if (needComma) {
+            if (c != ',') {
+                throw error("Expected ',' or '" + (scope == SCOPE_OBJECT ? '}' : ']') + "'");
+            }
+            position++;
+            c = skipWhitespace();
+        }
+        if (scope == SCOPE_OBJECT) {
+            if (c != '"') {
+                throw error("Expected a member name");
+            }
+            position++;
+            readString();
+            if (skipWhitespace() != ':') {
+                throw error("Expected ':'");
+            }
+            position++;
+            afterName = true;
+            event = Event.NAME;
+            return event;
+        }
+        event = readValue(c);
+        return event;
+    }
+
+    /**
+     * Skips the current value. If the current event is {@link Event#NAME}, the value of the member
+     * is skipped. If the current event begins an object or an array, the parser advances to its
+     * end.
+     */
+    public void skipValue() throws IOException {
+        if (event == Event.NAME) {
+            next();
+        }
+        if (event == Event.BEGIN_OBJECT || event == Event.BEGIN_ARRAY) {
+            int target = depth - 1;
+            while (depth > target) {
+                next();
+            }
+        }
+    }
+
+    /**
+     * Gets the name or string value of the current {@link Event#NAME} or {@link Event#STRING}
+     * event, or the text of the current {@link Event#NUMBER}.
+     */
+    public String getString() {
+        if (event != Event.NAME && event != Event.STRING && event != Event.NUMBER) {
+            throw new IllegalStateException("No string at " + event);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Gets the current number as an {@link Integer}, {@link Long} or {@link Double}, whichever is
+     * the narrowest type that represents the number.
+     */
+    public Number getNumber() {
+        checkNumber();
+        if (isIntegral()) {
+            long value = parseLong();
+            if (value == (int) value) {
+                return (int) value;
+            }
+            return value;
+        }
+        return getDouble();
+    }
+
+    /**
+     * Gets the current number as a {@code long}.
+     *
+     * @throws NumberFormatException if the number is not an integer in the range of {@code long}
+     */
+    public long getLong() {
+        checkNumber();
+        if (!isIntegral()) {
+            throw new NumberFormatException("Not an integral number: " + text);
+        }
+        return parseLong();
+    }
+
+    /**
+     * Gets the current number as a {@code double}.
+     */
+    public double getDouble() {
+        checkNumber();
+        return Double.parseDouble(text.toString());
+    }
+
+    private void checkNumber() {
+        if (event != Event.NUMBER) {
+            throw new IllegalStateException("No number at " + event);
+        }
+    }
+
+    private boolean isIntegral() {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return false;
+            }
+        }
+        return text.length() <= 19 || (text.length() == 20 && text.charAt(0) == '-');
+    }
+
+    private long parseLong() {
+        boolean negative = text.charAt(0) == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < text.length(); i++) {
+            long next = value * 10 - (text.charAt(i) - '0');
+            if (next > value) {
+                throw new NumberFormatException("Number out of the range of long: " + text);
+            }
+            value = next;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("Number out of the range of long: " + text);
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    private Event readValue(int c) throws IOException {
+        needComma = true;
+        switch (c) {
+            case '{':
+                position++;
+                push(SCOPE_OBJECT);
+                return Event.BEGIN_OBJECT;
+            case '[':
+                position++;
+                push(SCOPE_ARRAY);
+                return Event.BEGIN_ARRAY;
+            case '"':
+                position++;
+                readString();
+                return Event.STRING;
+            case 't':
+                readLiteral("true");
+                return Event.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Event.FALSE;
+            case 'n':
+                readLiteral("null");
+                return Event.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber();
+                    return Event.NUMBER;
+                }
+                throw error(c < 0 ? "Unexpected end of input" : "Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void push(int scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+        needComma = false;
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (peek() != literal.charAt(i)) {
+                throw error("Expected '" + literal + "'");
+            }
+            position++;
+        }
+    }
+
+    private void readNumber() throws IOException {
+        text.setLength(0);
+        int c = peek();
+        if (c == '-') {
+            text.append('-');
+            position++;
+            c = peek();
+        }
+        if (c == '0') {
+            text.append('0');
+            position++;
+            c = peek();
+        } else if (c >= '1' && c <= '9') {
+            c = readDigits();
+        } else {
+            throw error("Expected a digit");
+        }
+        if (c == '.') {
+            text.append('.');
+            position++;
+            if (!isDigit(peek())) {
+                throw error("Expected a digit");
+            }
+            c = readDigits();
+        }
+        if (c == 'e' || c == 'E') {
+            text.append((char) c);
+            position++;
+            c = peek();
+            if (c == '+' || c == '-') {
+                text.append((char) c);
+                position++;
+            }
+            if (!isDigit(peek())) {
+                throw error("Expected a digit");
+            }
+            readDigits();
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private int readDigits() throws IOException {
+        int c = peek();
+        while (isDigit(c)) {
+            text.append((char) c);
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Reads the contents of a string after the opening quote into {@link #text}.
+     */
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\' || c < ' ') {
+                    break;
+                }
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            int c = peek();
+            if (c < 0) {
+                throw error("Unterminated string");
+            } else if (c == '"') {
+                position++;
+                return;
+            } else if (c == '\\') {
+                position++;
+                text.append(readEscape());
+            } else if (c < ' ') {
+                throw error("Control character in a string");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = peek();
+        position++;
+        switch (c) {
+            case '"':
+                return '"';
+            case '\\':
+                return '\\';
+            case '/':
+                return '/';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(peek(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                    position++;
+                }
+                return (char) value;
+            default:
+                position--;
+                throw error("Invalid escape sequence");
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == '\n') {
+                line++;
+                lineStart = consumed + position + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Returns the character at the current position without consuming it, or {@code -1} at the
+     * end of the input.
+     */
+    private int peek() throws IOException {
+        if (position == limit) {
+            consumed += limit;
+            position = 0;
+            limit = 0;
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return -1;
+            }
+            limit = read;
+        }
+        return buffer[position];
+    }
+
+    private JSONParserException error(String message) {
+        long column = consumed + position - lineStart + 1;
+        return new JSONParserException(message + " at line " + line + ", column " + column);
+    }
+}
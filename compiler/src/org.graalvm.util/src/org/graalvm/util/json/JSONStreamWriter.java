@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.util.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.MapCursor;
+
+/**
+ * Writes JSON directly to a {@link Writer} or a {@link ByteBuffer} without building an
+ * intermediate object tree. The output is formatted like the compact output of
+ * {@link JSONFormatter}:
+ *
+ * <pre>
+ * JSONStreamWriter json = JSONStreamWriter.of(writer);
+ * json.beginObject().name("id").value(42).name("phases").beginArray().value("A").value("B").endArray().endObject();
+ * json.flush();
+ * </pre>
+ *
+ * produces {@code {"id": 42, "phases": ["A", "B"]}}. The writer checks that names and values are
+ * written in a valid order and throws an {@link IllegalStateException} otherwise. Numbers and
+ * string contents are written character by character into a reusable buffer, so writing does not
+ * allocate except for {@code double} values.
+ *
+ * A writer for a {@link ByteBuffer} encodes the output in UTF-8 and throws a
+ * {@link BufferOverflowException} when the buffer is full.
+ */
+public abstract class JSONStreamWriter implements Closeable, Flushable {
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    /**
+     * The stack of the enclosing scopes. The last element is the innermost scope.
+     */
+    private int[] scopes = new int[16];
+
+    private int depth;
+
+    /**
+     * Buffer for the digits of integral numbers.
+     */
+    private final char[] digits = new char[20];
+
+    private JSONStreamWriter() {
+        scopes[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Creates a writer which writes to a {@link Writer}. The output is buffered; {@link #flush()}
+     * or {@link #close()} the JSON writer to write it.
+     */
+    public static JSONStreamWriter of(Writer writer) {
+        return new WriterJSONStreamWriter(writer);
+    }
+
+    /**
+     * Creates a writer which writes UTF-8 encoded output to a {@link ByteBuffer} starting at its
+     * current position.
+     */
+    public static JSONStreamWriter of(ByteBuffer buffer) {
+        return new ByteBufferJSONStreamWriter(buffer);
+    }
+
+    abstract void write(char c) throws IOException;
+
+    abstract void write(String s, int start, int end) throws IOException;
+
+    public JSONStreamWriter beginObject() throws IOException {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        write('{');
+        return this;
+    }
+
+    public JSONStreamWriter endObject() throws IOException {
+        int scope = peek();
+        if (scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT) {
+            throw new IllegalStateException("Not in an object");
+        }
+        depth--;
+        write('}');
+        return this;
+    }
+
+    public JSONStreamWriter beginArray() throws IOException {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        write('[');
+        return this;
+    }
+
+    public JSONStreamWriter endArray() throws IOException {
+        int scope = peek();
+        if (scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY) {
+            throw new IllegalStateException("Not in an array");
+        }
+        depth--;
+        write(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next member of the enclosing object.
+     */
+    public JSONStreamWriter name(String name) throws IOException {
+        int scope = peek();
+        if (scope == NONEMPTY_OBJECT) {
+            write(',');
+            write(' ');
+        } else if (scope != EMPTY_OBJECT) {
+            throw new IllegalStateException("Names are only allowed in objects");
+        }
+        scopes[depth - 1] = DANGLING_NAME;
+        writeQuoted(name);
+        write(':');
+        write(' ');
+        return this;
+    }
+
+    public JSONStreamWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeQuoted(value);
+        return this;
+    }
+
+    public JSONStreamWriter value(long value) throws IOException {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JSONStreamWriter value(double value) throws IOException {
+        beforeValue();
+        String s = Double.toString(value);
+        write(s, 0, s.length());
+        return this;
+    }
+
+    public JSONStreamWriter value(boolean value) throws IOException {
+        beforeValue();
+        String s = value ? "true" : "false";
+        write(s, 0, s.length());
+        return this;
+    }
+
+    public JSONStreamWriter nullValue() throws IOException {
+        beforeValue();
+        write("null", 0, 4);
+        return this;
+    }
+
+    /**
+     * Writes a value of any type supported by {@link JSONFormatter}, i.e., {@link EconomicMap maps},
+     * {@link List lists}, numbers, booleans, {@code null} and values converted with
+     * {@link String#valueOf(Object)}.
+     */
+    public JSONStreamWriter value(Object value) throws IOException {
+        if (value instanceof EconomicMap<?, ?>) {
+            beginObject();
+            MapCursor<?, ?> cursor = ((EconomicMap<?, ?>) value).getEntries();
+            while (cursor.advance()) {
+                name((String) cursor.getKey());
+                value(cursor.getValue());
+            }
+            return endObject();
+        } else if (value instanceof List<?>) {
+            beginArray();
+            for (Object element : (List<?>) value) {
+                value(element);
+            }
+            return endArray();
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        } else if (value instanceof Number || value instanceof Boolean || value == null) {
+            beforeValue();
+            String s = String.valueOf(value);
+            write(s, 0, s.length());
+            return this;
+        } else if (value instanceof Map<?, ?>) {
+            throw new IllegalArgumentException(value + " must use EconomicMap");
+        }
+        return value(String.valueOf(value));
+    }
+
+    private void push(int scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    private int peek() {
+        return scopes[depth - 1];
+    }
+
+    private void beforeValue() throws IOException {
+        switch (peek()) {
+            case EMPTY_DOCUMENT:
+                scopes[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case EMPTY_ARRAY:
+                scopes[depth - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                write(',');
+                write(' ');
+                break;
+            case DANGLING_NAME:
+                scopes[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                throw new IllegalStateException("A JSON document must have only one top-level value");
+            default:
+                throw new IllegalStateException("A value in an object must be preceded by a name");
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            String s = Long.toString(value);
+            write(s, 0, s.length());
+            return;
+        }
+        long remaining = Math.abs(value);
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            write('-');
+        }
+        for (int i = position; i < digits.length; i++) {
+            write(digits[i]);
+        }
+    }
+
+    private void writeQuoted(String value) throws IOException {
+        write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+            write(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    write("\\\"", 0, 2);
+                    break;
+                case '\\':
+                    write("\\\\", 0, 2);
+                    break;
+                case '\b':
+                    write("\\b", 0, 2);
+                    break;
+                case '\f':
+                    write("\\f", 0, 2);
+                    break;
+                case '\n':
+                    write("\\n", 0, 2);
+                    break;
+                case '\r':
+                    write("\\r", 0, 2);
+                    break;
+                case '\t':
+                    write("\\t", 0, 2);
+                    break;
+                default:
+                    write("\\u00", 0, 4);
+                    write(Character.forDigit((c >> 4) & 0xF, 16));
+                    write(Character.forDigit(c & 0xF, 16));
+                    break;
+            }
+        }
+        write(value, start, length);
+        write('"');
+    }
+
+    /**
+     * Checks that the document is complete and flushes and closes the destination.
+     *
+     * @throws IllegalStateException if the document is incomplete
+     */
+    @Override
+    public void close() throws IOException {
+        if (depth != 1 || peek() != NONEMPTY_DOCUMENT) {
+            throw new IllegalStateException("Incomplete JSON document");
+        }
+        flush();
+    }
+
+    private static final class WriterJSONStreamWriter extends JSONStreamWriter {
+        private final Writer writer;
+        private final char[] buffer = new char[4096];
+        private int position;
+
+        WriterJSONStreamWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void write(char c) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = c;
+        }
+
+        @Override
+        void write(String s, int start, int end) throws IOException {
+            int current = start;
+            while (current < end) {
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+                int count = Math.min(end - current, buffer.length - position);
+                s.getChars(current, current + count, buffer, position);
+                position += count;
+                current += count;
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            writer.close();
+        }
+    }
+
+    private static final class ByteBufferJSONStreamWriter extends JSONStreamWriter {
+        private final ByteBuffer buffer;
+
+        /**
+         * The high surrogate of a pair whose low surrogate has not been written yet.
+         */
+        private char highSurrogate;
+
+        ByteBufferJSONStreamWriter(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        void write(char c) {
+            if (highSurrogate != 0 && !Character.isLowSurrogate(c)) {
+                // an unpaired surrogate
+                putThreeBytes(highSurrogate);
+                highSurrogate = 0;
+            }
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+                int codePoint = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                putThreeBytes(c);
+            }
+        }
+
+        private void putThreeBytes(char c) {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+
+        @Override
+        void write(String s, int start, int end) {
+            for (int i = start; i < end; i++) {
+                write(s.charAt(i));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
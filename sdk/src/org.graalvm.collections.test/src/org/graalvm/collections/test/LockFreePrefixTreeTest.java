@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.collections.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.collections.LockFreePrefixTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LockFreePrefixTreeTest {
+
+    @Test
+    public void smallAlphabet() {
+        LockFreePrefixTree tree = new LockFreePrefixTree();
+
+        tree.root().at(2L).at(12L).at(18L).setValue(42);
+        tree.root().at(2L).at(12L).at(19L).setValue(43);
+        tree.root().at(2L).at(12L).at(20L).setValue(44);
+
+        Assert.assertEquals(42, tree.root().at(2L).at(12L).at(18L).value());
+        Assert.assertEquals(43, tree.root().at(2L).at(12L).at(19L).value());
+        Assert.assertEquals(44, tree.root().at(2L).at(12L).at(20L).value());
+
+        tree.root().at(3L).at(19L).setValue(21);
+
+        Assert.assertEquals(42, tree.root().at(2L).at(12L).at(18L).value());
+        Assert.assertEquals(21, tree.root().at(3L).at(19L).value());
+
+        tree.root().at(2L).at(6L).at(11L).setValue(123);
+
+        Assert.assertEquals(123, tree.root().at(2L).at(6L).at(11L).value());
+
+        tree.root().at(3L).at(19L).at(11L).incValue();
+        tree.root().at(3L).at(19L).at(11L).incValue();
+
+        Assert.assertEquals(2, tree.root().at(3L).at(19L).at(11L).value());
+    }
+
+    @Test
+    public void largeAlphabet() {
+        LockFreePrefixTree tree = new LockFreePrefixTree();
+        for (long i = 1L; i < 128L; i++) {
+            LockFreePrefixTree.Node first = tree.root().at(i);
+            for (long j = 1L; j < 64L; j++) {
+                LockFreePrefixTree.Node second = first.at(j);
+                second.setValue((i << 32) + j);
+            }
+        }
+        for (long i = 1L; i < 128L; i++) {
+            LockFreePrefixTree.Node first = tree.root().at(i);
+            for (long j = 1L; j < 64L; j++) {
+                LockFreePrefixTree.Node second = first.at(j);
+                Assert.assertEquals((i << 32) + j, second.value());
+            }
+        }
+    }
+
+    @Test
+    public void hashFlatMultithreaded() throws InterruptedException {
+        final LockFreePrefixTree tree = new LockFreePrefixTree();
+        final int parallelism = 8;
+        final int multiplier = 128;
+        final long batch = 2000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < parallelism; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 1; i < multiplier * batch; i++) {
+                    tree.root().at((i % batch) + 1).incValue();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long expected = (long) parallelism * (multiplier * batch - 1);
+        Assert.assertEquals(expected, sumValues(tree.root()));
+        for (long key = 1L; key <= batch; key++) {
+            long perKey = tree.root().at(key).value();
+            Assert.assertTrue("key " + key + " has value " + perKey, perKey >= (long) parallelism * (multiplier - 1));
+        }
+    }
+
+    @Test
+    public void deepHashMultithreaded() throws InterruptedException {
+        final LockFreePrefixTree tree = new LockFreePrefixTree();
+        final int parallelism = 8;
+        final long depth = 24L;
+        final long width = 32L;
+        final int repetitions = 16;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < parallelism; t++) {
+            threads.add(new Thread(() -> {
+                for (int r = 0; r < repetitions; r++) {
+                    for (long w = 1L; w <= width; w++) {
+                        LockFreePrefixTree.Node node = tree.root().at(w);
+                        for (long d = 1L; d <= depth; d++) {
+                            node = node.at(d * width + w);
+                        }
+                        node.incValue();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long w = 1L; w <= width; w++) {
+            LockFreePrefixTree.Node node = tree.root().at(w);
+            for (long d = 1L; d <= depth; d++) {
+                node = node.at(d * width + w);
+            }
+            Assert.assertEquals(parallelism * repetitions, node.value());
+        }
+        Assert.assertEquals(parallelism * repetitions * width, sumValues(tree.root()));
+    }
+
+    private static long sumValues(LockFreePrefixTree.Node root) {
+        AtomicLong sum = new AtomicLong();
+        root.topDown(null, (context, key) -> null, (context, value) -> sum.addAndGet(value));
+        return sum.get();
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Thread-safe and lock-free prefix-tree implementation in which keys are sequences of 64-bit
+ * values, and the values are 64-bit values. This class offers the same operations as
+ * {@link SeqLockPrefixTree}, but none of them ever block, so concurrent writers on the same subtree
+ * do not serialize behind a monitor.
+ * <p>
+ * Each node points to a set of child nodes, where each child is associated with a key. The set of
+ * child nodes is represented as {@code null} if the set is empty, an array-list if the set is
+ * small, or an open-addressing hash table if the set is large. In all cases, the keys and the
+ * child nodes are kept in separate atomic arrays, which are wrapped in an immutable
+ * {@code Children} object that is installed into the node with a compare-and-swap.
+ * <p>
+ * The {@code at} operation adds a child in two steps: it first claims an empty slot by atomically
+ * writing the key into the key array, and then publishes the new child by atomically writing it
+ * into the child array at the same index. A thread that finds a claimed key whose child is not yet
+ * published simply waits for the publication, which is always done without any blocking operation
+ * in between.
+ * <p>
+ * When a {@code Children} object becomes full, it is <i>frozen</i> by atomically writing a
+ * sentinel node into every unpublished child slot. After that, no child can be added to the frozen
+ * object anymore, so any thread can copy its published children into a larger {@code Children}
+ * object and try to install the copy with a compare-and-swap. A key that was claimed, but whose
+ * child slot got frozen, is not copied; the thread that claimed it retries the insertion on the
+ * new object. Since all copies of a frozen object have the same contents, it does not matter which
+ * of the concurrently resizing threads wins.
+ *
+ * @since 23.0
+ */
+public class LockFreePrefixTree {
+    private static final int INITIAL_LINEAR_NODE_SIZE = 3;
+    private static final int INITIAL_HASH_NODE_SIZE = 16;
+    private static final int MAX_LINEAR_NODE_SIZE = 6;
+    private static final long EMPTY_KEY = 0L;
+    private static final double HASH_NODE_LOAD_FACTOR = 0.5;
+
+    interface Visitor<R> {
+        R visit(Node n, List<R> childResults);
+    }
+
+    /**
+     * Marks a child slot that can no longer be published, because its {@code Children} object is
+     * being replaced by a larger one.
+     */
+    private static final Node FROZEN = new Node();
+
+    private static final class Children {
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<Node> nodes;
+        final AtomicInteger arity;
+        final boolean hashed;
+
+        Children(int capacity, boolean hashed) {
+            this.keys = new AtomicLongArray(capacity);
+            this.nodes = new AtomicReferenceArray<>(capacity);
+            this.arity = new AtomicInteger();
+            this.hashed = hashed;
+        }
+
+        int capacity() {
+            return keys.length();
+        }
+
+        boolean mustGrow() {
+            if (hashed) {
+                return ((double) arity.get() + 1) / capacity() > HASH_NODE_LOAD_FACTOR;
+            }
+            return arity.get() == capacity();
+        }
+    }
+
+    /**
+     * @since 23.0
+     */
+    public static final class Node extends AtomicLong {
+
+        private static final long serialVersionUID = -1L;
+
+        private static final AtomicReferenceFieldUpdater<Node, Children> CHILDREN_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Node.class, Children.class, "children");
+
+        private volatile Children children;
+
+        private Node() {
+            this.children = null;
+        }
+
+        /**
+         * @return The value of the {@link LockFreePrefixTree.Node}
+         * @since 23.0
+         */
+        public long value() {
+            return get();
+        }
+
+        /**
+         * Increment value.
+         *
+         * @return newly incremented value of the {@link LockFreePrefixTree.Node}.
+         *
+         * @since 23.0
+         */
+        public long incValue() {
+            return incrementAndGet();
+        }
+
+        /**
+         * Set the value for the {@link LockFreePrefixTree.Node}.
+         *
+         * @param value the new value.
+         * @since 23.0
+         */
+        public void setValue(long value) {
+            set(value);
+        }
+
+        /**
+         * Get existing (or create if missing) child with the given key.
+         *
+         * @param key the key of the child.
+         * @return The child with the given childKey.
+         * @since 23.0
+         */
+        public Node at(long key) {
+            if (key == EMPTY_KEY) {
+                throw new IllegalArgumentException("Key in the prefix tree cannot be 0.");
+            }
+            while (true) {
+                Children current = children;
+                if (current == null) {
+                    CHILDREN_UPDATER.compareAndSet(this, null, new Children(INITIAL_LINEAR_NODE_SIZE, false));
+                    continue;
+                }
+                Node child = findOrAddChild(current, key);
+                if (child != null) {
+                    return child;
+                }
+                // The children object is full or frozen, replace it and retry.
+                grow(current);
+            }
+        }
+
+        /**
+         * Returns the child with the given key, adds a new child if there is no child with that
+         * key, or returns {@code null} if the children object must be replaced first.
+         */
+        private static Node findOrAddChild(Children current, long key) {
+            final int capacity = current.capacity();
+            int index = current.hashed ? hash(key) % capacity : 0;
+            for (int probes = 0; probes < capacity; probes++) {
+                long curkey = current.keys.get(index);
+                if (curkey == EMPTY_KEY) {
+                    if (current.mustGrow()) {
+                        return null;
+                    }
+                    if (!current.keys.compareAndSet(index, EMPTY_KEY, key)) {
+                        // Another thread claimed this slot, re-examine it.
+                        curkey = current.keys.get(index);
+                    } else {
+                        Node child = new Node();
+                        if (current.nodes.compareAndSet(index, null, child)) {
+                            current.arity.incrementAndGet();
+                            return child;
+                        }
+                        // The slot was frozen before the child could be published.
+                        return null;
+                    }
+                }
+                if (curkey == key) {
+                    return awaitChild(current, index);
+                }
+                index = index + 1 == capacity ? 0 : index + 1;
+            }
+            return null;
+        }
+
+        private static Node awaitChild(Children current, int index) {
+            Node child;
+            while ((child = current.nodes.get(index)) == null) {
+                // The slot was claimed, but the child was not yet published.
+                Thread.onSpinWait();
+            }
+            return child == FROZEN ? null : child;
+        }
+
+        private void grow(Children current) {
+            // Freeze, so that no other thread can publish a child into the old object.
+            for (int i = 0; i < current.capacity(); i++) {
+                current.nodes.compareAndSet(i, null, FROZEN);
+            }
+            boolean hashed = current.hashed || current.capacity() * 2 > MAX_LINEAR_NODE_SIZE;
+            int capacity;
+            if (hashed) {
+                capacity = current.hashed ? 2 * current.capacity() : INITIAL_HASH_NODE_SIZE;
+            } else {
+                capacity = 2 * current.capacity();
+            }
+            Children grown = new Children(capacity, hashed);
+            for (int i = 0; i < current.capacity(); i++) {
+                Node child = current.nodes.get(i);
+                if (child != FROZEN) {
+                    addChildToNonFullChildren(grown, current.keys.get(i), child);
+                }
+            }
+            CHILDREN_UPDATER.compareAndSet(this, current, grown);
+        }
+
+        private static void addChildToNonFullChildren(Children target, long key, Node child) {
+            final int capacity = target.capacity();
+            int index = target.hashed ? hash(key) % capacity : target.arity.get();
+            while (target.keys.get(index) != EMPTY_KEY) {
+                index = index + 1 == capacity ? 0 : index + 1;
+            }
+            target.keys.set(index, key);
+            target.nodes.set(index, child);
+            target.arity.incrementAndGet();
+        }
+
+        private static int hash(long key) {
+            long v = key * 0x9e3775cd9e3775cdL;
+            v = Long.reverseBytes(v);
+            v = v * 0x9e3775cd9e3775cdL;
+            return 0x7fff_ffff & (int) (v ^ (v >> 32));
+        }
+
+        @SuppressWarnings("unused")
+        private <R> R bottomUp(Visitor<R> visitor) {
+            List<R> results = new ArrayList<>();
+            Children childrenSnapshot = children;
+            if (childrenSnapshot != null) {
+                for (int i = 0; i < childrenSnapshot.capacity(); i++) {
+                    Node child = childrenSnapshot.nodes.get(i);
+                    if (child != null && child != FROZEN) {
+                        results.add(child.bottomUp(visitor));
+                    }
+                }
+            }
+            return visitor.visit(this, results);
+        }
+
+        /**
+         * Traverse the tree top-down while maintaining a context.
+         *
+         * The context is a generic data structure corresponding to the depth of the traversal, i.e.
+         * given the currentContext and a createContext function, a new context is created for each
+         * visited child using the createContext function, starting with initialContext.
+         *
+         * Children that are added concurrently with the traversal may or may not be visited.
+         *
+         * @param currentContext The context for the root of the tree
+         * @param createContext A function defining how the context for children is created
+         * @param consumeValue A function that consumes the nodes value
+         * @param <C> The type of the context
+         *
+         * @since 23.0
+         */
+        public <C> void topDown(C currentContext, BiFunction<C, Long, C> createContext, BiConsumer<C, Long> consumeValue) {
+            Children childrenSnapshot = children;
+            consumeValue.accept(currentContext, get());
+
+            if (childrenSnapshot == null) {
+                return;
+            }
+
+            for (int i = 0; i < childrenSnapshot.capacity(); i++) {
+                Node child = childrenSnapshot.nodes.get(i);
+                if (child != null && child != FROZEN) {
+                    long key = childrenSnapshot.keys.get(i);
+                    C extendedContext = createContext.apply(currentContext, key);
+                    child.topDown(extendedContext, createContext, consumeValue);
+                }
+            }
+        }
+
+        /**
+         * @since 23.0
+         */
+        @Override
+        public String toString() {
+            return "Node<" + value() + ">";
+        }
+    }
+
+    private final Node root;
+
+    /**
+     * Create new {@link LockFreePrefixTree} with root being a Node with key 0.
+     *
+     * @since 23.0
+     */
+    public LockFreePrefixTree() {
+        this.root = new Node();
+    }
+
+    /**
+     * The root node of the tree.
+     *
+     * @return the root of the tree
+     *
+     * @since 23.0
+     */
+    public Node root() {
+        return root;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oracle.truffle.api.strings.MutableTruffleString;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Compares incremental string building with eager and lazy {@link TruffleString} concatenation.
+ * The lazy variants defer copying until the result is first accessed, so building a string of
+ * {@code pieces} appends is linear instead of quadratic in the result length.
+ */
+@State(Scope.Thread)
+@Fork(value = 1)
+public class TStringConcatBenchmark {
+
+    private static final TruffleString.Encoding UTF_16 = TruffleString.Encoding.UTF_16;
+
+    @Param({"10", "100", "1000"}) int pieces;
+
+    private final TruffleString.ConcatNode concatNode = TruffleString.ConcatNode.getUncached();
+    private final MutableTruffleString.ConcatNode mutableConcatNode = MutableTruffleString.ConcatNode.getUncached();
+    private final TruffleString.ReadCharUTF16Node readCharNode = TruffleString.ReadCharUTF16Node.getUncached();
+    private final TruffleString.CodePointLengthNode codePointLengthNode = TruffleString.CodePointLengthNode.getUncached();
+
+    private TruffleString[] parts;
+    private TruffleString empty;
+
+    @Setup
+    public void setup() {
+        parts = new TruffleString[pieces];
+        for (int i = 0; i < pieces; i++) {
+            parts[i] = TruffleString.fromJavaStringUncached("piece-" + i + "-abcdefghijklmnop", UTF_16);
+        }
+        empty = TruffleString.fromJavaStringUncached("", UTF_16);
+    }
+
+    private TruffleString build(boolean lazy) {
+        TruffleString result = empty;
+        for (TruffleString part : parts) {
+            result = concatNode.execute(result, part, UTF_16, lazy);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public TruffleString buildEager() {
+        return build(false);
+    }
+
+    @Benchmark
+    public TruffleString buildLazy() {
+        return build(true);
+    }
+
+    /**
+     * Includes the cost of flattening the rope on the first random access.
+     */
+    @Benchmark
+    public int buildLazyThenRead() {
+        TruffleString result = build(true);
+        return readCharNode.execute(result, result.byteLength(UTF_16) / 4);
+    }
+
+    /**
+     * Attributes of a lazy concatenation are derived from its operands and must not force
+     * flattening.
+     */
+    @Benchmark
+    public int buildLazyThenLength() {
+        return codePointLengthNode.execute(build(true), UTF_16);
+    }
+
+    @Benchmark
+    public MutableTruffleString buildMutable() {
+        MutableTruffleString result = MutableTruffleString.AsMutableTruffleStringNode.getUncached().execute(empty, UTF_16);
+        for (TruffleString part : parts) {
+            result = mutableConcatNode.execute(result, part, UTF_16);
+        }
+        return result;
+    }
+}
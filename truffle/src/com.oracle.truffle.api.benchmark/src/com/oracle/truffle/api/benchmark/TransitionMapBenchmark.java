@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.DynamicObjectLibrary;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * Measures contention on the shape transition maps when many threads add properties to objects of
+ * the same, popular shapes.
+ */
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+public class TransitionMapBenchmark {
+
+    private static final DynamicObjectLibrary LIBRARY = DynamicObjectLibrary.getUncached();
+    private static final int DEPTH = 8;
+
+    static final class BenchmarkObject extends DynamicObject {
+        BenchmarkObject(Shape shape) {
+            super(shape);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedShapes {
+        /** Number of different properties added to the empty shape. */
+        @Param({"1", "64"}) int fanOut;
+
+        Shape emptyShape;
+        String[] firstKeys;
+        String[] keys;
+
+        @Setup
+        public void setup() {
+            emptyShape = Shape.newBuilder().build();
+            firstKeys = new String[fanOut];
+            for (int i = 0; i < fanOut; i++) {
+                firstKeys[i] = "first" + i;
+            }
+            keys = new String[DEPTH];
+            for (int i = 0; i < DEPTH; i++) {
+                keys[i] = "p" + i;
+            }
+            /* Create all transitions up front, so the benchmark measures lookups. */
+            for (int i = 0; i < fanOut; i++) {
+                build(this, i);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int next;
+    }
+
+    static DynamicObject build(SharedShapes shapes, int first) {
+        DynamicObject obj = new BenchmarkObject(shapes.emptyShape);
+        LIBRARY.put(obj, shapes.firstKeys[first], first);
+        for (String key : shapes.keys) {
+            LIBRARY.put(obj, key, first);
+        }
+        return obj;
+    }
+
+    private static DynamicObject next(SharedShapes shapes, ThreadState state) {
+        int first = state.next;
+        state.next = first + 1 == shapes.fanOut ? 0 : first + 1;
+        return build(shapes, first);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DynamicObject transitions1Thread(SharedShapes shapes, ThreadState state) {
+        return next(shapes, state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DynamicObject transitions8Threads(SharedShapes shapes, ThreadState state) {
+        return next(shapes, state);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public DynamicObject transitions64Threads(SharedShapes shapes, ThreadState state) {
+        return next(shapes, state);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.staticobject.test;
+
+import java.lang.reflect.Method;
+
+import org.graalvm.polyglot.Context;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.TruffleLanguage.ContextPolicy;
+import com.oracle.truffle.api.staticobject.DefaultStaticProperty;
+import com.oracle.truffle.api.staticobject.StaticProperty;
+import com.oracle.truffle.api.staticobject.StaticShape;
+
+/**
+ * Tests that the array-based storage and factory classes of a shape are generated once and shared
+ * by all language instances.
+ */
+public class ShapeGeneratorCacheTest {
+
+    static final String LANGUAGE_ID = "ShapeGeneratorCacheTestLanguage";
+    private static final String SHAPE_GENERATOR_CACHE = "com.oracle.truffle.api.staticobject.ShapeGeneratorCache";
+
+    @TruffleLanguage.Registration(id = LANGUAGE_ID, name = LANGUAGE_ID, contextPolicy = ContextPolicy.EXCLUSIVE)
+    public static final class CacheTestLanguage extends TruffleLanguage<CacheTestLanguage> {
+
+        private static final ContextReference<CacheTestLanguage> REFERENCE = ContextReference.create(CacheTestLanguage.class);
+
+        @Override
+        protected CacheTestLanguage createContext(Env env) {
+            return this;
+        }
+    }
+
+    /**
+     * Storage super class used by this test only, so that its generated classes are not shared
+     * with other tests.
+     */
+    public static class CacheTestObject {
+    }
+
+    public interface CacheTestFactory {
+        CacheTestObject create();
+    }
+
+    private static Class<?> buildStorageClass() {
+        try (Context context = Context.newBuilder(LANGUAGE_ID).allowExperimentalOptions(true).option("engine.StaticObjectStorageStrategy", "array-based").build()) {
+            context.initialize(LANGUAGE_ID);
+            context.enter();
+            try {
+                TruffleLanguage<?> language = CacheTestLanguage.REFERENCE.get(null);
+                StaticProperty property = new DefaultStaticProperty("value");
+                StaticShape<CacheTestFactory> shape = StaticShape.newBuilder(language).property(property, int.class, false).build(CacheTestObject.class, CacheTestFactory.class);
+                CacheTestObject object = shape.getFactory().create();
+                property.setInt(object, 42);
+                Assert.assertEquals(42, property.getInt(object));
+                return object.getClass();
+            } finally {
+                context.leave();
+            }
+        }
+    }
+
+    private static long counter(String name) throws ReflectiveOperationException {
+        Method method = Class.forName(SHAPE_GENERATOR_CACHE).getDeclaredMethod(name);
+        method.setAccessible(true);
+        return (long) method.invoke(null);
+    }
+
+    @Test
+    public void testClassesGeneratedOnce() throws ReflectiveOperationException {
+        long generatedClasses = counter("getGeneratedClasses");
+        long hits = counter("getHits");
+        long misses = counter("getMisses");
+        long lostRaces = counter("getLostRaces");
+
+        Class<?> first = buildStorageClass();
+        Class<?> second = buildStorageClass();
+
+        Assert.assertSame(first, second);
+        // one storage class and one factory class
+        Assert.assertEquals(2, counter("getGeneratedClasses") - generatedClasses);
+        Assert.assertEquals(1, counter("getMisses") - misses);
+        Assert.assertEquals(0, counter("getLostRaces") - lostRaces);
+        Assert.assertTrue(counter("getHits") - hits >= 1);
+    }
+}
@@ -152,9 +152,19 @@ final class ArrayBasedShapeGenerator<T> extends ShapeGenerator<T> {
             if (ImageInfo.inImageRuntimeCode()) {
                 throw new IllegalStateException("This code should not be executed at Native Image run time. Please report this issue");
             }
-            Class<?> generatedStorageClass = generateStorage(gcl, storageSuperClass, storageClassName);
-            Class<? extends T> generatedFactoryClass = generateFactory(gcl, generatedStorageClass, storageFactoryInterface);
-            sg = new ArrayBasedShapeGenerator<>(generatedStorageClass, generatedFactoryClass);
+            // Generated classes do not depend on the language instance, reuse those generated
+            // for other engines and contexts. At image build time the generators of all
+            // language instances are collected from generatorCache instead.
+            sg = TruffleOptions.AOT ? null : ShapeGeneratorCache.get(storageSuperClass, storageFactoryInterface);
+            if (sg == null) {
+                Class<?> generatedStorageClass = generateStorage(gcl, storageSuperClass, storageClassName);
+                Class<? extends T> generatedFactoryClass = generateFactory(gcl, generatedStorageClass, storageFactoryInterface);
+                sg = new ArrayBasedShapeGenerator<>(generatedStorageClass, generatedFactoryClass);
+                if (!TruffleOptions.AOT) {
+                    ShapeGeneratorCache.classesGenerated(storageSuperClass, storageFactoryInterface, 2);
+                    sg = ShapeGeneratorCache.putIfAbsent(storageSuperClass, storageFactoryInterface, sg);
+                }
+            }
             ArrayBasedShapeGenerator<T> prevSg = (ArrayBasedShapeGenerator<T>) cache.putIfAbsent(pair, sg);
             if (prevSg != null) {
                 sg = prevSg;
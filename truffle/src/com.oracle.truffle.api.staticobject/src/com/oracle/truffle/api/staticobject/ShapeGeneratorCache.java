@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.staticobject;
+
+import java.io.PrintStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of {@linkplain ArrayBasedShapeGenerator array-based shape generators} shared by all
+ * engines and contexts of the VM. The storage and factory classes of an array-based generator
+ * only depend on the storage super class and the factory interface; property values are stored
+ * in arrays whose sizes are kept in the factory instance of each shape. Generated classes can
+ * therefore be reused by all language instances, instead of being generated again for every
+ * context that uses an exclusive language instance.
+ * <p>
+ * Entries are stored in a {@link ClassValue} of the factory interface. The class loader of the
+ * factory interface can see the storage super class, and generated classes are defined by a
+ * {@link GeneratorClassLoader} whose parent is that class loader. A cache entry does therefore not
+ * extend the lifetime of any class or class loader beyond the one of the factory interface.
+ * <p>
+ * The running totals of cache hits, misses, lost races and generated classes are available from
+ * {@link #getHits()}, {@link #getMisses()}, {@link #getLostRaces()} and
+ * {@link #getGeneratedClasses()}. Set the {@code truffle.staticobject.TraceShapeCache} system
+ * property to {@code true} to additionally trace them whenever they change.
+ */
+final class ShapeGeneratorCache {
+
+    private static final boolean TRACE = Boolean.getBoolean("truffle.staticobject.TraceShapeCache");
+
+    private static final ClassValue<ConcurrentHashMap<Class<?>, ArrayBasedShapeGenerator<?>>> GENERATORS = new ClassValue<>() {
+        @Override
+        protected ConcurrentHashMap<Class<?>, ArrayBasedShapeGenerator<?>> computeValue(Class<?> storageFactoryInterface) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong lostRaces = new AtomicLong();
+    private static final AtomicLong generatedClasses = new AtomicLong();
+
+    private ShapeGeneratorCache() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ArrayBasedShapeGenerator<T> get(Class<?> storageSuperClass, Class<T> storageFactoryInterface) {
+        ArrayBasedShapeGenerator<T> sg = (ArrayBasedShapeGenerator<T>) GENERATORS.get(storageFactoryInterface).get(storageSuperClass);
+        if (sg != null) {
+            long totalHits = hits.incrementAndGet();
+            if (TRACE) {
+                trace("[static-object] Reusing generated classes for super class %s and factory %s (cache hits: %d, misses: %d)%n", storageSuperClass.getName(), storageFactoryInterface.getName(),
+                                totalHits, misses.get());
+            }
+        }
+        return sg;
+    }
+
+    /**
+     * Registers a new generator. Returns the generator that is already registered for the same
+     * classes if another thread won the race, otherwise {@code sg}. Only a registered generator
+     * counts as a miss, a generator that loses the race counts as a lost race.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ArrayBasedShapeGenerator<T> putIfAbsent(Class<?> storageSuperClass, Class<T> storageFactoryInterface, ArrayBasedShapeGenerator<T> sg) {
+        ArrayBasedShapeGenerator<T> prevSg = (ArrayBasedShapeGenerator<T>) GENERATORS.get(storageFactoryInterface).putIfAbsent(storageSuperClass, sg);
+        if (prevSg != null) {
+            long totalLostRaces = lostRaces.incrementAndGet();
+            if (TRACE) {
+                trace("[static-object] Discarding generated classes for super class %s and factory %s after a lost race (lost races: %d)%n", storageSuperClass.getName(),
+                                storageFactoryInterface.getName(), totalLostRaces);
+            }
+            return prevSg;
+        }
+        misses.incrementAndGet();
+        return sg;
+    }
+
+    /**
+     * Records that {@code count} classes were defined for a storage super class and factory
+     * interface. Also counts classes of generators that lose a {@link #putIfAbsent} race, since
+     * they occupy metaspace until their class loader is collected.
+     */
+    static void classesGenerated(Class<?> storageSuperClass, Class<?> storageFactoryInterface, int count) {
+        long total = generatedClasses.addAndGet(count);
+        if (TRACE) {
+            trace("[static-object] Generated %d classes for super class %s and factory %s (generated classes: %d, cache hits: %d, misses: %d)%n", count, storageSuperClass.getName(),
+                            storageFactoryInterface.getName(), total, hits.get(), misses.get());
+        }
+    }
+
+    /**
+     * Gets the number of shape generators that were reused from this cache.
+     */
+    static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of shape generators that were generated and registered in this cache.
+     */
+    static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of shape generators that were generated concurrently with an equivalent one
+     * and discarded.
+     */
+    static long getLostRaces() {
+        return lostRaces.get();
+    }
+
+    /**
+     * Gets the number of classes defined for shape generators, including the classes of
+     * generators that lost a race.
+     */
+    static long getGeneratedClasses() {
+        return generatedClasses.get();
+    }
+
+    private static void trace(String message, Object... args) {
+        PrintStream out = System.err;
+        out.printf(message, args);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.oracle.truffle.api.strings.test;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.strings.MutableTruffleString;
+import com.oracle.truffle.api.strings.TruffleString;
+
+public class TStringLazyConcatTest extends TStringTestBase {
+
+    private static final TruffleString.Encoding UTF_16 = TruffleString.Encoding.UTF_16;
+    private static final TruffleString.Encoding UTF_8 = TruffleString.Encoding.UTF_8;
+
+    private static final TruffleString.ConcatNode CONCAT = TruffleString.ConcatNode.getUncached();
+
+    @Test
+    public void testIncrementalBuild() {
+        StringBuilder expected = new StringBuilder();
+        TruffleString result = TruffleString.fromJavaStringUncached("", UTF_16);
+        for (int i = 0; i < 5000; i++) {
+            String piece = i == 4000 ? "\u00e4\u00f6\u00fc-" + i : "piece-" + i + "-abcdefghijklmnopqrstuvwxyz";
+            expected.append(piece);
+            result = CONCAT.execute(result, TruffleString.fromJavaStringUncached(piece, UTF_16), UTF_16, true);
+            if (i == 3999) {
+                // attributes of the lazy string are known without flattening
+                Assert.assertEquals(TruffleString.CodeRange.ASCII, TruffleString.GetCodeRangeNode.getUncached().execute(result, UTF_16));
+                Assert.assertEquals(expected.length(), TruffleString.CodePointLengthNode.getUncached().execute(result, UTF_16));
+            }
+        }
+        Assert.assertEquals(TruffleString.CodeRange.LATIN_1, TruffleString.GetCodeRangeNode.getUncached().execute(result, UTF_16));
+        Assert.assertEquals(expected.length(), TruffleString.CodePointLengthNode.getUncached().execute(result, UTF_16));
+        // first random access flattens the string
+        Assert.assertEquals(expected.charAt(expected.length() / 2), TruffleString.ReadCharUTF16Node.getUncached().execute(result, expected.length() / 2));
+        Assert.assertEquals(expected.toString(), TruffleString.ToJavaStringNode.getUncached().execute(result));
+    }
+
+    @Test
+    public void testRightDeepBuild() {
+        StringBuilder expected = new StringBuilder();
+        TruffleString result = TruffleString.fromJavaStringUncached("", UTF_8);
+        for (int i = 0; i < 5000; i++) {
+            String piece = "prefix-" + i + "-abcdefghijklmnopqrstuvwxyz";
+            expected.insert(0, piece);
+            result = CONCAT.execute(TruffleString.fromJavaStringUncached(piece, UTF_8), result, UTF_8, true);
+        }
+        Assert.assertTrue(TruffleString.EqualNode.getUncached().execute(result, TruffleString.fromJavaStringUncached(expected.toString(), UTF_8), UTF_8));
+    }
+
+    @Test
+    public void testMutableOperands() {
+        String text = "mutable-abcdefghijklmnopqrstuvwxyz-0123456789";
+        MutableTruffleString mutable = MutableTruffleString.fromByteArrayUncached(text.getBytes(StandardCharsets.US_ASCII), 0, text.length(), UTF_8, true);
+        TruffleString immutable = TruffleString.fromJavaStringUncached("immutable-abcdefghijklmnopqrstuvwxyz-0123456789", UTF_8);
+
+        TruffleString lazy = CONCAT.execute(immutable, mutable, UTF_8, true);
+        TruffleString lazyReversed = CONCAT.execute(mutable, lazy, UTF_8, true);
+        MutableTruffleString.WriteByteNode.getUncached().execute(mutable, 0, (byte) 'X', UTF_8);
+        // lazy concatenations must not observe later writes to mutable operands
+        Assert.assertEquals("immutable-abcdefghijklmnopqrstuvwxyz-0123456789" + text, TruffleString.ToJavaStringNode.getUncached().execute(lazy));
+        Assert.assertEquals(text + "immutable-abcdefghijklmnopqrstuvwxyz-0123456789" + text, TruffleString.ToJavaStringNode.getUncached().execute(lazyReversed));
+
+        MutableTruffleString eager = MutableTruffleString.ConcatNode.getUncached().execute(mutable, lazyReversed, UTF_8);
+        Assert.assertEquals("X" + text.substring(1) + text + "immutable-abcdefghijklmnopqrstuvwxyz-0123456789" + text, TruffleString.ToJavaStringNode.getUncached().execute(eager));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.oracle.truffle.api.strings.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.strings.PooledNativeAllocator;
+import com.oracle.truffle.api.strings.TruffleString;
+
+public class TStringPooledNativeAllocatorTest extends TStringTestBase {
+
+    private static final TruffleString.Encoding UTF_8 = TruffleString.Encoding.UTF_8;
+
+    @Test
+    public void testAsNative() {
+        try (PooledNativeAllocator allocator = PooledNativeAllocator.create()) {
+            try (PooledNativeAllocator.Arena arena = allocator.openArena()) {
+                for (int length : new int[]{0, 1, 7, 100, 5000, 100000}) {
+                    TruffleString managed = TruffleString.fromJavaStringUncached("x".repeat(length), UTF_8);
+                    TruffleString nativeString = managed.asNativeUncached(arena, UTF_8, false, false);
+                    Assert.assertTrue(nativeString.isNative());
+                    Assert.assertTrue(nativeString.equalsUncached(managed, UTF_8));
+                }
+                Assert.assertTrue(allocator.getLiveBytes() > 0);
+                Assert.assertEquals(6, allocator.getAllocationCount());
+            }
+            Assert.assertEquals(0, allocator.getLiveBytes());
+            Assert.assertTrue(allocator.getPooledBytes() > 0);
+            Assert.assertEquals(allocator.getPooledBytes(), allocator.getReservedBytes());
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        try (PooledNativeAllocator allocator = PooledNativeAllocator.create()) {
+            long[] first = new long[100];
+            try (PooledNativeAllocator.Arena arena = allocator.openArena()) {
+                for (int i = 0; i < first.length; i++) {
+                    first[i] = pointer(arena.allocate(i));
+                    Assert.assertEquals(0, first[i] % 8);
+                    if (i > 0) {
+                        Assert.assertNotEquals(first[i - 1], first[i]);
+                    }
+                }
+            }
+            long reserved = allocator.getReservedBytes();
+            try (PooledNativeAllocator.Arena arena = allocator.openArena()) {
+                for (int i = 0; i < first.length; i++) {
+                    Assert.assertEquals(first[i], pointer(arena.allocate(i)));
+                }
+            }
+            Assert.assertEquals(reserved, allocator.getReservedBytes());
+            // only the first chunk had to be allocated
+            Assert.assertEquals(199.0 / 200, allocator.getPoolHitRate(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testClose() {
+        PooledNativeAllocator allocator = PooledNativeAllocator.create();
+        PooledNativeAllocator.Arena arena = allocator.openArena();
+        arena.allocate(16);
+        arena.allocate(1 << 16);
+        allocator.close();
+        Assert.assertTrue(allocator.getReservedBytes() > 0);
+        arena.close();
+        Assert.assertEquals(0, allocator.getReservedBytes());
+        Assert.assertEquals(0, allocator.getPooledBytes());
+        expectIllegalStateException(() -> arena.allocate(1));
+        expectIllegalStateException(allocator::openArena);
+    }
+
+    @Test
+    public void testCacheResult() {
+        TruffleString managed = TruffleString.fromJavaStringUncached("cached-native-string", UTF_8);
+        try (PooledNativeAllocator allocator = PooledNativeAllocator.create()) {
+            try (PooledNativeAllocator.Arena arena = allocator.openArena()) {
+                try {
+                    managed.asNativeUncached(arena, UTF_8, false, true);
+                    Assert.fail("expected IllegalArgumentException");
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+                Assert.assertTrue(managed.asNativeUncached(arena, UTF_8, false, false).equalsUncached(managed, UTF_8));
+            }
+            try (PooledNativeAllocator.Arena arena = allocator.openArena()) {
+                // reuses and overwrites the memory of the first arena
+                TruffleString other = TruffleString.fromJavaStringUncached("overwritten-memory!!", UTF_8).asNativeUncached(arena, UTF_8, false, false);
+                Assert.assertEquals(64 * 1024, allocator.getReservedBytes());
+                // nothing backed by the first arena was cached in the managed string
+                TruffleString cached = managed.asNativeUncached(PointerObject::create, UTF_8, false, true);
+                Assert.assertTrue(cached.equalsUncached(managed, UTF_8));
+                Assert.assertFalse(cached.equalsUncached(other, UTF_8));
+                Assert.assertSame(cached, managed.asNativeUncached(PointerObject::create, UTF_8, false, true));
+            }
+        }
+    }
+
+    private static void expectIllegalStateException(Runnable runnable) {
+        try {
+            runnable.run();
+            Assert.fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static long pointer(Object buffer) {
+        try {
+            return InteropLibrary.getUncached().asPointer(buffer);
+        } catch (UnsupportedMessageException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
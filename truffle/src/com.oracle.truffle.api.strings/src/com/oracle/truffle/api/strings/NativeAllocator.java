@@ -42,7 +42,8 @@
 package com.oracle.truffle.api.strings;
 
 /**
- * An allocation function for native buffers.
+ * An allocation function for native buffers. {@link PooledNativeAllocator.Arena} provides a pooled
+ * implementation that reclaims its buffers in bulk.
  *
  * @since 23.0
  */
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.strings;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+import sun.misc.Unsafe;
+
+/**
+ * A pool of native memory for native {@link TruffleString}s, reclaimed in bulk per
+ * {@link Arena}.
+ * <p>
+ * Native buffers are allocated through arenas, which implement {@link NativeAllocator} and can
+ * therefore be passed to {@link TruffleString.AsNativeNode}. Their buffers can also be filled and
+ * passed to {@link TruffleString.FromNativePointerNode}. Buffers of up to 4 KiB are carved out of
+ * shared chunks, larger ones are taken from free lists of power-of-two size classes. When an arena
+ * is closed, all of its memory is returned to the pool at once and may immediately be handed out
+ * again by other arenas. With warm pools, converting many short-lived strings at an FFI boundary
+ * needs neither a {@code malloc} nor a {@code free} per string.
+ * <p>
+ * <b>Closing an arena invalidates all native strings backed by its buffers.</b> Strings that must
+ * outlive the arena have to be converted with {@link TruffleString.AsManagedNode} before the arena
+ * is closed. For the same reason, arenas cannot be used with {@link TruffleString.AsNativeNode} if
+ * {@code cacheResult} is {@code true}: the managed string would keep returning the cached native
+ * string after its memory was reused.
+ * <p>
+ * The allocator is thread safe. An arena must only be used by one thread at a time.
+ *
+ * @since 23.1
+ */
+public final class PooledNativeAllocator implements AutoCloseable {
+
+    /**
+     * Buffers up to this size are allocated from shared chunks.
+     */
+    private static final int SMALL_LIMIT = 4096;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int ALIGNMENT = 8;
+    /** Largest size class that is pooled; larger buffers are freed when their arena is closed. */
+    private static final int LARGEST_POOLED_SIZE = 1 << 20;
+    private static final int SMALLEST_LARGE_CLASS = Integer.numberOfTrailingZeros(Integer.highestOneBit(SMALL_LIMIT) << 1);
+    private static final int LARGEST_LARGE_CLASS = Integer.numberOfTrailingZeros(LARGEST_POOLED_SIZE);
+    private static final int CHUNK_CLASS = 0;
+    private static final int UNPOOLED = -1;
+
+    private static final Unsafe UNSAFE = getUnsafe();
+
+    private final long maxPooledBytes;
+    /** Index 0 holds chunks, index {@code i > 0} blocks of {@code 2^(SMALLEST_LARGE_CLASS + i - 1)} bytes. */
+    private final ConcurrentLinkedQueue<Block>[] freeLists;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final LongAdder reservedBytes = new LongAdder();
+    private final LongAdder liveBytes = new LongAdder();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+    private volatile boolean closed;
+
+    private static final class Block {
+        final long address;
+        final int size;
+        final int sizeClass;
+
+        Block(long address, int size, int sizeClass) {
+            this.address = address;
+            this.size = size;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private PooledNativeAllocator(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.freeLists = new ConcurrentLinkedQueue[LARGEST_LARGE_CLASS - SMALLEST_LARGE_CLASS + 2];
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Creates an allocator that keeps up to 64 MiB of unused native memory pooled.
+     *
+     * @since 23.1
+     */
+    public static PooledNativeAllocator create() {
+        return create(64L * 1024 * 1024);
+    }
+
+    /**
+     * Creates an allocator that keeps up to {@code maxPooledBytes} of unused native memory pooled.
+     * Memory returned by closed arenas beyond this limit is freed.
+     *
+     * @since 23.1
+     */
+    public static PooledNativeAllocator create(long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException("maxPooledBytes must not be negative");
+        }
+        return new PooledNativeAllocator(maxPooledBytes);
+    }
+
+    /**
+     * Opens a new arena. All buffers allocated by the arena remain valid until it is
+     * {@linkplain Arena#close() closed}.
+     *
+     * @since 23.1
+     */
+    public Arena openArena() {
+        if (closed) {
+            throw new IllegalStateException("allocator is closed");
+        }
+        return new Arena(this);
+    }
+
+    private static Unsafe getUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException e) {
+        }
+        try {
+            Field theUnsafeInstance = Unsafe.class.getDeclaredField("theUnsafe");
+            theUnsafeInstance.setAccessible(true);
+            return (Unsafe) theUnsafeInstance.get(Unsafe.class);
+        } catch (Exception e) {
+            throw new RuntimeException("exception while trying to get Unsafe.theUnsafe via reflection:", e);
+        }
+    }
+
+    private static int sizeClassOf(int size) {
+        int log2 = 32 - Integer.numberOfLeadingZeros(size - 1);
+        if (log2 > LARGEST_LARGE_CLASS) {
+            return UNPOOLED;
+        }
+        return Math.max(log2, SMALLEST_LARGE_CLASS) - SMALLEST_LARGE_CLASS + 1;
+    }
+
+    private static int sizeOfClass(int sizeClass) {
+        return sizeClass == CHUNK_CLASS ? CHUNK_SIZE : 1 << (SMALLEST_LARGE_CLASS + sizeClass - 1);
+    }
+
+    private Block acquire(int sizeClass, int size) {
+        if (sizeClass != UNPOOLED) {
+            Block block = freeLists[sizeClass].poll();
+            if (block != null) {
+                pooledBytes.addAndGet(-block.size);
+                return block;
+            }
+        }
+        int blockSize = sizeClass == UNPOOLED ? size : sizeOfClass(sizeClass);
+        poolMisses.increment();
+        reservedBytes.add(blockSize);
+        return new Block(UNSAFE.allocateMemory(blockSize), blockSize, sizeClass);
+    }
+
+    private void release(Block block) {
+        if (block.sizeClass != UNPOOLED && !closed) {
+            if (pooledBytes.addAndGet(block.size) <= maxPooledBytes) {
+                freeLists[block.sizeClass].add(block);
+                if (closed) {
+                    /* The free lists may have been drained before the block was added. */
+                    freePooled();
+                }
+                return;
+            }
+            pooledBytes.addAndGet(-block.size);
+        }
+        free(block);
+    }
+
+    private void freePooled() {
+        for (ConcurrentLinkedQueue<Block> freeList : freeLists) {
+            Block block;
+            while ((block = freeList.poll()) != null) {
+                pooledBytes.addAndGet(-block.size);
+                free(block);
+            }
+        }
+    }
+
+    private void free(Block block) {
+        UNSAFE.freeMemory(block.address);
+        reservedBytes.add(-block.size);
+    }
+
+    /**
+     * Returns the number of bytes handed out by arenas that are still open.
+     *
+     * @since 23.1
+     */
+    public long getLiveBytes() {
+        return liveBytes.sum();
+    }
+
+    /**
+     * Returns the number of bytes of unused native memory kept for reuse.
+     *
+     * @since 23.1
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Returns the number of bytes of native memory currently allocated by this allocator, in use or
+     * pooled.
+     *
+     * @since 23.1
+     */
+    public long getReservedBytes() {
+        return reservedBytes.sum();
+    }
+
+    /**
+     * Returns the number of buffers allocated by all arenas of this allocator.
+     *
+     * @since 23.1
+     */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    /**
+     * Returns the fraction of buffer allocations that did not have to allocate native memory.
+     *
+     * @since 23.1
+     */
+    public double getPoolHitRate() {
+        long total = allocations.sum();
+        return total == 0 ? 0 : 1.0 - (double) Math.min(poolMisses.sum(), total) / total;
+    }
+
+    /**
+     * Frees all pooled memory. Memory of arenas that are still open is freed when they are closed.
+     *
+     * @since 23.1
+     */
+    @Override
+    public void close() {
+        closed = true;
+        freePooled();
+    }
+
+    /**
+     * A scope for native buffers that are all reclaimed together when the arena is closed.
+     *
+     * @since 23.1
+     */
+    public static final class Arena implements NativeAllocator, AutoCloseable {
+
+        private final PooledNativeAllocator allocator;
+        private final ArrayList<Block> blocks = new ArrayList<>();
+        private Block chunk;
+        private int chunkOffset;
+        private long liveBytes;
+        private boolean closed;
+
+        private Arena(PooledNativeAllocator allocator) {
+            this.allocator = allocator;
+        }
+
+        /**
+         * Allocates a native buffer of {@code byteSize} bytes that remains valid until this arena
+         * is closed. The returned object is a pointer as expected by
+         * {@link TruffleString.FromNativePointerNode}.
+         *
+         * @since 23.1
+         */
+        @TruffleBoundary
+        @Override
+        public Object allocate(int byteSize) {
+            if (closed) {
+                throw new IllegalStateException("arena is closed");
+            }
+            if (byteSize < 0) {
+                throw new IllegalArgumentException("negative byteSize");
+            }
+            int size;
+            long address;
+            if (byteSize <= SMALL_LIMIT) {
+                size = Math.max(ALIGNMENT, (byteSize + ALIGNMENT - 1) & -ALIGNMENT);
+                if (chunk == null || chunkOffset + size > CHUNK_SIZE) {
+                    chunk = allocator.acquire(CHUNK_CLASS, CHUNK_SIZE);
+                    blocks.add(chunk);
+                    chunkOffset = 0;
+                }
+                address = chunk.address + chunkOffset;
+                chunkOffset += size;
+            } else {
+                Block block = allocator.acquire(sizeClassOf(byteSize), byteSize);
+                blocks.add(block);
+                address = block.address;
+                size = block.size;
+            }
+            liveBytes += size;
+            allocator.liveBytes.add(size);
+            allocator.allocations.increment();
+            return new Buffer(address);
+        }
+
+        /**
+         * Returns the memory of all buffers allocated by this arena to the pool. Native strings
+         * backed by these buffers must not be used afterwards.
+         *
+         * @since 23.1
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Block block : blocks) {
+                allocator.release(block);
+            }
+            blocks.clear();
+            chunk = null;
+            allocator.liveBytes.add(-liveBytes);
+            liveBytes = 0;
+        }
+    }
+
+    @ExportLibrary(InteropLibrary.class)
+    static final class Buffer implements TruffleObject {
+
+        final long address;
+
+        Buffer(long address) {
+            this.address = address;
+        }
+
+        @ExportMessage
+        boolean isPointer() {
+            return true;
+        }
+
+        @ExportMessage
+        long asPointer() {
+            return address;
+        }
+
+        @ExportMessage
+        void toNative() {
+        }
+    }
+}
@@ -4772,7 +4772,15 @@ public final class TruffleString extends AbstractTruffleString {
          * @param lazy if {@code true}, the creation of the new string's internal array may be
          *            delayed until it is required by another operation. This parameter is expected
          *            to be {@link CompilerAsserts#partialEvaluationConstant(boolean) partial
-         *            evaluation constant}.
+         *            evaluation constant}. The code range and length of a lazily concatenated
+         *            string are derived from its operands, so querying them does not force
+         *            creation of the internal array; any operation that requires random access
+         *            does. The concatenation is nevertheless performed eagerly if the result
+         *            is shorter than an internal minimum length, if its code range is
+         *            {@link CodeRange#BROKEN broken} in a multi-byte encoding, or if both
+         *            operands are {@link MutableTruffleString mutable}. A single mutable
+         *            operand is copied at concatenation time, so later modifications are not
+         *            visible in the result.
          * @since 22.1
          */
         public abstract TruffleString execute(AbstractTruffleString a, AbstractTruffleString b, Encoding expectedEncoding, boolean lazy);
@@ -6022,9 +6030,13 @@ public final class TruffleString extends AbstractTruffleString {
          *            in the given managed string's internal transcoding cache ring, guaranteeing
          *            that subsequent calls on the managed string return the same native string.
          *            Note that this ties the lifetime of the native string to that of the managed
-         *            string. This parameter is expected to be
+         *            string. Must be {@code false} if {@code allocator} is a
+         *            {@link PooledNativeAllocator.Arena}, since its memory is reused once the arena
+         *            is closed. This parameter is expected to be
          *            {@link CompilerAsserts#partialEvaluationConstant(Object) partial evaluation
          *            constant}.
+         * @throws IllegalArgumentException if {@code cacheResult} is {@code true} and
+         *             {@code allocator} is a {@link PooledNativeAllocator.Arena}.
          *
          * @since 23.0
          */
@@ -6043,6 +6055,10 @@ public final class TruffleString extends AbstractTruffleString {
             CompilerAsserts.partialEvaluationConstant(allocator);
             CompilerAsserts.partialEvaluationConstant(useCompaction);
             CompilerAsserts.partialEvaluationConstant(cacheResult);
+            if (cacheResult && allocator instanceof PooledNativeAllocator.Arena) {
+                // the arena's memory is reused after it is closed, the cached string would dangle
+                throw InternalErrors.illegalArgument("native strings allocated by a PooledNativeAllocator.Arena cannot be cached");
+            }
             int strideA = inflateStrideProfile.profile(node, a.stride());
             int codeRangeA = getPreciseCodeRangeNode.execute(node, a, encoding);
             if (isNativeProfile.profile(node, a.isNative() && strideA == (useCompaction ? Stride.fromCodeRange(codeRangeA, encoding) : encoding.naturalStride))) {
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.object.basic.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the transition map of shapes once it has outgrown copy-on-write.
+ */
+public class TransitionMapTest {
+
+    private static final String TRANSITION_MAP = "com.oracle.truffle.object.TransitionMap";
+
+    private final Object map;
+    private final Method put;
+    private final Method get;
+    private final Method size;
+    private final Method clear;
+    private final Field table;
+    private final int copyOnWriteLimit;
+
+    public TransitionMapTest() throws ReflectiveOperationException {
+        Class<?> mapClass = Class.forName(TRANSITION_MAP);
+        Constructor<?> constructor = mapClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        map = constructor.newInstance();
+        put = accessible(mapClass.getDeclaredMethod("put", Object.class, Object.class));
+        get = accessible(mapClass.getDeclaredMethod("get", Object.class));
+        size = accessible(mapClass.getDeclaredMethod("size"));
+        clear = accessible(mapClass.getDeclaredMethod("clear"));
+        table = mapClass.getDeclaredField("table");
+        table.setAccessible(true);
+        Field limit = mapClass.getDeclaredField("COPY_ON_WRITE_LIMIT");
+        limit.setAccessible(true);
+        copyOnWriteLimit = limit.getInt(null);
+    }
+
+    private static Method accessible(Method method) {
+        method.setAccessible(true);
+        return method;
+    }
+
+    private int size() throws ReflectiveOperationException {
+        return (int) size.invoke(map);
+    }
+
+    /**
+     * A value that is collected after the map switched to a concurrent hash map is expunged by the
+     * next mutation.
+     */
+    @Test
+    public void testCollectedValueExpunged() throws Exception {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i <= copyOnWriteLimit; i++) {
+            Object value = new Object();
+            values.add(value);
+            put.invoke(map, "key" + i, value);
+        }
+        Object collectable = new Object();
+        WeakReference<Object> collectableRef = new WeakReference<>(collectable);
+        put.invoke(map, "collectable", collectable);
+        assertEquals(copyOnWriteLimit + 2, size());
+        assertSame(collectable, get.invoke(map, "collectable"));
+
+        collectable = null;
+        for (int i = 0; i < 10 && collectableRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(collectableRef.get());
+        assertNull(get.invoke(map, "collectable"));
+
+        /*
+         * Mutations expunge the entries enqueued so far. The reference handler thread may enqueue
+         * the cleared entry with a delay, so retry a few times.
+         */
+        for (int i = 0; i < 100; i++) {
+            put.invoke(map, "trigger", values.get(0));
+            if (size() == copyOnWriteLimit + 2) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        assertEquals("collected entry was not expunged", copyOnWriteLimit + 2, size());
+        for (int i = 0; i <= copyOnWriteLimit; i++) {
+            assertSame(values.get(i), get.invoke(map, "key" + i));
+        }
+    }
+
+    /**
+     * Clearing a map backed by a concurrent hash map empties that map in place, so that a writer
+     * that has already read the table still writes to the live map.
+     */
+    @Test
+    public void testClearKeepsConcurrentTable() throws Exception {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i <= copyOnWriteLimit; i++) {
+            Object value = new Object();
+            values.add(value);
+            put.invoke(map, "key" + i, value);
+        }
+        Object largeTable = table.get(map);
+        clear.invoke(map);
+        assertEquals(0, size());
+        assertSame(largeTable, table.get(map));
+        assertNull(get.invoke(map, "key0"));
+
+        put.invoke(map, "key0", values.get(0));
+        assertEquals(1, size());
+        assertSame(values.get(0), get.invoke(map, "key0"));
+    }
+}
@@ -43,57 +43,290 @@ package com.oracle.truffle.object;
 
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 
-import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.Equivalence;
-import org.graalvm.collections.MapCursor;
 
 /**
- * A synchronized hash map with weakly referenced values. Cleared value references are expunged only
- * when the map is mutated. Keys may be strongly or weakly referenced.
+ * A concurrent hash map with weakly referenced values. Keys may be strongly or weakly referenced.
+ * <p>
+ * The entries are kept in an immutable {@link Table} that is replaced as a whole on every
+ * mutation. Lookups and iteration read the current table without synchronization. Mutations copy
+ * the table and install the copy with a compare-and-set, retrying if another thread installed a
+ * different table in the meantime. Entries whose values have been cleared are dropped while
+ * copying, so stale entries are expunged by whichever thread mutates the map next. Transition maps
+ * are usually small and read far more often than written, which makes copying cheaper than
+ * contending on a lock for every lookup.
+ * <p>
+ * Copying makes every mutation linear in the size of the map, though, so a table that grows beyond
+ * {@link #COPY_ON_WRITE_LIMIT} entries is replaced once by a {@link ConcurrentHashMap} of weakly
+ * referenced values. Its values are registered with a reference queue, and entries of collected
+ * values are expunged from the queue by whichever thread mutates the map next.
  */
 final class TransitionMap<K, V> {
 
-    /** Key is either {@code K} or {@code WeakKey<K>}. */
-    private final EconomicMap<Object, StrongKeyWeakValueEntry<Object, V>> map;
-    private final ReferenceQueue<V> queue;
+    /** Tables with up to this many entries are searched linearly. */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    /** Tables with more entries are replaced by a {@link ConcurrentHashMap}. */
+    static final int COPY_ON_WRITE_LIMIT = 64;
 
     private static final Equivalence WEAK_KEY_EQUIVALENCE = new WeakKeyEquivalence();
 
+    private static final Table<?> EMPTY_TABLE = new Table<>(newEntryArray(0));
+
+    @SuppressWarnings("rawtypes") private static final AtomicReferenceFieldUpdater<TransitionMap, Table> TABLE_UPDATER = //
+                    AtomicReferenceFieldUpdater.newUpdater(TransitionMap.class, Table.class, "table");
+
+    private volatile Table<V> table;
+
     TransitionMap() {
-        this.map = EconomicMap.create(WEAK_KEY_EQUIVALENCE);
-        this.queue = new ReferenceQueue<>();
+        this.table = emptyTable();
     }
 
-    public boolean containsKey(Object key) {
-        return get(key) != null;
+    /**
+     * An immutable set of entries in insertion order. Entry keys are either {@code K} or
+     * {@code WeakKey<K>}. Larger tables have an open addressing index that maps hash codes to
+     * entry indices plus one.
+     * <p>
+     * Once the map has outgrown copying, its table has no entries and refers to the
+     * {@linkplain #large concurrent map} that holds them instead. Such a table is never replaced,
+     * since writers update its concurrent map after reading the table without a compare-and-set.
+     */
+    private static final class Table<V> {
+        final StrongKeyWeakValueEntry<Object, V>[] entries;
+        final int[] index;
+        final ConcurrentHashMap<Key, StrongKeyWeakValueEntry<Object, V>> large;
+        final ReferenceQueue<V> queue;
+
+        Table(StrongKeyWeakValueEntry<Object, V>[] entries) {
+            this.entries = entries;
+            this.index = entries.length <= LINEAR_SEARCH_LIMIT ? null : buildIndex(entries);
+            this.large = null;
+            this.queue = null;
+        }
+
+        /**
+         * Creates a table backed by a concurrent map holding the live entries of {@code entries}.
+         */
+        Table(StrongKeyWeakValueEntry<Object, V>[] entries, ReferenceQueue<V> queue) {
+            this.entries = newEntryArray(0);
+            this.index = null;
+            this.large = new ConcurrentHashMap<>(entries.length * 2);
+            this.queue = queue;
+            for (StrongKeyWeakValueEntry<Object, V> entry : entries) {
+                V value = entry.get();
+                if (value != null) {
+                    large.put(new Key(entry.getKey()), new StrongKeyWeakValueEntry<>(entry.getKey(), value, queue));
+                }
+            }
+        }
+
+        private static int[] buildIndex(StrongKeyWeakValueEntry<Object, ?>[] entries) {
+            int[] index = new int[Integer.highestOneBit(entries.length * 2 - 1) << 1];
+            int mask = index.length - 1;
+            for (int i = 0; i < entries.length; i++) {
+                int slot = hash(entries[i].getKey()) & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = i + 1;
+            }
+            return index;
+        }
+
+        private static int hash(Object key) {
+            int h = WEAK_KEY_EQUIVALENCE.hashCode(key);
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Returns the index of the entry for {@code key} or -1 if there is none.
+         */
+        int find(Object key) {
+            if (index == null) {
+                for (int i = 0; i < entries.length; i++) {
+                    if (WEAK_KEY_EQUIVALENCE.equals(entries[i].getKey(), key)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int mask = index.length - 1;
+            for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+                int i = index[slot] - 1;
+                if (i < 0) {
+                    return -1;
+                }
+                if (WEAK_KEY_EQUIVALENCE.equals(entries[i].getKey(), key)) {
+                    return i;
+                }
+            }
+        }
+
+        /**
+         * Returns a copy of this table without entries whose values have been cleared, in which
+         * the entry at {@code at} is replaced by {@code entry}, or removed if {@code entry} is
+         * {@code null}. If {@code at} is negative, {@code entry} is appended.
+         */
+        Table<V> update(int at, StrongKeyWeakValueEntry<Object, V> entry) {
+            StrongKeyWeakValueEntry<Object, V>[] copy = newEntryArray(entries.length + 1);
+            int length = 0;
+            for (int i = 0; i < entries.length; i++) {
+                if (i == at) {
+                    if (entry != null) {
+                        copy[length++] = entry;
+                    }
+                } else if (entries[i].get() != null) {
+                    copy[length++] = entries[i];
+                }
+            }
+            if (at < 0) {
+                copy[length++] = entry;
+            }
+            return new Table<>(length == copy.length ? copy : Arrays.copyOf(copy, length));
+        }
+
+        /**
+         * Counts the entries dropped by {@link #update} other than the one at {@code at}.
+         */
+        int countCleared(int at) {
+            int cleared = 0;
+            for (int i = 0; i < entries.length; i++) {
+                if (i != at && entries[i].get() == null) {
+                    cleared++;
+                }
+            }
+            return cleared;
+        }
     }
 
-    private V getValue(StrongKeyWeakValueEntry<? super K, V> entry) {
-        return entry == null ? null : entry.get();
+    @SuppressWarnings("unchecked")
+    private static <V> StrongKeyWeakValueEntry<Object, V>[] newEntryArray(int length) {
+        return (StrongKeyWeakValueEntry<Object, V>[]) new StrongKeyWeakValueEntry<?, ?>[length];
     }
 
     @SuppressWarnings("unchecked")
+    private static <V> Table<V> emptyTable() {
+        return (Table<V>) EMPTY_TABLE;
+    }
+
+    private boolean replaceTable(Table<V> expected, Table<V> update, int at) {
+        Table<V> newTable = update;
+        if (update.entries.length > COPY_ON_WRITE_LIMIT) {
+            newTable = new Table<>(update.entries, new ReferenceQueue<>());
+        }
+        if (TABLE_UPDATER.compareAndSet(this, expected, newTable)) {
+            for (int i = expected.countCleared(at); i > 0; i--) {
+                ShapeImpl.shapeCacheExpunged.inc();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the entries of collected values from a table backed by a concurrent map.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> void expunge(Table<V> t) {
+        for (Reference<? extends V> ref; (ref = t.queue.poll()) != null;) {
+            StrongKeyWeakValueEntry<Object, V> entry = (StrongKeyWeakValueEntry<Object, V>) ref;
+            if (t.large.remove(new Key(entry.getKey()), entry)) {
+                ShapeImpl.shapeCacheExpunged.inc();
+            }
+        }
+    }
+
+    private static <V> V valueOf(StrongKeyWeakValueEntry<Object, V> entry) {
+        return entry == null ? null : entry.get();
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
     public V get(Object key) {
-        synchronized (queue) {
-            return getValue(map.get(key));
+        Table<V> t = table;
+        if (t.large != null) {
+            return valueOf(t.large.get(new Key(key)));
         }
+        int at = t.find(key);
+        return at < 0 ? null : t.entries[at].get();
+    }
+
+    /**
+     * Returns the number of entries, including entries of collected values that have not been
+     * expunged yet.
+     */
+    int size() {
+        Table<V> t = table;
+        return t.large != null ? t.large.size() : t.entries.length;
     }
 
     private V putAnyKey(Object key, V value) {
-        synchronized (queue) {
-            expungeStaleEntries();
-            return getValue(map.put(key, new StrongKeyWeakValueEntry<>(key, value, queue)));
+        Table<V> t = table;
+        if (t.large != null) {
+            expunge(t);
+            return valueOf(t.large.put(new Key(key), new StrongKeyWeakValueEntry<>(key, value, t.queue)));
+        }
+        StrongKeyWeakValueEntry<Object, V> entry = new StrongKeyWeakValueEntry<>(key, value, null);
+        for (;; t = table) {
+            if (t.large != null) {
+                return putAnyKey(key, value);
+            }
+            int at = t.find(key);
+            if (replaceTable(t, t.update(at, entry), at)) {
+                return at < 0 ? null : t.entries[at].get();
+            }
+        }
+    }
+
+    private static <V> V putIfAbsentLarge(Table<V> t, Object key, V value) {
+        expunge(t);
+        Key k = new Key(key);
+        StrongKeyWeakValueEntry<Object, V> entry = new StrongKeyWeakValueEntry<>(key, value, t.queue);
+        for (;;) {
+            StrongKeyWeakValueEntry<Object, V> existing = t.large.putIfAbsent(k, entry);
+            if (existing == null) {
+                return null;
+            }
+            V existingValue = existing.get();
+            if (existingValue != null) {
+                return existingValue;
+            }
+            // the existing value was collected but not expunged yet
+            if (t.large.replace(k, existing, entry)) {
+                return null;
+            }
         }
     }
 
     private V putAnyKeyIfAbsent(Object key, V value) {
-        synchronized (queue) {
-            expungeStaleEntries();
-            return getValue(map.putIfAbsent(key, new StrongKeyWeakValueEntry<>(key, value, queue)));
+        StrongKeyWeakValueEntry<Object, V> entry = null;
+        for (;;) {
+            Table<V> t = table;
+            if (t.large != null) {
+                return putIfAbsentLarge(t, key, value);
+            }
+            int at = t.find(key);
+            if (at >= 0) {
+                V existing = t.entries[at].get();
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            if (entry == null) {
+                entry = new StrongKeyWeakValueEntry<>(key, value, null);
+            }
+            if (replaceTable(t, t.update(at, entry), at)) {
+                return null;
+            }
         }
     }
 
@@ -130,60 +363,63 @@ final class TransitionMap<K, V> {
     }
 
     public V remove(Object key) {
-        synchronized (queue) {
-            expungeStaleEntries();
-            return getValue(map.removeKey(key));
-        }
-    }
-
-    private void expungeStaleEntries() {
-        for (Reference<? extends V> r; (r = queue.poll()) != null;) {
-            if (r instanceof StrongKeyWeakValueEntry<?, ?>) {
-                StrongKeyWeakValueEntry<?, ?> entry = (StrongKeyWeakValueEntry<?, ?>) r;
-                if (map.get(entry.getKey()) == entry) {
-                    map.removeKey(entry.getKey());
-                    ShapeImpl.shapeCacheExpunged.inc();
-                }
+        for (;;) {
+            Table<V> t = table;
+            if (t.large != null) {
+                expunge(t);
+                return valueOf(t.large.remove(new Key(key)));
+            }
+            int at = t.find(key);
+            if (at < 0) {
+                return null;
+            }
+            if (replaceTable(t, t.update(at, null), at)) {
+                return t.entries[at].get();
             }
         }
     }
 
     public void clear() {
-        synchronized (queue) {
-            while (queue.poll() != null) {
-                // clear out ref queue.
+        for (;;) {
+            Table<V> t = table;
+            if (t.large != null) {
+                // clear in place, writers that already read the table must not lose their update
+                t.large.clear();
+                return;
+            }
+            if (TABLE_UPDATER.compareAndSet(this, t, emptyTable())) {
+                return;
             }
-            map.clear();
         }
     }
 
+    /**
+     * Iterates over a snapshot of the entries. Concurrent modifications are not reflected.
+     */
     public void forEach(BiConsumer<? super K, ? super V> consumer) {
-        synchronized (queue) {
-            MapCursor<Object, StrongKeyWeakValueEntry<Object, V>> cursor = map.getEntries();
-            while (cursor.advance()) {
-                V value = cursor.getValue().get();
-                if (value != null) {
-                    K key = unwrapKey(cursor.getKey());
-                    if (key != null) {
-                        consumer.accept(key, value);
-                    }
+        for (StrongKeyWeakValueEntry<Object, V> entry : entries()) {
+            V value = entry.get();
+            if (value != null) {
+                K key = unwrapKey(entry.getKey());
+                if (key != null) {
+                    consumer.accept(key, value);
                 }
             }
         }
     }
 
+    /**
+     * Iterates over a snapshot of the entries until {@code consumer} returns a non-null result.
+     */
     public <R> R iterateEntries(BiFunction<? super K, ? super V, R> consumer) {
-        synchronized (queue) {
-            MapCursor<Object, StrongKeyWeakValueEntry<Object, V>> cursor = map.getEntries();
-            while (cursor.advance()) {
-                V value = cursor.getValue().get();
-                if (value != null) {
-                    K key = unwrapKey(cursor.getKey());
-                    if (key != null) {
-                        R result = consumer.apply(key, value);
-                        if (result != null) {
-                            return result;
-                        }
+        for (StrongKeyWeakValueEntry<Object, V> entry : entries()) {
+            V value = entry.get();
+            if (value != null) {
+                K key = unwrapKey(entry.getKey());
+                if (key != null) {
+                    R result = consumer.apply(key, value);
+                    if (result != null) {
+                        return result;
                     }
                 }
             }
@@ -191,6 +427,11 @@ final class TransitionMap<K, V> {
         return null;
     }
 
+    private Iterable<StrongKeyWeakValueEntry<Object, V>> entries() {
+        Table<V> t = table;
+        return t.large != null ? t.large.values() : Arrays.asList(t.entries);
+    }
+
     @SuppressWarnings("unchecked")
     private K unwrapKey(Object key) {
         if (key instanceof WeakKey<?>) {
@@ -208,6 +449,9 @@ final class TransitionMap<K, V> {
 
         @Override
         public boolean equals(Object a, Object b) {
+            if (a == b) {
+                return true;
+            }
             boolean aIsWeak = a instanceof WeakKey<?>;
             boolean bIsWeak = b instanceof WeakKey<?>;
             if (aIsWeak && !bIsWeak) {
@@ -220,4 +464,27 @@ final class TransitionMap<K, V> {
 
     }
 
+    /**
+     * Key of the concurrent map that compares strong and weak keys by
+     * {@linkplain WeakKeyEquivalence their referents}.
+     */
+    private static final class Key {
+        private final Object key;
+        private final int hash;
+
+        Key(Object key) {
+            this.key = key;
+            this.hash = WEAK_KEY_EQUIVALENCE.hashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && WEAK_KEY_EQUIVALENCE.equals(key, ((Key) obj).key);
+        }
+    }
 }
\ No newline at end of file